@@ -28,6 +28,9 @@ dependencies {
     implementation("com.itextpdf:forms:8.0.4")    // do formularzy PDF
     implementation("com.itextpdf:pdfa:8.0.4")
 
+    // Eksport wyników do XLSX (strumieniowy zapis SXSSF)
+    implementation("org.apache.poi:poi-ooxml:5.2.5")
+
     // Spring Security - konieczne dla autentykacji i autoryzacji
     implementation("org.springframework.boot:spring-boot-starter-security")
     // Lombok dla logowania
@@ -53,6 +56,12 @@ dependencies {
     // Testy
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test") 
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// Testy JUnit 5
+tasks.test {
+    useJUnitPlatform()
 }
 
 
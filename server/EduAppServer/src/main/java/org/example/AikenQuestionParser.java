@@ -0,0 +1,85 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @brief
+ * Parser formatu Aiken: treść pytania, opcje "A." lub "A)" w osobnych liniach
+ * i linia "ANSWER: X". Każde pytanie jest mapowane na typ multiple_choice.
+ */
+public class AikenQuestionParser implements QuestionBankParser {
+
+    private static final Pattern OPTION = Pattern.compile("^([A-Za-z])[.)]\\s+(.+)$");
+    private static final String ANSWER_PREFIX = "ANSWER:";
+
+    @Override
+    public void parse(BufferedReader reader, Consumer<Item> consumer) throws IOException {
+        StringBuilder text = null;
+        Map<String, String> options = new LinkedHashMap<>();
+        String error = null;
+        int startLine = 0;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.strip();
+
+            if (trimmed.isEmpty()) {
+                if (text != null) {
+                    consumer.accept(Item.rejected(startLine, error != null ? error : "Brak linii ANSWER"));
+                    text = null;
+                    options.clear();
+                    error = null;
+                }
+                continue;
+            }
+            if (text == null) {
+                text = new StringBuilder(trimmed);
+                startLine = lineNumber;
+                continue;
+            }
+            if (trimmed.toUpperCase(Locale.ROOT).startsWith(ANSWER_PREFIX)) {
+                String answer = trimmed.substring(ANSWER_PREFIX.length()).replaceAll("\\s+", "").toUpperCase(Locale.ROOT);
+                if (error != null) {
+                    consumer.accept(Item.rejected(startLine, error));
+                } else if (answer.isEmpty()) {
+                    consumer.accept(Item.rejected(startLine, "Pusta linia ANSWER"));
+                } else {
+                    consumer.accept(Item.accepted(startLine, new QuizQuestion(
+                            text.toString(), "multiple_choice", new LinkedHashMap<>(options), answer, null)));
+                }
+                text = null;
+                options.clear();
+                error = null;
+                continue;
+            }
+            if (error != null) {
+                continue;
+            }
+            Matcher option = OPTION.matcher(trimmed);
+            if (option.matches()) {
+                String key = option.group(1).toUpperCase(Locale.ROOT);
+                if (options.putIfAbsent(key, option.group(2).strip()) != null) {
+                    error = "Zduplikowana opcja " + key + " w linii " + lineNumber;
+                }
+            } else if (options.isEmpty() && text.length() + trimmed.length() < MAX_ITEM_LENGTH) {
+                text.append(' ').append(trimmed);
+            } else {
+                error = "Nieprawidłowa linia " + lineNumber + " (oczekiwano opcji lub ANSWER:)";
+            }
+        }
+        if (text != null) {
+            consumer.accept(Item.rejected(startLine, error != null ? error : "Brak linii ANSWER"));
+        }
+    }
+}
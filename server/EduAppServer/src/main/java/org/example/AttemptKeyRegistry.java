@@ -0,0 +1,138 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizResultRepository;
+import org.example.controllers.SubmissionResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @brief
+ * Rejestr ostatnio użytych kluczy prób (nagłówek Idempotency-Key) dla przesyłanych quizów.
+ * Pierwsze żądanie z danym kluczem ocenia quiz, a każde kolejne (także równoległe) otrzymuje
+ * ten sam SubmissionResultDTO bez ponownego oceniania i zapisu.
+ * Rejestr nie używa blokad: rezerwacja klucza odbywa się przez putIfAbsent w ConcurrentHashMap,
+ * więc zgłoszenia różnych użytkowników nie są szeregowane. Klucze starsze niż TTL są usuwane,
+ * a po ich usunięciu (lub po restarcie) duplikat wykrywa unikalny indeks (user_id, quiz_id, attempt_key) w quiz_results.
+ * Klucz jest unikalny w obrębie quizu, więc ten sam klucz użyty dla innego quizu nie zwraca cudzego wyniku.
+ */
+@Slf4j
+@Component
+public class AttemptKeyRegistry {
+
+    /**
+     * Co ile rezerwacji uruchamiane jest usuwanie wygasłych kluczy.
+     */
+    private static final int SWEEP_EVERY = 1024;
+
+    /**
+     * Wpis rejestru: wynik pierwszego przesłania i czas rezerwacji klucza.
+     */
+    private record Entry(CompletableFuture<SubmissionResultDTO> result, long createdNanos) {}
+
+    private final QuizResultRepository quizResultRepository;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> recent = new ConcurrentHashMap<>();
+    private final AtomicInteger reservationsSinceSweep = new AtomicInteger();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param quizResultRepository Repozytorium wyników quizów.
+     * @param ttlMinutes Czas przechowywania kluczy w pamięci (w minutach).
+     */
+    @Autowired
+    public AttemptKeyRegistry(QuizResultRepository quizResultRepository,
+                              @Value("${quiz.submission.attempt-key-ttl-minutes:1440}") long ttlMinutes) {
+        this.quizResultRepository = quizResultRepository;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+    }
+
+    /**
+     * Wykonuje przesłanie quizu co najwyżej raz dla danego użytkownika, quizu i klucza próby.
+     *
+     * @param userId ID użytkownika.
+     * @param quizId ID quizu.
+     * @param attemptKey Klucz próby przesłany przez klienta.
+     * @param submission Operacja oceniająca i zapisująca quiz.
+     * @return Wynik pierwszego przesłania z tym kluczem.
+     */
+    public SubmissionResultDTO submitOnce(Long userId, Long quizId, String attemptKey,
+                                          Supplier<SubmissionResultDTO> submission) {
+        String key = userId + ":" + quizId + ":" + attemptKey;
+        Entry mine = new Entry(new CompletableFuture<>(), System.nanoTime());
+        Entry existing = recent.putIfAbsent(key, mine);
+        if (existing != null) {
+            duplicates.increment();
+            log.info("Powtórzone przesłanie quizu {} przez użytkownika {} z kluczem próby {}", quizId, userId, attemptKey);
+            return await(existing.result());
+        }
+        sweepIfNeeded();
+
+        try {
+            SubmissionResultDTO result = quizResultRepository.findByUserIdAndQuizIdAndAttemptKey(userId, quizId, attemptKey)
+                    .map(stored -> {
+                        duplicates.increment();
+                        log.info("Klucz próby {} użytkownika {} znaleziony w bazie (wynik ID: {})",
+                                attemptKey, userId, stored.getId());
+                        return new SubmissionResultDTO(
+                                true,
+                                stored.getCorrectAnswers() + "/" + stored.getTotalQuestions(),
+                                stored.getCorrectAnswers(),
+                                stored.getTotalQuestions(),
+                                (stored.getCorrectAnswers() * 100.0) / stored.getTotalQuestions()
+                        );
+                    })
+                    .orElseGet(submission);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            recent.remove(key, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private SubmissionResultDTO await(CompletableFuture<SubmissionResultDTO> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void sweepIfNeeded() {
+        if (reservationsSinceSweep.incrementAndGet() < SWEEP_EVERY) {
+            return;
+        }
+        reservationsSinceSweep.set(0);
+        long now = System.nanoTime();
+        recent.entrySet().removeIf(e -> e.getValue().result().isDone() && now - e.getValue().createdNanos() > ttlNanos);
+    }
+
+    /**
+     * Zwraca statystyki rejestru kluczy prób.
+     *
+     * @return Mapa z liczbą przechowywanych kluczy i liczbą wykrytych duplikatów.
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "size", recent.size(),
+                "duplicates", duplicates.sum()
+        );
+    }
+}
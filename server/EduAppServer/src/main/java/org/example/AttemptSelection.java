@@ -0,0 +1,76 @@
+package org.example;
+
+import java.util.*;
+
+/**
+ * @brief
+ * Deterministyczny wybór pytań i kolejności opcji dla próby rozwiązania quizu.
+ * Ten sam seed, ta sama lista pytań i ta sama liczba pytań do wyświetlenia zawsze dają ten sam wynik,
+ * więc serwer może odtworzyć zestaw pytań wydany studentowi bez zapisywania go w bazie.
+ */
+public final class AttemptSelection {
+
+    /**
+     * Stała mieszająca seed próby z ID pytania przy losowaniu kolejności opcji.
+     */
+    private static final long OPTION_SALT = 0x9E3779B97F4A7C15L;
+
+    private AttemptSelection() {}
+
+    /**
+     * Wybiera k pytań z posortowanej listy ID, używając częściowego algorytmu Fishera-Yatesa.
+     * Kolejność zwróconych ID jest kolejnością wyświetlania. Gdy k jest małe w porównaniu
+     * z liczbą pytań, zamiany są zapamiętywane w małej mapie zamiast w kopii całej tablicy,
+     * więc koszt zależy od k, a nie od wielkości puli; wynik jest w obu przypadkach ten sam.
+     *
+     * @param sortedQuestionIds Posortowane rosnąco ID wszystkich pytań quizu.
+     * @param questionsToDisplay Liczba pytań do wyświetlenia.
+     * @param seed Seed próby.
+     * @return Tablica wybranych ID pytań w kolejności wyświetlania.
+     */
+    public static long[] selectQuestions(long[] sortedQuestionIds, int questionsToDisplay, long seed) {
+        int n = sortedQuestionIds.length;
+        int k = Math.max(0, Math.min(questionsToDisplay, n));
+        SplittableRandom random = new SplittableRandom(seed);
+        if (k * 4 >= n) {
+            long[] ids = sortedQuestionIds.clone();
+            for (int i = 0; i < k; i++) {
+                int j = i + random.nextInt(n - i);
+                long tmp = ids[i];
+                ids[i] = ids[j];
+                ids[j] = tmp;
+            }
+            return Arrays.copyOf(ids, k);
+        }
+        long[] selected = new long[k];
+        Map<Integer, Long> swapped = new HashMap<>(k * 2);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            long atI = swapped.getOrDefault(i, sortedQuestionIds[i]);
+            selected[i] = swapped.getOrDefault(j, sortedQuestionIds[j]);
+            swapped.put(j, atI);
+        }
+        return selected;
+    }
+
+    /**
+     * Ustala kolejność opcji pytania dla danej próby.
+     *
+     * @param options Opcje pytania (klucz -> treść) lub null.
+     * @param seed Seed próby.
+     * @param questionId ID pytania.
+     * @return Mapa opcji w kolejności wyświetlania (null, jeśli pytanie nie ma opcji).
+     */
+    public static Map<String, String> orderOptions(Map<String, String> options, long seed, long questionId) {
+        if (options == null) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>(new TreeSet<>(options.keySet()));
+        Collections.shuffle(keys, new Random(seed ^ (questionId * OPTION_SALT)));
+        Map<String, String> ordered = new LinkedHashMap<>();
+        for (String key : keys) {
+            ordered.put(key, options.get(key));
+        }
+        return Collections.unmodifiableMap(ordered);
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @brief
+ * Usługa wydająca i weryfikująca podpisane tokeny prób rozwiązania quizu.
+ * Token zawiera ID quizu, wersję zestawu pytań, ID użytkownika, czas wydania oraz seed,
+ * z którego deterministycznie wynika wybór pytań i kolejność opcji (zob. AttemptSelection).
+ * Token jest podpisany HMAC-SHA256, więc serwer nie musi przechowywać prób w bazie.
+ */
+@Slf4j
+@Service
+public class AttemptTokenService {
+
+    /**
+     * Dane zawarte w tokenie próby.
+     *
+     * @param quizId ID quizu.
+     * @param questionsVersion Wersja zestawu pytań w chwili wydania tokenu.
+     * @param userId ID użytkownika, któremu wydano token.
+     * @param issuedAtEpochSecond Czas wydania tokenu (sekundy od epoki).
+     * @param seed Seed wyboru pytań.
+     */
+    public record Attempt(long quizId, int questionsVersion, long userId, long issuedAtEpochSecond, long seed) {}
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = Long.BYTES * 4 + Integer.BYTES;
+    private static final int MAC_LENGTH = 16;
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Konstruktor z konfiguracją.
+     *
+     * @param secret Sekret używany do podpisywania tokenów.
+     * @param ttlHours Czas ważności tokenu w godzinach.
+     */
+    public AttemptTokenService(@Value("${quiz.attempt.secret}") String secret,
+                               @Value("${quiz.attempt.ttl-hours:24}") long ttlHours) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttlSeconds = ttlHours * 3600;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Nie można zainicjalizować " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Wydaje nową próbę z losowym seedem.
+     *
+     * @param quizId ID quizu.
+     * @param questionsVersion Aktualna wersja zestawu pytań quizu.
+     * @param userId ID użytkownika.
+     * @return Nowa próba.
+     */
+    public Attempt newAttempt(long quizId, int questionsVersion, long userId) {
+        return new Attempt(quizId, questionsVersion, userId,
+                System.currentTimeMillis() / 1000, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Koduje i podpisuje próbę.
+     *
+     * @param attempt Próba do zakodowania.
+     * @return Token w formacie Base64 URL (bez dopełnienia).
+     */
+    public String encode(Attempt attempt) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAYLOAD_LENGTH + MAC_LENGTH);
+        buffer.putLong(attempt.quizId())
+                .putInt(attempt.questionsVersion())
+                .putLong(attempt.userId())
+                .putLong(attempt.issuedAtEpochSecond())
+                .putLong(attempt.seed());
+        byte[] bytes = buffer.array();
+        System.arraycopy(sign(bytes), 0, bytes, PAYLOAD_LENGTH, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Dekoduje token i weryfikuje jego podpis oraz ważność.
+     *
+     * @param token Token próby.
+     * @return Zdekodowana próba.
+     * @throws IllegalArgumentException jeśli token jest uszkodzony, ma nieprawidłowy podpis lub wygasł.
+     */
+    public Attempt decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieprawidłowy token próby");
+        }
+        if (bytes.length != PAYLOAD_LENGTH + MAC_LENGTH) {
+            throw new IllegalArgumentException("Nieprawidłowy token próby");
+        }
+        byte[] expected = sign(bytes);
+        if (!MessageDigest.isEqual(Arrays.copyOf(expected, MAC_LENGTH),
+                Arrays.copyOfRange(bytes, PAYLOAD_LENGTH, PAYLOAD_LENGTH + MAC_LENGTH))) {
+            throw new IllegalArgumentException("Nieprawidłowy podpis tokenu próby");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Attempt attempt = new Attempt(buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        if (System.currentTimeMillis() / 1000 - attempt.issuedAtEpochSecond() > ttlSeconds) {
+            throw new IllegalArgumentException("Token próby wygasł");
+        }
+        return attempt;
+    }
+
+    private byte[] sign(byte[] bytes) {
+        Mac mac = macs.get();
+        mac.update(bytes, 0, PAYLOAD_LENGTH);
+        return mac.doFinal();
+    }
+}
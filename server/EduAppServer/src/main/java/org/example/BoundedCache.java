@@ -0,0 +1,196 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @brief
+ * Ograniczona pamięć podręczna LRU współdzielona przez usługi przechowujące dane wyliczane z bazy
+ * (klucze odpowiedzi, pule pytań, analiza pytań, postępy studentów, pulpit nauczyciela).
+ * Po przekroczeniu maksymalnego rozmiaru usuwany jest najdawniej używany wpis; opcjonalnie wpisy
+ * wygasają po podanym czasie. Wartość wczytana z bazy jest zapisywana tylko wtedy, gdy w trakcie
+ * wczytywania nie nastąpiło żadne unieważnienie, a unieważnienie wywołane wewnątrz transakcji
+ * jest powtarzane po jej zatwierdzeniu, aby równoległe wczytanie nie zapisało nieaktualnej wartości.
+ *
+ * @param <K> Typ klucza.
+ * @param <V> Typ wartości.
+ */
+@Slf4j
+public class BoundedCache<K, V> {
+
+    private record Entry<V>(V value, long loadedNanos) {}
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    /**
+     * Wpisy w kolejności dostępu; chronione monitorem tej mapy.
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Licznik unieważnień (wersja zawartości), zob. get.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Tworzy pamięć podręczną bez wygasania wpisów.
+     *
+     * @param name Nazwa używana w logach.
+     * @param maxSize Maksymalna liczba wpisów.
+     */
+    public BoundedCache(String name, int maxSize) {
+        this(name, maxSize, 0);
+    }
+
+    /**
+     * Tworzy pamięć podręczną.
+     *
+     * @param name Nazwa używana w logach.
+     * @param maxSize Maksymalna liczba wpisów.
+     * @param ttlNanos Czas ważności wpisu w nanosekundach (0 - bez wygasania).
+     */
+    public BoundedCache(String name, int maxSize, long ttlNanos) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Zwraca wartość z pamięci podręcznej, a przy jej braku (lub wygaśnięciu) wczytuje ją funkcją loader
+     * poza blokadą. Wartość jest zapisywana, jeśli nie jest null i w trakcie wczytywania nie nastąpiło unieważnienie.
+     *
+     * @param key Klucz.
+     * @param loader Funkcja wczytująca wartość (może zwrócić null, np. gdy obiekt nie istnieje).
+     * @return Wartość z pamięci podręcznej lub wczytana (może być null).
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && (ttlNanos == 0 || now - entry.loadedNanos() < ttlNanos)) {
+                hits.increment();
+                return entry.value();
+            }
+        }
+        misses.increment();
+
+        long generation = invalidations.get();
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (entries) {
+                if (invalidations.get() == generation) {
+                    entries.put(key, new Entry<>(value, now));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Usuwa wpis. Wywołane wewnątrz transakcji usuwa wpis ponownie po jej zatwierdzeniu.
+     *
+     * @param key Klucz.
+     */
+    public void evict(K key) {
+        evictKeys(List.of(key));
+    }
+
+    /**
+     * Usuwa wpisy o podanych kluczach. Wywołane wewnątrz transakcji usuwa je ponownie po jej zatwierdzeniu.
+     *
+     * @param keys Klucze.
+     */
+    public void evictKeys(Collection<? extends K> keys) {
+        Set<K> copy = Set.copyOf(keys);
+        runNowAndAfterCommit(() -> evictNow(copy));
+    }
+
+    /**
+     * Usuwa wszystkie wpisy. Wywołane wewnątrz transakcji usuwa je ponownie po jej zatwierdzeniu.
+     */
+    public void evictAll() {
+        runNowAndAfterCommit(this::evictAllNow);
+    }
+
+    /**
+     * Usuwa wpis od razu, bez ponawiania po zatwierdzeniu transakcji (np. po błędzie wczytywania).
+     *
+     * @param key Klucz.
+     */
+    public void evictNow(K key) {
+        evictNow(Set.of(key));
+    }
+
+    private void evictNow(Set<K> keys) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.keySet().removeAll(keys);
+        }
+        log.debug("Unieważniono wpisy {} pamięci podręcznej {}", keys, name);
+    }
+
+    private void evictAllNow() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+        log.debug("Unieważniono wszystkie wpisy pamięci podręcznej {}", name);
+    }
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem, czasem ważności (jeśli ustawiony) oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        if (ttlNanos > 0) {
+            stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
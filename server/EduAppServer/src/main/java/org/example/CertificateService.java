@@ -0,0 +1,292 @@
+package org.example;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.utils.PdfMerger;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.TextAlignment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @brief
+ * Usługa generowania certyfikatów ukończenia dla wszystkich studentów, którzy zaliczyli quiz.
+ * Certyfikaty są renderowane równolegle w puli fork-join, porcjami (oknami) o stałym rozmiarze,
+ * i zapisywane do strumienia jako archiwum ZIP lub jeden scalony PDF w kolejności nazw użytkowników.
+ * Zasoby szablonu (program czcionki, obraz tła, teksty) są wczytywane raz i współdzielone przez wątki;
+ * obiekty zależne od dokumentu (PdfFont, Image) są tworzone dla każdego certyfikatu z tych zasobów.
+ */
+@Slf4j
+@Service
+public class CertificateService {
+
+    /**
+     * Format wyniku generowania certyfikatów.
+     */
+    public enum Format { ZIP, PDF }
+
+    /**
+     * Student, który zaliczył quiz.
+     *
+     * @param userId ID użytkownika.
+     * @param username Nazwa użytkownika.
+     * @param score Najlepszy wynik procentowy.
+     * @param completionDate Data ostatniej zaliczonej próby.
+     */
+    private record Recipient(long userId, String username, double score, LocalDateTime completionDate) {}
+
+    /**
+     * Zasoby szablonu certyfikatu współdzielone przez wszystkie wątki.
+     */
+    private record Template(FontProgram font, String fontEncoding, ImageData background,
+                            String title, String issuer) {}
+
+    private static final String SELECT_RECIPIENTS =
+            "SELECT r.\"user_id\", u.\"username\", MAX(r.score) AS best_score, " +
+                    "MAX(CASE WHEN r.score >= ? THEN r.\"completion_date\" END) AS completion_date " +
+                    "FROM (SELECT \"user_id\", \"completion_date\", " +
+                    "CASE WHEN \"total_questions\" > 0 THEN \"correct_answers\" * 100.0 / \"total_questions\" ELSE 0 END AS score " +
+                    "FROM \"quiz_results\" WHERE \"quiz_id\" = ?) r " +
+                    "JOIN \"users\" u ON u.\"id\" = r.\"user_id\" " +
+                    "GROUP BY r.\"user_id\", u.\"username\" " +
+                    "HAVING MAX(r.score) >= ? " +
+                    "ORDER BY u.\"username\"";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double passThreshold;
+    private final int windowSize;
+    private final ForkJoinPool pool;
+    private final Template template;
+
+    private final LongAdder generated = new LongAdder();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    /**
+     * Konstruktor wstrzykujący zależności i wczytujący zasoby szablonu.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param passThreshold Próg zaliczenia w procentach (ten sam co w statystykach quizów).
+     * @param parallelism Liczba wątków renderujących (0 = liczba rdzeni).
+     * @param windowSize Liczba certyfikatów renderowanych równolegle przed zapisem do strumienia.
+     * @param fontPath Ścieżka do pliku czcionki TTF/OTF (puste = wbudowana Helvetica z kodowaniem CP1250).
+     * @param backgroundPath Ścieżka do obrazu tła certyfikatu (puste = brak tła).
+     * @param title Tytuł certyfikatu.
+     * @param issuer Nazwa wystawcy umieszczana na certyfikacie.
+     * @throws IOException gdy nie można wczytać czcionki lub obrazu tła.
+     */
+    @Autowired
+    public CertificateService(JdbcTemplate jdbcTemplate,
+                              @Value("${quiz.stats.pass-threshold:50}") double passThreshold,
+                              @Value("${quiz.certificates.parallelism:0}") int parallelism,
+                              @Value("${quiz.certificates.window-size:256}") int windowSize,
+                              @Value("${quiz.certificates.font:}") String fontPath,
+                              @Value("${quiz.certificates.background:}") String backgroundPath,
+                              @Value("${quiz.certificates.title:Certyfikat ukończenia}") String title,
+                              @Value("${quiz.certificates.issuer:}") String issuer) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passThreshold = passThreshold;
+        this.windowSize = windowSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.template = new Template(
+                fontPath.isBlank() ? FontProgramFactory.createFont(StandardFonts.HELVETICA) : FontProgramFactory.createFont(fontPath),
+                fontPath.isBlank() ? PdfEncodings.CP1250 : PdfEncodings.IDENTITY_H,
+                backgroundPath.isBlank() ? null : ImageDataFactory.create(backgroundPath),
+                title,
+                issuer);
+        log.info("Generator certyfikatów: {} wątków, okno {}", pool.getParallelism(), windowSize);
+    }
+
+    /**
+     * Generuje certyfikaty dla wszystkich studentów, którzy zaliczyli quiz, i zapisuje je do strumienia.
+     *
+     * @param quizId ID quizu.
+     * @param quizTitle Tytuł quizu umieszczany na certyfikacie.
+     * @param format ZIP (osobny plik na studenta) lub PDF (jeden scalony dokument).
+     * @param out Strumień odpowiedzi (nie jest zamykany).
+     * @return Liczba wygenerowanych certyfikatów.
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public int write(Long quizId, String quizTitle, Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        List<Recipient> recipients = jdbcTemplate.query(SELECT_RECIPIENTS, (rs, rowNum) -> {
+            Timestamp date = rs.getTimestamp("completion_date");
+            return new Recipient(rs.getLong("user_id"), rs.getString("username"), rs.getDouble("best_score"),
+                    date != null ? date.toLocalDateTime() : null);
+        }, passThreshold, quizId, passThreshold);
+
+        if (format == Format.ZIP) {
+            writeZip(quizId, quizTitle, recipients, out);
+        } else {
+            writeMerged(quizId, quizTitle, recipients, out);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double perSecond = recipients.size() * 1000.0 / elapsedMs;
+        generated.add(recipients.size());
+        lastRun = Map.of(
+                "quizId", quizId,
+                "certificates", recipients.size(),
+                "format", format.name(),
+                "elapsedMs", elapsedMs,
+                "certificatesPerSecond", Math.round(perSecond * 10.0) / 10.0,
+                "parallelism", pool.getParallelism());
+        log.info("Wygenerowano {} certyfikatów quizu {} ({}) w {} ms - {} cert/s przy {} wątkach",
+                recipients.size(), quizId, format, elapsedMs, String.format(Locale.ROOT, "%.1f", perSecond), pool.getParallelism());
+        return recipients.size();
+    }
+
+    private void writeZip(Long quizId, String quizTitle, List<Recipient> recipients, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED); // PDF jest już skompresowany
+        Set<String> names = new HashSet<>();
+        for (int from = 0; from < recipients.size(); from += windowSize) {
+            List<Recipient> window = recipients.subList(from, Math.min(recipients.size(), from + windowSize));
+            List<byte[]> rendered = renderWindow(quizId, quizTitle, window);
+            for (int i = 0; i < window.size(); i++) {
+                String name = entryName(window.get(i));
+                if (!names.add(name)) {
+                    name = window.get(i).userId() + "_" + name;
+                }
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(rendered.get(i));
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+    }
+
+    private void writeMerged(Long quizId, String quizTitle, List<Recipient> recipients, OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument merged = new PdfDocument(writer);
+        PdfMerger merger = new PdfMerger(merged).setCloseSourceDocuments(false);
+        for (int from = 0; from < recipients.size(); from += windowSize) {
+            List<Recipient> window = recipients.subList(from, Math.min(recipients.size(), from + windowSize));
+            for (byte[] certificate : renderWindow(quizId, quizTitle, window)) {
+                PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(certificate)));
+                merger.merge(source, 1, source.getNumberOfPages());
+                merged.flushCopiedObjects(source);
+                source.close();
+            }
+        }
+        if (merged.getNumberOfPages() == 0) {
+            merged.addNewPage(PageSize.A4.rotate()); // pusty dokument PDF musi mieć co najmniej jedną stronę
+        }
+        merged.close();
+    }
+
+    /**
+     * Renderuje okno certyfikatów równolegle w puli fork-join, zachowując kolejność.
+     */
+    private List<byte[]> renderWindow(Long quizId, String quizTitle, List<Recipient> window) throws IOException {
+        try {
+            return pool.submit(() -> window.parallelStream()
+                    .map(recipient -> render(quizId, quizTitle, recipient))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Przerwano generowanie certyfikatów");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Błąd generowania certyfikatów", e.getCause());
+        }
+    }
+
+    private byte[] render(Long quizId, String quizTitle, Recipient recipient) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out));
+        PageSize pageSize = PageSize.A4.rotate();
+        Document document = new Document(pdfDoc, pageSize);
+        PdfFont font = PdfFontFactory.createFont(template.font(), template.fontEncoding());
+        document.setFont(font);
+        document.setTopMargin(90);
+
+        if (template.background() != null) {
+            document.add(new Image(template.background())
+                    .scaleToFit(pageSize.getWidth(), pageSize.getHeight())
+                    .setFixedPosition(0, 0));
+        }
+        document.add(new Paragraph(template.title())
+                .setFontSize(36).setBold().setTextAlignment(TextAlignment.CENTER).setMarginBottom(30));
+        document.add(new Paragraph("Niniejszym potwierdza się, że")
+                .setFontSize(14).setTextAlignment(TextAlignment.CENTER));
+        document.add(new Paragraph(recipient.username())
+                .setFontSize(28).setBold().setTextAlignment(TextAlignment.CENTER).setMarginTop(10).setMarginBottom(10));
+        document.add(new Paragraph("zaliczył(a) quiz")
+                .setFontSize(14).setTextAlignment(TextAlignment.CENTER));
+        document.add(new Paragraph(quizTitle)
+                .setFontSize(20).setBold().setTextAlignment(TextAlignment.CENTER).setMarginTop(10));
+        document.add(new Paragraph(String.format(Locale.ROOT, "z wynikiem %.1f%%", recipient.score()))
+                .setFontSize(14).setTextAlignment(TextAlignment.CENTER));
+        if (recipient.completionDate() != null) {
+            document.add(new Paragraph("Data: " + recipient.completionDate().format(DATE_FORMAT))
+                    .setFontSize(12).setTextAlignment(TextAlignment.CENTER).setMarginTop(30));
+        }
+        if (!template.issuer().isBlank()) {
+            document.add(new Paragraph(template.issuer())
+                    .setFontSize(12).setTextAlignment(TextAlignment.CENTER));
+        }
+        document.add(new Paragraph("Nr certyfikatu: CERT-" + quizId + "-" + recipient.userId())
+                .setFontSize(9).setTextAlignment(TextAlignment.CENTER).setMarginTop(20));
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static String entryName(Recipient recipient) {
+        return "certyfikat_" + recipient.username().replaceAll("[^\\p{L}\\p{N}._-]", "_") + ".pdf";
+    }
+
+    /**
+     * Zwraca metryki generatora certyfikatów.
+     *
+     * @return Mapa z liczbą wątków, łączną liczbą certyfikatów i pomiarem ostatniego przebiegu (certyfikaty/s).
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "parallelism", pool.getParallelism(),
+                "windowSize", windowSize,
+                "generated", generated.sum(),
+                "lastRun", lastRun
+        );
+    }
+
+    /**
+     * Zatrzymuje pulę wątków przy zamykaniu aplikacji.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
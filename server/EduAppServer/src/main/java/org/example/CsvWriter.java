@@ -0,0 +1,92 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @brief
+ * Strumieniowy zapis CSV (RFC 4180, UTF-8 ze znacznikiem BOM, aby arkusze kalkulacyjne poprawnie
+ * odczytały polskie znaki), używany przez eksport wyników quizu i dziennik ocen.
+ * Separatory pól są wstawiane automatycznie; wiersz kończy endRow(). Strumień docelowy nie jest zamykany.
+ */
+public final class CsvWriter implements Flushable {
+
+    /**
+     * Znaki, od których arkusz kalkulacyjny może zacząć interpretować komórkę jako formułę
+     * (także tabulator i powrót karetki przed znakiem formuły).
+     */
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final Writer writer;
+    private boolean rowStarted;
+
+    /**
+     * Tworzy zapis CSV i zapisuje znacznik BOM.
+     *
+     * @param out Strumień docelowy.
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public CsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write('\uFEFF');
+    }
+
+    /**
+     * Zapisuje pole tekstowe w cudzysłowie; wartości zaczynające się od znaku formuły są poprzedzane
+     * apostrofem, aby arkusz kalkulacyjny nie wykonał ich jako formuł.
+     *
+     * @param value Wartość (null zapisuje puste pole).
+     * @return Ten obiekt.
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public CsvWriter text(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+        return this;
+    }
+
+    /**
+     * Zapisuje pole bez cudzysłowu (liczby, daty).
+     *
+     * @param value Wartość (null zapisuje puste pole).
+     * @return Ten obiekt.
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public CsvWriter value(String value) throws IOException {
+        separator();
+        if (value != null) {
+            writer.write(value);
+        }
+        return this;
+    }
+
+    /**
+     * Kończy wiersz.
+     *
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public void endRow() throws IOException {
+        writer.write("\r\n");
+        rowStarted = false;
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            writer.write(',');
+        }
+        rowStarted = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
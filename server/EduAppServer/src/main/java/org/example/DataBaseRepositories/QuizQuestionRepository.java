@@ -12,6 +12,8 @@ import java.util.List;
 @Repository
 public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long> {
     List<QuizQuestion> findByQuizId(Long quizId);
+    @Query("SELECT q.id FROM QuizQuestion q WHERE q.quiz.id = :quizId")
+    List<Long> findIdsByQuizId(@Param("quizId") Long quizId);
     @Modifying
     @Query("DELETE FROM QuizQuestion q WHERE q.quiz.id = :quizId")
     void deleteByQuizId(@Param("quizId") Long quizId);
@@ -1,7 +1,9 @@
 package org.example.DataBaseRepositories;
 
+import jakarta.transaction.Transactional;
 import org.example.database.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,4 +18,9 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
         @Query("SELECT q FROM Quiz q LEFT JOIN FETCH q.questions WHERE q.id = :quizId")
         Optional<Quiz> findByIdWithQuestions(@Param("quizId") Long quizId);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE Quiz q SET q.questionsVersion = COALESCE(q.questionsVersion, 0) + 1 WHERE q.id = :quizId")
+    void incrementQuestionsVersion(@Param("quizId") Long quizId);
+
 }
\ No newline at end of file
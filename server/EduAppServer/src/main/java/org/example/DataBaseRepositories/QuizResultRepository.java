@@ -3,16 +3,29 @@ package org.example.DataBaseRepositories;
 
 import jakarta.transaction.Transactional;
 import org.example.database.QuizResult;
+import org.example.dto.QuizAttemptSummaryDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuizResultRepository extends JpaRepository<QuizResult, Long> {
     List<QuizResult> findByUserId(Long userId);
     List<QuizResult> findByQuizId(Long quizId);
     List<QuizResult> findByUserIdAndQuizId(Long userId, Long quizId);
+    Optional<QuizResult> findByUserIdAndQuizIdAndAttemptKey(Long userId, Long quizId, String attemptKey);
+    Optional<QuizResult> findFirstByUserIdAndQuizIdOrderByCompletionDateDescIdDesc(Long userId, Long quizId);
+    @Query(value = "SELECT new org.example.dto.QuizAttemptSummaryDTO(r.id, r.completionDate, r.correctAnswers, r.totalQuestions) " +
+            "FROM QuizResult r WHERE r.user.id = :userId AND r.quiz.id = :quizId " +
+            "ORDER BY r.completionDate DESC, r.id DESC",
+            countQuery = "SELECT COUNT(r) FROM QuizResult r WHERE r.user.id = :userId AND r.quiz.id = :quizId")
+    Page<QuizAttemptSummaryDTO> findAttemptSummaries(@Param("userId") Long userId, @Param("quizId") Long quizId, Pageable pageable);
 
 }
\ No newline at end of file
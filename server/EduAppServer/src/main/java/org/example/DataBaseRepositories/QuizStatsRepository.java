@@ -0,0 +1,9 @@
+package org.example.DataBaseRepositories;
+
+import org.example.database.QuizStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QuizStatsRepository extends JpaRepository<QuizStats, Long> {
+}
@@ -11,6 +11,7 @@ import java.util.Optional;
 public interface UserCourseRepository extends JpaRepository<UserCourse, Long> {
     List<UserCourse> findByUserId(Long userId);
     boolean existsByUserIdAndCourseId(Long userId, Long courseId);
+    boolean existsByUserIdAndCourseCourseGroupId(Long userId, Long courseGroupId);
     List<UserCourse> findByCourseId(Long courseId);
     Optional<UserCourse> findByUserIdAndCourseId(Long userId, Long courseId);
     void deleteByCourseId(long courseId);
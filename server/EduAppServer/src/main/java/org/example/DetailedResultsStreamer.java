@@ -0,0 +1,208 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * @brief
+ * Komponent zapisujący szczegółowe wyniki quizu bezpośrednio do strumienia odpowiedzi w formacie JSON.
+ * Wszystkie wyniki wraz z odpowiedziami i pytaniami są czytane jednym zapytaniem (posortowanym po ID wyniku),
+ * a każdy wiersz jest od razu zapisywany przez JsonGenerator, bez budowania struktur w pamięci.
+ * Obsługuje stronicowanie po kluczu: wyniki o ID większym niż "after", co najwyżej "limit" wyników.
+ */
+@Slf4j
+@Component
+public class DetailedResultsStreamer {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT r.\"id\" AS result_id, r.\"user_id\", u.\"username\", r.\"correct_answers\", r.\"total_questions\", " +
+                    "r.\"completion_date\", a.\"id\" AS answer_id, a.\"question_id\", q.\"question_text\", " +
+                    "a.\"user_answer\", q.\"correct_answer\", a.\"is_correct\" " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"users\" u ON u.\"id\" = r.\"user_id\" " +
+                    "LEFT JOIN \"quiz_answers\" a ON a.\"quiz_result_id\" = r.\"id\" " +
+                    "LEFT JOIN \"quiz_questions\" q ON q.\"id\" = a.\"question_id\" " +
+                    "WHERE r.\"quiz_id\" = ? AND r.\"id\" > ? ";
+    private static final String SELECT_ALL = SELECT_COLUMNS +
+            "ORDER BY r.\"id\", a.\"id\"";
+    private static final String SELECT_PAGE = SELECT_COLUMNS +
+            "AND r.\"id\" IN (SELECT \"id\" FROM \"quiz_results\" WHERE \"quiz_id\" = ? AND \"id\" > ? ORDER BY \"id\" LIMIT ?) " +
+            "ORDER BY r.\"id\", a.\"id\"";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param objectMapper Mapper JSON (ten sam format dat co w pozostałych odpowiedziach).
+     * @param fetchSize Liczba wierszy pobieranych z bazy naraz.
+     */
+    @Autowired
+    public DetailedResultsStreamer(JdbcTemplate jdbcTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${quiz.results.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Zapisuje szczegółowe wyniki quizu do strumienia.
+     *
+     * @param quizId ID quizu.
+     * @param quizTitle Tytuł quizu.
+     * @param after ID wyniku, po którym zaczyna się strona (null = od początku).
+     * @param limit Maksymalna liczba wyników na stronie (null = wszystkie).
+     * @param out Strumień odpowiedzi.
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public void write(Long quizId, String quizTitle, Long after, Integer limit, OutputStream out) throws IOException {
+        long afterId = after != null ? after : 0L;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeNumberField("quizId", quizId);
+            json.writeStringField("quizTitle", quizTitle);
+            json.writeArrayFieldStart("results");
+
+            ResultRowWriter rows = new ResultRowWriter(json);
+            try {
+                if (limit == null) {
+                    scroll(quizId, afterId, rows);
+                } else {
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement ps = connection.prepareStatement(SELECT_PAGE);
+                        ps.setFetchSize(fetchSize);
+                        ps.setLong(1, quizId);
+                        ps.setLong(2, afterId);
+                        ps.setLong(3, quizId);
+                        ps.setLong(4, afterId);
+                        ps.setInt(5, limit);
+                        return ps;
+                    }, rows);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows.finish();
+
+            json.writeEndArray();
+            if (limit != null) {
+                if (rows.resultCount == limit) {
+                    json.writeNumberField("nextAfter", rows.currentResultId);
+                } else {
+                    json.writeNullField("nextAfter");
+                }
+            }
+            json.writeEndObject();
+            log.debug("Wysłano {} szczegółowych wyników quizu {}", rows.resultCount, quizId);
+        }
+    }
+
+    /**
+     * Przekazuje do handlera kolejne wiersze (wynik, użytkownik, odpowiedź, pytanie) wszystkich wyników quizu
+     * o ID większym niż afterId, posortowane po ID wyniku i ID odpowiedzi. Wiersze są czytane kursorem
+     * z ograniczonym rozmiarem pobierania, więc w pamięci znajduje się tylko bieżący wiersz.
+     * Kolumny: result_id, user_id, username, correct_answers, total_questions, completion_date,
+     * answer_id (null dla wyniku bez odpowiedzi), question_id, question_text, user_answer, correct_answer, is_correct.
+     *
+     * @param quizId ID quizu.
+     * @param afterId ID wyniku, po którym zaczyna się odczyt (0 = od początku).
+     * @param handler Handler wierszy.
+     */
+    public void scroll(Long quizId, long afterId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ALL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, quizId);
+            ps.setLong(2, afterId);
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Zapisuje wiersze zapytania jako kolejne obiekty wyników; nowy obiekt zaczyna się przy zmianie ID wyniku.
+     */
+    private static final class ResultRowWriter implements RowCallbackHandler {
+
+        private final JsonGenerator json;
+        private long currentResultId = -1;
+        private int resultCount;
+        private boolean resultOpen;
+
+        private ResultRowWriter(JsonGenerator json) {
+            this.json = json;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long resultId = rs.getLong("result_id");
+                if (resultId != currentResultId) {
+                    finish();
+                    startResult(rs, resultId);
+                }
+                rs.getLong("answer_id");
+                if (!rs.wasNull()) {
+                    json.writeStartObject();
+                    json.writeNumberField("questionId", rs.getLong("question_id"));
+                    json.writeStringField("questionText", rs.getString("question_text"));
+                    json.writeStringField("userAnswer", rs.getString("user_answer"));
+                    json.writeStringField("correctAnswer", rs.getString("correct_answer"));
+                    json.writeBooleanField("isCorrect", rs.getBoolean("is_correct"));
+                    json.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void startResult(ResultSet rs, long resultId) throws SQLException, IOException {
+            int correctAnswers = rs.getInt("correct_answers");
+            int totalQuestions = rs.getInt("total_questions");
+            Timestamp completionDate = rs.getTimestamp("completion_date");
+
+            json.writeStartObject();
+            json.writeNumberField("resultId", resultId);
+            json.writeNumberField("userId", rs.getLong("user_id"));
+            json.writeStringField("username", rs.getString("username"));
+            json.writeNumberField("correctAnswers", correctAnswers);
+            json.writeNumberField("totalQuestions", totalQuestions);
+            json.writeNumberField("score", (correctAnswers * 100.0) / totalQuestions);
+            json.writeFieldName("completionDate");
+            json.writeObject(completionDate != null ? completionDate.toLocalDateTime() : null);
+            json.writeArrayFieldStart("answers");
+
+            currentResultId = resultId;
+            resultCount++;
+            resultOpen = true;
+        }
+
+        private void finish() throws IOException {
+            if (resultOpen) {
+                json.writeEndArray();
+                json.writeEndObject();
+                resultOpen = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import java.util.Optional;
+
+/**
+ * @brief
+ * Formaty plików eksportu (wyniki quizu, dziennik ocen) z typem treści i rozszerzeniem pliku.
+ * Każdy eksport obsługuje tylko część formatów, podawaną przy parsowaniu nazwy.
+ */
+public enum ExportFormat {
+    JSON("application/json", "json"),
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    /**
+     * Zwraca format o podanej nazwie (bez względu na wielkość liter), jeśli należy do obsługiwanych.
+     *
+     * @param name Nazwa formatu (np. "csv").
+     * @param supported Formaty obsługiwane przez eksport.
+     * @return Format lub pusty Optional dla nieznanej lub nieobsługiwanej nazwy.
+     */
+    public static Optional<ExportFormat> parse(String name, ExportFormat... supported) {
+        for (ExportFormat format : supported) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
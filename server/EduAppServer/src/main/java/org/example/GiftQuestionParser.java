@@ -0,0 +1,240 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * @brief
+ * Parser formatu Moodle GIFT. Pytania są oddzielone pustymi liniami (poza blokiem odpowiedzi).
+ * Obsługiwane typy:
+ * - prawda/fałsz ({T}, {F}, {TRUE}, {FALSE}) -> true_false,
+ * - wybór z opcji ({=dobra ~zła ...}, także z wagami %n%) -> multiple_choice,
+ * - krótka odpowiedź ({=odpowiedź}) -> open_ended (pierwsza z akceptowanych odpowiedzi).
+ * Pytania dopasowania, numeryczne, eseje i opisy są odrzucane.
+ */
+public class GiftQuestionParser implements QuestionBankParser {
+
+    private static final Pattern FORMAT_PREFIX = Pattern.compile("^\\[(html|moodle|plain|markdown)]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRUE_FALSE = Pattern.compile("^(T|TRUE|F|FALSE)$", Pattern.CASE_INSENSITIVE);
+    private static final String ESCAPABLE = "~=#{}:\\";
+
+    @Override
+    public void parse(BufferedReader reader, Consumer<Item> consumer) throws IOException {
+        StringBuilder item = new StringBuilder();
+        boolean oversized = false;
+        int depth = 0;
+        int startLine = 0;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (depth == 0) {
+                if (trimmed.isEmpty()) {
+                    if (startLine > 0) {
+                        consumer.accept(oversized
+                                ? Item.rejected(startLine, "Pytanie jest zbyt długie")
+                                : parseItem(startLine, item.toString()));
+                        item.setLength(0);
+                        oversized = false;
+                        startLine = 0;
+                    }
+                    continue;
+                }
+                if (trimmed.startsWith("//") || trimmed.startsWith("$CATEGORY:")) {
+                    continue;
+                }
+            }
+            if (startLine == 0) {
+                startLine = lineNumber;
+            }
+            depth = Math.max(0, depth + braceBalance(line));
+            if (!oversized && item.length() + line.length() < MAX_ITEM_LENGTH) {
+                item.append(line).append('\n');
+            } else {
+                oversized = true;
+                item.setLength(0);
+            }
+        }
+        if (startLine > 0) {
+            consumer.accept(oversized
+                    ? Item.rejected(startLine, "Pytanie jest zbyt długie")
+                    : parseItem(startLine, item.toString()));
+        }
+    }
+
+    private Item parseItem(int line, String raw) {
+        String text = raw.strip();
+        if (text.startsWith("::")) {
+            int titleEnd = indexOfUnescaped(text, "::", 2);
+            if (titleEnd < 0) {
+                return Item.rejected(line, "Niezamknięty tytuł pytania");
+            }
+            text = text.substring(titleEnd + 2).strip();
+        }
+        text = FORMAT_PREFIX.matcher(text).replaceFirst("").strip();
+
+        int open = indexOfUnescaped(text, "{", 0);
+        if (open < 0) {
+            return Item.rejected(line, "Brak bloku odpowiedzi (opisy nie są obsługiwane)");
+        }
+        int close = indexOfUnescaped(text, "}", open + 1);
+        if (close < 0) {
+            return Item.rejected(line, "Niezamknięty blok odpowiedzi");
+        }
+
+        String before = unescape(text.substring(0, open).strip());
+        String after = unescape(text.substring(close + 1).strip());
+        String questionText = after.isEmpty() ? before
+                : before.isEmpty() ? after
+                : before + " _____ " + after;
+
+        String answers = text.substring(open + 1, close);
+        int generalFeedback = indexOfUnescaped(answers, "####", 0);
+        if (generalFeedback >= 0) {
+            answers = answers.substring(0, generalFeedback);
+        }
+        answers = answers.strip();
+
+        if (answers.isEmpty()) {
+            return Item.rejected(line, "Pytania typu esej nie są obsługiwane");
+        }
+        if (answers.startsWith("#")) {
+            return Item.rejected(line, "Pytania numeryczne nie są obsługiwane");
+        }
+
+        String trueFalse = stripFeedback(answers).strip();
+        if (TRUE_FALSE.matcher(trueFalse).matches()) {
+            Map<String, String> options = new LinkedHashMap<>();
+            options.put("True", "Prawda");
+            options.put("False", "Fałsz");
+            String correct = trueFalse.toUpperCase(Locale.ROOT).startsWith("T") ? "True" : "False";
+            return Item.accepted(line, new QuizQuestion(questionText, "true_false", options, correct, null));
+        }
+
+        List<String> texts = new ArrayList<>();
+        List<Boolean> correct = new ArrayList<>();
+        boolean hasWrong = false;
+        int tokenStart = -1;
+        char marker = 0;
+        for (int i = 0; i <= answers.length(); i++) {
+            char c = i < answers.length() ? answers.charAt(i) : 0;
+            if (c == '\\') {
+                i++;
+                continue;
+            }
+            if (i == answers.length() || c == '=' || c == '~') {
+                if (tokenStart >= 0) {
+                    String token = stripFeedback(answers.substring(tokenStart, i)).strip();
+                    if (indexOfUnescaped(token, "->", 0) >= 0) {
+                        return Item.rejected(line, "Pytania dopasowania nie są obsługiwane");
+                    }
+                    double weight = 0;
+                    if (token.startsWith("%")) {
+                        int weightEnd = token.indexOf('%', 1);
+                        if (weightEnd < 0) {
+                            return Item.rejected(line, "Nieprawidłowa waga odpowiedzi");
+                        }
+                        try {
+                            weight = Double.parseDouble(token.substring(1, weightEnd));
+                        } catch (NumberFormatException e) {
+                            return Item.rejected(line, "Nieprawidłowa waga odpowiedzi");
+                        }
+                        token = token.substring(weightEnd + 1).strip();
+                    }
+                    texts.add(unescape(token));
+                    correct.add(marker == '=' || weight > 0);
+                    hasWrong |= marker == '~';
+                } else if (!answers.substring(0, i).isBlank()) {
+                    return Item.rejected(line, "Odpowiedź musi zaczynać się od '=' lub '~'");
+                }
+                tokenStart = i + 1;
+                marker = c;
+            }
+        }
+
+        if (!hasWrong) {
+            return Item.accepted(line, new QuizQuestion(questionText, "open_ended", null, texts.get(0), null));
+        }
+        if (texts.size() > 26) {
+            return Item.rejected(line, "Zbyt wiele opcji odpowiedzi (maksymalnie 26)");
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> correctKeys = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = String.valueOf((char) ('A' + i));
+            options.put(key, texts.get(i));
+            if (correct.get(i)) {
+                correctKeys.add(key);
+            }
+        }
+        return Item.accepted(line, new QuizQuestion(
+                questionText, "multiple_choice", options, String.join(",", correctKeys), null));
+    }
+
+    private static String stripFeedback(String token) {
+        int feedback = indexOfUnescaped(token, "#", 0);
+        return feedback >= 0 ? token.substring(0, feedback) : token;
+    }
+
+    private static int braceBalance(String line) {
+        int balance = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '{') {
+                balance++;
+            } else if (c == '}') {
+                balance--;
+            }
+        }
+        return balance;
+    }
+
+    private static int indexOfUnescaped(String s, String token, int from) {
+        for (int i = from; i <= s.length() - token.length(); i++) {
+            if (s.charAt(i) == '\\') {
+                i++;
+            } else if (s.startsWith(token, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(i + 1);
+                if (next == 'n') {
+                    sb.append('\n');
+                    i++;
+                    continue;
+                }
+                if (ESCAPABLE.indexOf(next) >= 0) {
+                    sb.append(next);
+                    i++;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
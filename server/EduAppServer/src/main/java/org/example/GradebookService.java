@@ -0,0 +1,241 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * @brief
+ * Usługa budująca dziennik ocen kursu: macierz studenci × quizy z najlepszym wynikiem, liczbą prób
+ * i datą ostatniej próby. Macierz jest liczona jednym zapytaniem grupującym quiz_results po (user_id, quiz_id)
+ * i składana w tablice prymitywów indeksowane gęstymi numerami studenta i quizu
+ * (komórka [s * liczbaQuizów + q]), a następnie zapisywana strumieniowo jako JSON lub CSV.
+ */
+@Slf4j
+@Service
+public class GradebookService {
+
+    /**
+     * Obsługiwane formaty dziennika ocen.
+     */
+    public static final ExportFormat[] FORMATS = {ExportFormat.JSON, ExportFormat.CSV};
+
+    private static final String SELECT_STUDENTS =
+            "SELECT DISTINCT u.\"id\", u.\"username\" FROM \"user_courses\" uc " +
+                    "JOIN \"users\" u ON u.\"id\" = uc.\"user_id\" " +
+                    "WHERE uc.\"course_id\" = ? " +
+                    "ORDER BY u.\"username\", u.\"id\"";
+    private static final String SELECT_QUIZZES =
+            "SELECT \"id\", \"title\" FROM \"quizzes\" WHERE \"course_id\" = ? ORDER BY \"id\"";
+    private static final String SELECT_CELLS =
+            "SELECT r.\"user_id\", r.\"quiz_id\", COUNT(*) AS attempts, " +
+                    "MAX(CASE WHEN r.\"total_questions\" > 0 " +
+                    "THEN r.\"correct_answers\" * 100.0 / r.\"total_questions\" ELSE 0 END) AS best_score, " +
+                    "MAX(r.\"completion_date\") AS last_attempt " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"quizzes\" q ON q.\"id\" = r.\"quiz_id\" " +
+                    "WHERE q.\"course_id\" = ? " +
+                    "AND r.\"user_id\" IN (SELECT \"user_id\" FROM \"user_courses\" WHERE \"course_id\" = ?) " +
+                    "GROUP BY r.\"user_id\", r.\"quiz_id\"";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long NO_ATTEMPT = Long.MIN_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param objectMapper Mapper JSON (ten sam format dat co w pozostałych odpowiedziach).
+     */
+    @Autowired
+    public GradebookService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Macierz dziennika ocen. Komórka (s, q) ma indeks s * quizIds.length + q;
+     * attempts == 0 oznacza brak prób (wtedy bestScore i lastAttempt nie mają znaczenia).
+     */
+    record Matrix(long[] studentIds, String[] usernames, long[] quizIds, String[] quizTitles,
+                  int[] attempts, double[] bestScores, long[] lastAttempts) {
+
+        int cell(int student, int quiz) {
+            return student * quizIds.length + quiz;
+        }
+    }
+
+    /**
+     * Buduje macierz dziennika ocen kursu.
+     *
+     * @param courseId ID kursu.
+     * @return Macierz studenci × quizy.
+     */
+    Matrix build(Long courseId) {
+        List<Long> studentIdList = new ArrayList<>();
+        List<String> usernameList = new ArrayList<>();
+        jdbcTemplate.query(SELECT_STUDENTS, rs -> {
+            studentIdList.add(rs.getLong("id"));
+            usernameList.add(rs.getString("username"));
+        }, courseId);
+        List<Long> quizIdList = new ArrayList<>();
+        List<String> titleList = new ArrayList<>();
+        jdbcTemplate.query(SELECT_QUIZZES, rs -> {
+            quizIdList.add(rs.getLong("id"));
+            titleList.add(rs.getString("title"));
+        }, courseId);
+
+        Map<Long, Integer> studentOrdinals = ordinals(studentIdList);
+        Map<Long, Integer> quizOrdinals = ordinals(quizIdList);
+        int cells = studentIdList.size() * quizIdList.size();
+        Matrix matrix = new Matrix(
+                studentIdList.stream().mapToLong(Long::longValue).toArray(),
+                usernameList.toArray(new String[0]),
+                quizIdList.stream().mapToLong(Long::longValue).toArray(),
+                titleList.toArray(new String[0]),
+                new int[cells], new double[cells], new long[cells]);
+        Arrays.fill(matrix.lastAttempts(), NO_ATTEMPT);
+
+        jdbcTemplate.query(SELECT_CELLS, rs -> {
+            Integer student = studentOrdinals.get(rs.getLong("user_id"));
+            Integer quiz = quizOrdinals.get(rs.getLong("quiz_id"));
+            if (student == null || quiz == null) {
+                return;
+            }
+            int cell = matrix.cell(student, quiz);
+            matrix.attempts()[cell] = rs.getInt("attempts");
+            matrix.bestScores()[cell] = rs.getDouble("best_score");
+            Timestamp lastAttempt = rs.getTimestamp("last_attempt");
+            if (lastAttempt != null) {
+                matrix.lastAttempts()[cell] = lastAttempt.getTime();
+            }
+        }, courseId, courseId);
+        return matrix;
+    }
+
+    /**
+     * Zapisuje dziennik ocen kursu do strumienia.
+     *
+     * @param courseId ID kursu.
+     * @param courseName Nazwa kursu.
+     * @param format Format wyjściowy.
+     * @param out Strumień odpowiedzi (nie jest zamykany).
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public void write(Long courseId, String courseName, ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Matrix matrix = build(courseId);
+        long built = System.nanoTime();
+        if (format == ExportFormat.CSV) {
+            writeCsv(matrix, out);
+        } else {
+            writeJson(courseId, courseName, matrix, out);
+        }
+        log.info("Dziennik ocen kursu {} ({} studentów × {} quizów) zbudowany w {} ms, zapisany jako {} w {} ms",
+                courseId, matrix.studentIds().length, matrix.quizIds().length,
+                (built - start) / 1_000_000, format, (System.nanoTime() - built) / 1_000_000);
+    }
+
+    private void writeJson(Long courseId, String courseName, Matrix matrix, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeNumberField("courseId", courseId);
+            json.writeStringField("courseName", courseName);
+
+            json.writeArrayFieldStart("quizzes");
+            for (int q = 0; q < matrix.quizIds().length; q++) {
+                json.writeStartObject();
+                json.writeNumberField("id", matrix.quizIds()[q]);
+                json.writeStringField("title", matrix.quizTitles()[q]);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("students");
+            for (int s = 0; s < matrix.studentIds().length; s++) {
+                json.writeStartObject();
+                json.writeNumberField("id", matrix.studentIds()[s]);
+                json.writeStringField("username", matrix.usernames()[s]);
+                json.writeArrayFieldStart("grades");
+                for (int q = 0; q < matrix.quizIds().length; q++) {
+                    int cell = matrix.cell(s, q);
+                    if (matrix.attempts()[cell] == 0) {
+                        json.writeNull();
+                        continue;
+                    }
+                    json.writeStartObject();
+                    json.writeNumberField("bestScore", round(matrix.bestScores()[cell]));
+                    json.writeNumberField("attempts", matrix.attempts()[cell]);
+                    json.writeFieldName("lastAttempt");
+                    json.writeObject(toDate(matrix.lastAttempts()[cell]));
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Zapis CSV (zob. CsvWriter): jeden wiersz na studenta,
+     * po trzy kolumny (najlepszy wynik, liczba prób, ostatnia próba) na quiz.
+     */
+    private void writeCsv(Matrix matrix, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.value("userId").value("username");
+        for (int q = 0; q < matrix.quizIds().length; q++) {
+            String title = matrix.quizTitles()[q];
+            csv.text(title + " - najlepszy wynik")
+                    .text(title + " - liczba prób")
+                    .text(title + " - ostatnia próba");
+        }
+        csv.endRow();
+
+        for (int s = 0; s < matrix.studentIds().length; s++) {
+            csv.value(Long.toString(matrix.studentIds()[s])).text(matrix.usernames()[s]);
+            for (int q = 0; q < matrix.quizIds().length; q++) {
+                int cell = matrix.cell(s, q);
+                int attempts = matrix.attempts()[cell];
+                LocalDateTime lastAttempt = attempts > 0 ? toDate(matrix.lastAttempts()[cell]) : null;
+                csv.value(attempts > 0 ? String.format(Locale.ROOT, "%.2f", matrix.bestScores()[cell]) : null)
+                        .value(Integer.toString(attempts))
+                        .value(lastAttempt != null ? lastAttempt.format(DATE_FORMAT) : null);
+            }
+            csv.endRow();
+        }
+        csv.flush();
+    }
+
+    private static Map<Long, Integer> ordinals(List<Long> ids) {
+        Map<Long, Integer> ordinals = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            ordinals.put(ids.get(i), i);
+        }
+        return ordinals;
+    }
+
+    private static LocalDateTime toDate(long epochMillis) {
+        return epochMillis == NO_ATTEMPT ? null : new Timestamp(epochMillis).toLocalDateTime();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
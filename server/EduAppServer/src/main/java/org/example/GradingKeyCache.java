@@ -0,0 +1,98 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizQuestionRepository;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.database.Quiz;
+import org.example.database.QuizQuestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * @brief
+ * Ograniczona pamięć podręczna kluczy odpowiedzi, indeksowana ID quizu.
+ * Każdy wpis (QuizGradingKeys) zawiera niezmienną mapę ID pytania -> QuizGradingKey
+ * oraz wersję i listę pytań quizu potrzebne do weryfikacji tokenów prób.
+ * Po przekroczeniu maksymalnego rozmiaru usuwany jest najdawniej używany quiz (LRU, zob. BoundedCache).
+ * Wpisy muszą być unieważniane przy każdej zmianie pytań quizu (zob. evict).
+ */
+@Slf4j
+@Component
+public class GradingKeyCache {
+
+    private final QuizRepository quizRepository;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final BoundedCache<Long, QuizGradingKeys> cache;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param quizRepository Repozytorium quizów.
+     * @param quizQuestionRepository Repozytorium pytań quizowych.
+     * @param maxSize Maksymalna liczba quizów w pamięci podręcznej.
+     */
+    @Autowired
+    public GradingKeyCache(QuizRepository quizRepository,
+                           QuizQuestionRepository quizQuestionRepository,
+                           @Value("${quiz.grading-cache.max-size:256}") int maxSize) {
+        this.quizRepository = quizRepository;
+        this.quizQuestionRepository = quizQuestionRepository;
+        this.cache = new BoundedCache<>("grading-keys", maxSize);
+    }
+
+    /**
+     * Zwraca klucze odpowiedzi dla wszystkich pytań quizu, wczytując je z bazy przy braku wpisu.
+     *
+     * @param quizId ID quizu.
+     * @return Niezmienny zestaw kluczy odpowiedzi quizu (QuizGradingKeys.EMPTY, jeśli quiz nie istnieje).
+     */
+    public QuizGradingKeys get(Long quizId) {
+        QuizGradingKeys keys = cache.get(quizId, this::load);
+        return keys != null ? keys : QuizGradingKeys.EMPTY;
+    }
+
+    private QuizGradingKeys load(Long quizId) {
+        Optional<Quiz> quiz = quizRepository.findById(quizId);
+        if (quiz.isEmpty()) {
+            return null;
+        }
+        List<QuizQuestion> questions = quizQuestionRepository.findByQuizId(quizId);
+        Map<Long, QuizGradingKey> loaded = new HashMap<>();
+        long[] questionIds = new long[questions.size()];
+        int i = 0;
+        for (QuizQuestion question : questions) {
+            loaded.put(question.getId(), QuizGradingKey.compile(question));
+            questionIds[i++] = question.getId();
+        }
+        Arrays.sort(questionIds);
+        log.debug("Wczytano klucze odpowiedzi dla quizu {} ({} pytań)", quizId, loaded.size());
+        return new QuizGradingKeys(
+                quiz.get().getQuestionsVersion(),
+                quiz.get().getNumberOfQuestionsToDisplay(),
+                questionIds,
+                Map.copyOf(loaded)
+        );
+    }
+
+    /**
+     * Usuwa wpis quizu. Wywołane wewnątrz transakcji usuwa wpis ponownie po jej zatwierdzeniu,
+     * aby równoległe wczytanie nie zapisało nieaktualnych kluczy.
+     *
+     * @param quizId ID quizu.
+     */
+    public void evict(Long quizId) {
+        cache.evict(quizId);
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+/**
+ * @brief
+ * Wyjątek zgłaszany, gdy przesłany quiz nie odpowiada wydanemu tokenowi próby
+ * (uszkodzony lub obcy token, nieaktualna wersja quizu, odpowiedzi spoza wydanego zestawu pytań).
+ * Kontroler zamienia go na odpowiedź z kodem statusu przechowywanym w wyjątku.
+ */
+public class InvalidAttemptException extends RuntimeException {
+
+    /**
+     * Kod statusu HTTP odpowiedzi (400 lub 409).
+     */
+    private final int status;
+
+    /**
+     * Konstruktor wyjątku.
+     *
+     * @param status Kod statusu HTTP.
+     * @param message Komunikat dla klienta.
+     */
+    public InvalidAttemptException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
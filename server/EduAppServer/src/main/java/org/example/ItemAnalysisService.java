@@ -0,0 +1,277 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizQuestionRepository;
+import org.example.database.QuizQuestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * @brief
+ * Usługa analizy pytań quizu (item analysis): trudność (p-value), moc różnicująca
+ * (korelacja punktowo-dwuseryjna odpowiedzi z wynikiem procentowym próby) oraz częstość wyboru odpowiedzi.
+ * Dla każdego quizu w pamięci przechowywane są tylko sumy i liczniki (QuizAccumulator) wraz z ID
+ * ostatniego uwzględnionego wyniku. Przy odczycie doczytywane są jednym zapytaniem wyłącznie wyniki
+ * o większym ID, więc nowe zgłoszenia są dodawane przyrostowo, bez ponownego przeliczania całego quizu.
+ * Wyniki zapisuje jeden wątek (SubmissionWriter), dlatego nowe wyniki zawsze mają większe ID niż już widoczne.
+ * Usunięcie wyniku wymaga unieważnienia wpisu (zob. evict).
+ */
+@Slf4j
+@Service
+public class ItemAnalysisService {
+
+    /**
+     * Maksymalna liczba różnych odpowiedzi zliczanych osobno dla jednego pytania
+     * (dotyczy głównie pytań otwartych); pozostałe trafiają do licznika "otherResponses".
+     */
+    private static final int MAX_TRACKED_RESPONSES = 20;
+
+    private static final String SELECT_ANSWERS =
+            "SELECT r.\"id\" AS result_id, r.\"correct_answers\", r.\"total_questions\", " +
+                    "a.\"question_id\", a.\"user_answer\", a.\"is_correct\", q.\"question_type\" " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"quiz_answers\" a ON a.\"quiz_result_id\" = r.\"id\" " +
+                    "LEFT JOIN \"quiz_questions\" q ON q.\"id\" = a.\"question_id\" " +
+                    "WHERE r.\"quiz_id\" = ? AND r.\"id\" > ? " +
+                    "ORDER BY r.\"id\"";
+
+    /**
+     * Wynik analizy quizu.
+     *
+     * @param attempts Liczba uwzględnionych prób.
+     * @param questions Statystyki kolejnych pytań quizu.
+     */
+    public record Report(long attempts, List<Map<String, Object>> questions) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final int fetchSize;
+    private final BoundedCache<Long, QuizAccumulator> cache;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param quizQuestionRepository Repozytorium pytań quizowych.
+     * @param maxSize Maksymalna liczba quizów, których liczniki są przechowywane w pamięci.
+     * @param fetchSize Liczba wierszy pobieranych z bazy naraz.
+     */
+    @Autowired
+    public ItemAnalysisService(JdbcTemplate jdbcTemplate,
+                               QuizQuestionRepository quizQuestionRepository,
+                               @Value("${quiz.item-analysis.cache-max-size:64}") int maxSize,
+                               @Value("${quiz.results.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.quizQuestionRepository = quizQuestionRepository;
+        this.fetchSize = fetchSize;
+        this.cache = new BoundedCache<>("item-analysis", maxSize);
+    }
+
+    /**
+     * Zwraca analizę pytań quizu, dopisując do liczników wyniki zapisane od poprzedniego odczytu.
+     *
+     * @param quizId ID quizu.
+     * @return Analiza wszystkich aktualnych pytań quizu.
+     */
+    public Report analyze(Long quizId) {
+        QuizAccumulator accumulator = cache.get(quizId, id -> new QuizAccumulator());
+
+        List<QuizQuestion> questions = quizQuestionRepository.findByQuizId(quizId);
+        synchronized (accumulator) {
+            long start = System.nanoTime();
+            int rows;
+            try {
+                rows = refresh(quizId, accumulator);
+            } catch (RuntimeException e) {
+                cache.evictNow(quizId);
+                throw e;
+            }
+            if (rows > 0) {
+                log.debug("Dodano {} odpowiedzi do analizy pytań quizu {} w {} ms",
+                        rows, quizId, (System.nanoTime() - start) / 1_000_000);
+            }
+            List<Map<String, Object>> items = new ArrayList<>(questions.size());
+            for (QuizQuestion question : questions) {
+                QuestionAccumulator stats = accumulator.questions.get(question.getId());
+                items.add(describe(question, stats != null ? stats : new QuestionAccumulator()));
+            }
+            return new Report(accumulator.attempts, items);
+        }
+    }
+
+    /**
+     * Doczytuje odpowiedzi z wyników o ID większym niż ostatnio uwzględniony, w jednym przebiegu po wierszach
+     * posortowanych po ID wyniku (zmiana ID oznacza kolejną próbę).
+     */
+    private int refresh(Long quizId, QuizAccumulator accumulator) {
+        int[] rows = new int[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ANSWERS);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, quizId);
+            ps.setLong(2, accumulator.lastResultId);
+            return ps;
+        }, rs -> {
+            long resultId = rs.getLong("result_id");
+            double score = QuizStatsService.score(rs.getInt("correct_answers"), rs.getInt("total_questions"));
+            if (resultId != accumulator.lastResultId) {
+                accumulator.attempts++;
+                accumulator.lastResultId = resultId;
+            }
+            accumulator.questions
+                    .computeIfAbsent(rs.getLong("question_id"), id -> new QuestionAccumulator())
+                    .add(rs.getString("user_answer"), rs.getBoolean("is_correct"), score,
+                            "multiple_choice".equals(rs.getString("question_type")));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private static Map<String, Object> describe(QuizQuestion question, QuestionAccumulator stats) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("questionId", question.getId());
+        item.put("questionText", question.getQuestionText());
+        item.put("questionType", question.getQuestionType());
+        item.put("responses", stats.responses);
+        item.put("correct", stats.correct);
+        item.put("omitted", stats.omitted);
+        item.put("pValue", stats.responses > 0 ? round(stats.correct / (double) stats.responses) : null);
+        item.put("discrimination", stats.pointBiserial());
+
+        Set<String> correctChoices = correctChoices(question);
+        Map<String, long[]> counts = new LinkedHashMap<>();
+        if ("multiple_choice".equals(question.getQuestionType()) && question.getOptions() != null) {
+            for (String key : new TreeSet<>(question.getOptions().keySet())) {
+                counts.put(key, new long[1]);
+            }
+        }
+        stats.choices.forEach((answer, count) -> counts.computeIfAbsent(answer, a -> new long[1])[0] += count[0]);
+
+        List<Map<String, Object>> choices = new ArrayList<>(counts.size());
+        counts.forEach((answer, count) -> {
+            Map<String, Object> choice = new LinkedHashMap<>();
+            choice.put("answer", answer);
+            if (question.getOptions() != null && question.getOptions().containsKey(answer)) {
+                choice.put("text", question.getOptions().get(answer));
+            }
+            choice.put("count", count[0]);
+            choice.put("frequency", stats.responses > 0 ? round(count[0] / (double) stats.responses) : 0.0);
+            choice.put("correct", correctChoices.contains(answer));
+            choices.add(choice);
+        });
+        item.put("choices", choices);
+        item.put("otherResponses", stats.otherResponses);
+        return item;
+    }
+
+    private static Set<String> correctChoices(QuizQuestion question) {
+        String correctAnswer = question.getCorrectAnswer();
+        if (correctAnswer == null) {
+            return Set.of();
+        }
+        return switch (question.getQuestionType()) {
+            case "multiple_choice" -> Set.of(correctAnswer.split(","));
+            default -> Set.of(correctAnswer.trim().toLowerCase(Locale.ROOT));
+        };
+    }
+
+    private static Double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    /**
+     * Usuwa liczniki quizu; kolejny odczyt przeliczy go od początku. Wywołane wewnątrz transakcji
+     * usuwa wpis ponownie po jej zatwierdzeniu, aby równoległy odczyt nie zachował usuniętych wyników.
+     *
+     * @param quizId ID quizu.
+     */
+    public void evict(Long quizId) {
+        cache.evict(quizId);
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Liczniki jednego quizu; chronione monitorem obiektu.
+     */
+    private static final class QuizAccumulator {
+        private final Map<Long, QuestionAccumulator> questions = new HashMap<>();
+        private long lastResultId;
+        private long attempts;
+    }
+
+    /**
+     * Sumy potrzebne do wyznaczenia trudności, korelacji punktowo-dwuseryjnej i częstości odpowiedzi jednego pytania.
+     */
+    private static final class QuestionAccumulator {
+        private long responses;
+        private long correct;
+        private long omitted;
+        private long otherResponses;
+        private double scoreSum;
+        private double scoreSumSquares;
+        private double correctScoreSum;
+        private final Map<String, long[]> choices = new HashMap<>();
+
+        private void add(String answer, boolean isCorrect, double score, boolean multipleChoice) {
+            responses++;
+            scoreSum += score;
+            scoreSumSquares += score * score;
+            if (isCorrect) {
+                correct++;
+                correctScoreSum += score;
+            }
+            if (answer == null || answer.isBlank()) {
+                omitted++;
+                return;
+            }
+            for (String choice : multipleChoice ? answer.split(",") : new String[]{answer}) {
+                String key = multipleChoice ? choice : choice.trim().toLowerCase(Locale.ROOT);
+                long[] count = choices.get(key);
+                if (count == null) {
+                    if (choices.size() >= MAX_TRACKED_RESPONSES) {
+                        otherResponses++;
+                        continue;
+                    }
+                    count = new long[1];
+                    choices.put(key, count);
+                }
+                count[0]++;
+            }
+        }
+
+        /**
+         * Korelacja punktowo-dwuseryjna: (M1 - M0) / s * sqrt(p * q), gdzie M1 i M0 to średnie wyniki
+         * prób z poprawną i niepoprawną odpowiedzią, a s to odchylenie standardowe wyników.
+         *
+         * @return Współczynnik lub null, jeśli nie jest określony (wszyscy odpowiedzieli tak samo lub brak zróżnicowania wyników).
+         */
+        private Double pointBiserial() {
+            long incorrect = responses - correct;
+            if (correct == 0 || incorrect == 0) {
+                return null;
+            }
+            double mean = scoreSum / responses;
+            double sd = Math.sqrt(Math.max(0.0, scoreSumSquares / responses - mean * mean));
+            if (sd == 0.0) {
+                return null;
+            }
+            double meanCorrect = correctScoreSum / correct;
+            double meanIncorrect = (scoreSum - correctScoreSum) / incorrect;
+            double p = correct / (double) responses;
+            return round((meanCorrect - meanIncorrect) / sd * Math.sqrt(p * (1 - p)));
+        }
+    }
+}
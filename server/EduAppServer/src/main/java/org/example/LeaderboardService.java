@@ -0,0 +1,560 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * @brief
+ * Usługa rankingów (leaderboard) quizów i grup kursów utrzymywanych w pamięci.
+ * Dla każdego quizu przechowywany jest najlepszy wynik każdego studenta w zbiorze uporządkowanym
+ * (TreeSet) według wyniku malejąco, a przy równych wynikach według wcześniejszej daty ukończenia,
+ * więc odczyt pierwszych K miejsc kosztuje O(K), a zmiana wyniku studenta O(log n).
+ * Ranking grupy kursów sumuje najlepsze wyniki studenta ze wszystkich quizów kursów grupy;
+ * jest budowany z rankingów quizów przy pierwszym odczycie i dalej aktualizowany przyrostowo;
+ * rankingi quizów są indeksowane grupą, więc zmiana wpisu grupy przegląda tylko quizy tej grupy.
+ * Rankingi są odtwarzane z bazy przy starcie aplikacji, a zapis i usunięcie wyników aktualizują je
+ * po zatwierdzeniu transakcji (metody record* muszą być wywoływane w transakcji zmieniającej wyniki).
+ */
+@Slf4j
+@Service
+public class LeaderboardService {
+
+    private static final String SELECT_ALL =
+            "SELECT r.\"quiz_id\", q.\"course_id\", c.\"course_group_id\", r.\"user_id\", u.\"username\", " +
+                    "r.\"correct_answers\", r.\"total_questions\", r.\"completion_date\" " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"quizzes\" q ON q.\"id\" = r.\"quiz_id\" " +
+                    "JOIN \"courses\" c ON c.\"id\" = q.\"course_id\" " +
+                    "JOIN \"users\" u ON u.\"id\" = r.\"user_id\"";
+    private static final String SELECT_QUIZ =
+            "SELECT q.\"course_id\", c.\"course_group_id\" FROM \"quizzes\" q " +
+                    "JOIN \"courses\" c ON c.\"id\" = q.\"course_id\" WHERE q.\"id\" = ?";
+    private static final String SELECT_USER_RESULTS =
+            "SELECT u.\"username\", r.\"correct_answers\", r.\"total_questions\", r.\"completion_date\" " +
+                    "FROM \"quiz_results\" r JOIN \"users\" u ON u.\"id\" = r.\"user_id\" " +
+                    "WHERE r.\"user_id\" = ? AND r.\"quiz_id\" = ?";
+
+    /**
+     * Kolejność rankingu quizu: wynik malejąco, data ukończenia rosnąco, ID użytkownika rosnąco.
+     */
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::completionDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::userId);
+
+    /**
+     * Kolejność rankingu grupy: suma wyników malejąco, data osiągnięcia sumy rosnąco, ID użytkownika rosnąco.
+     */
+    private static final Comparator<GroupEntry> GROUP_ENTRY_ORDER = Comparator
+            .comparingDouble(GroupEntry::totalScore).reversed()
+            .thenComparing(GroupEntry::lastCompletionDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(GroupEntry::userId);
+
+    /**
+     * Najlepszy wynik studenta w quizie.
+     *
+     * @param userId ID użytkownika.
+     * @param username Nazwa użytkownika.
+     * @param score Najlepszy wynik procentowy.
+     * @param completionDate Data ukończenia najwcześniejszej próby z najlepszym wynikiem.
+     */
+    public record Entry(Long userId, String username, double score, LocalDateTime completionDate) {}
+
+    /**
+     * Wynik studenta w grupie kursów.
+     *
+     * @param userId ID użytkownika.
+     * @param username Nazwa użytkownika.
+     * @param totalScore Suma najlepszych wyników z quizów grupy.
+     * @param quizzes Liczba rozwiązanych quizów grupy.
+     * @param lastCompletionDate Data najpóźniejszej z prób składających się na sumę.
+     */
+    public record GroupEntry(Long userId, String username, double totalScore, int quizzes,
+                             LocalDateTime lastCompletionDate) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxLimit;
+
+    /**
+     * Rankingi quizów i grup; wszystkie odczyty i zmiany są chronione monitorem "lock".
+     */
+    private final Object lock = new Object();
+    private final Map<Long, QuizBoard> quizBoards = new HashMap<>();
+    private final Map<Long, GroupBoard> groupBoards = new HashMap<>();
+
+    /**
+     * Rankingi quizów wg ID grupy kursów, aby wpis grupy był liczony tylko z quizów tej grupy.
+     */
+    private final Map<Long, List<QuizBoard>> quizBoardsByGroup = new HashMap<>();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param maxLimit Maksymalna liczba miejsc zwracanych w jednym odczycie rankingu.
+     */
+    @Autowired
+    public LeaderboardService(JdbcTemplate jdbcTemplate,
+                              @Value("${quiz.leaderboard.max-limit:100}") int maxLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Zwraca maksymalną liczbę miejsc zwracanych w jednym odczycie.
+     *
+     * @return Limit z konfiguracji.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Odtwarza rankingi z bazy przy starcie aplikacji. Wiersze są dokładane do istniejących rankingów
+     * (zachowywany jest lepszy wynik), więc zgłoszenia zapisane w trakcie odtwarzania nie giną.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        long[] rows = new long[1];
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            Timestamp date = rs.getTimestamp("completion_date");
+            Long groupId = rs.getObject("course_group_id") != null ? rs.getLong("course_group_id") : null;
+            Entry entry = new Entry(rs.getLong("user_id"), rs.getString("username"),
+                    QuizStatsService.score(rs.getInt("correct_answers"), rs.getInt("total_questions")),
+                    date != null ? date.toLocalDateTime() : null);
+            long quizId = rs.getLong("quiz_id");
+            long courseId = rs.getLong("course_id");
+            synchronized (lock) {
+                QuizBoard board = quizBoards.get(quizId);
+                if (board == null) {
+                    board = new QuizBoard(courseId, groupId);
+                    addQuizBoard(quizId, board);
+                }
+                board.offer(entry);
+            }
+            rows[0]++;
+        });
+        int boards;
+        synchronized (lock) {
+            groupBoards.clear();
+            boards = quizBoards.size();
+        }
+        log.info("Odtworzono rankingi {} quizów z {} wyników w {} ms", boards, rows[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Zwraca pierwsze miejsca rankingu quizu.
+     *
+     * @param quizId ID quizu.
+     * @param limit Liczba miejsc (ograniczona do getMaxLimit()).
+     * @return Lista wpisów od pierwszego miejsca (pusta, jeśli quiz nie ma wyników).
+     */
+    public List<Entry> topForQuiz(Long quizId, int limit) {
+        reads.increment();
+        synchronized (lock) {
+            QuizBoard board = quizBoards.get(quizId);
+            return board != null ? top(board.ranking, limit) : List.of();
+        }
+    }
+
+    /**
+     * Zwraca pierwsze miejsca rankingu grupy kursów.
+     *
+     * @param groupId ID grupy kursów.
+     * @param limit Liczba miejsc (ograniczona do getMaxLimit()).
+     * @return Lista wpisów od pierwszego miejsca (pusta, jeśli quizy grupy nie mają wyników).
+     */
+    public List<GroupEntry> topForGroup(Long groupId, int limit) {
+        reads.increment();
+        synchronized (lock) {
+            return top(groupBoard(groupId).ranking, limit);
+        }
+    }
+
+    private <T> List<T> top(NavigableSet<T> ranking, int limit) {
+        int count = Math.min(Math.min(limit, maxLimit), ranking.size());
+        List<T> result = new ArrayList<>(count);
+        Iterator<T> it = ranking.iterator();
+        while (result.size() < count) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Dolicza zapisywane wyniki do rankingów po zatwierdzeniu transakcji.
+     * Nazwy użytkowników oraz kurs i grupa nieznanych jeszcze quizów są odczytywane w bieżącej transakcji.
+     *
+     * @param batch Lista zapisywanych zgłoszeń.
+     */
+    public void recordSubmissions(List<QueuedSubmission> batch) {
+        Set<Long> userIds = batch.stream().map(QueuedSubmission::userId).collect(Collectors.toSet());
+        Map<Long, String> usernames = new HashMap<>();
+        jdbcTemplate.query("SELECT \"id\", \"username\" FROM \"users\" WHERE \"id\" IN (" +
+                        String.join(",", Collections.nCopies(userIds.size(), "?")) + ")",
+                rs -> { usernames.put(rs.getLong("id"), rs.getString("username")); },
+                userIds.toArray());
+
+        Map<Long, long[]> newQuizzes = new HashMap<>();
+        Set<Long> quizIds = batch.stream().map(QueuedSubmission::quizId).collect(Collectors.toSet());
+        for (Long quizId : quizIds) {
+            boolean known;
+            synchronized (lock) {
+                known = quizBoards.containsKey(quizId);
+            }
+            if (!known) {
+                jdbcTemplate.query(SELECT_QUIZ, rs -> {
+                    long groupId = rs.getLong("course_group_id");
+                    boolean noGroup = rs.wasNull();
+                    newQuizzes.put(quizId, new long[]{rs.getLong("course_id"), noGroup ? -1 : groupId});
+                }, quizId);
+            }
+        }
+
+        afterCommit(() -> {
+            synchronized (lock) {
+                for (QueuedSubmission submission : batch) {
+                    long[] quiz = newQuizzes.get(submission.quizId());
+                    QuizBoard board = quizBoards.get(submission.quizId());
+                    if (board == null) {
+                        if (quiz == null) {
+                            continue;
+                        }
+                        board = new QuizBoard(quiz[0], quiz[1] >= 0 ? quiz[1] : null);
+                        addQuizBoard(submission.quizId(), board);
+                    }
+                    Entry entry = new Entry(submission.userId(), usernames.get(submission.userId()),
+                            QuizStatsService.score(submission.correctAnswers(), submission.totalQuestions()),
+                            submission.completionDate());
+                    if (board.offer(entry)) {
+                        refreshGroupEntry(board.groupId, submission.userId());
+                    }
+                }
+            }
+            updates.add(batch.size());
+        });
+    }
+
+    /**
+     * Uwzględnia usunięcie wyniku. Jeśli usunięty wynik równa się najlepszemu wynikowi studenta w rankingu, najlepszy wynik
+     * jest odczytywany z bazy w bieżącej transakcji (usunięty wiersz musi być już usunięty),
+     * a ranking jest zmieniany po jej zatwierdzeniu.
+     *
+     * @param quizId ID quizu.
+     * @param userId ID użytkownika.
+     * @param correctAnswers Liczba poprawnych odpowiedzi usuniętego wyniku.
+     * @param totalQuestions Liczba pytań usuniętego wyniku.
+     */
+    public void recordDeletion(Long quizId, Long userId, int correctAnswers, int totalQuestions) {
+        double score = QuizStatsService.score(correctAnswers, totalQuestions);
+        synchronized (lock) {
+            QuizBoard board = quizBoards.get(quizId);
+            Entry current = board != null ? board.best.get(userId) : null;
+            if (current == null || current.score() != score) {
+                return;
+            }
+        }
+
+        Entry[] replacement = new Entry[1];
+        jdbcTemplate.query(SELECT_USER_RESULTS, rs -> {
+            Timestamp date = rs.getTimestamp("completion_date");
+            Entry candidate = new Entry(userId, rs.getString("username"),
+                    QuizStatsService.score(rs.getInt("correct_answers"), rs.getInt("total_questions")),
+                    date != null ? date.toLocalDateTime() : null);
+            if (replacement[0] == null || ENTRY_ORDER.compare(candidate, replacement[0]) < 0) {
+                replacement[0] = candidate;
+            }
+        }, userId, quizId);
+
+        afterCommit(() -> {
+            synchronized (lock) {
+                QuizBoard board = quizBoards.get(quizId);
+                if (board == null) {
+                    return;
+                }
+                board.remove(userId);
+                if (replacement[0] != null) {
+                    board.offer(replacement[0]);
+                }
+                refreshGroupEntry(board.groupId, userId);
+            }
+            updates.increment();
+        });
+    }
+
+    /**
+     * Usuwa użytkownika ze wszystkich rankingów po zatwierdzeniu transakcji.
+     *
+     * @param userId ID użytkownika.
+     */
+    public void removeUser(Long userId) {
+        afterCommit(() -> {
+            synchronized (lock) {
+                for (QuizBoard board : quizBoards.values()) {
+                    board.remove(userId);
+                }
+                for (GroupBoard board : groupBoards.values()) {
+                    board.remove(userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Usuwa ranking quizu po zatwierdzeniu transakcji.
+     *
+     * @param quizId ID quizu.
+     */
+    public void removeQuiz(Long quizId) {
+        afterCommit(() -> {
+            synchronized (lock) {
+                QuizBoard board = quizBoards.remove(quizId);
+                if (board != null && board.groupId != null) {
+                    removeFromGroup(board);
+                    groupBoards.remove(board.groupId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Usuwa rankingi wszystkich quizów kursu po zatwierdzeniu transakcji.
+     *
+     * @param courseId ID kursu.
+     */
+    public void removeCourse(Long courseId) {
+        afterCommit(() -> {
+            synchronized (lock) {
+                quizBoards.values().removeIf(board -> {
+                    if (board.courseId != courseId) {
+                        return false;
+                    }
+                    if (board.groupId != null) {
+                        removeFromGroup(board);
+                        groupBoards.remove(board.groupId);
+                    }
+                    return true;
+                });
+            }
+        });
+    }
+
+    /**
+     * Odłącza quizy od usuwanej grupy kursów i usuwa ranking grupy po zatwierdzeniu transakcji.
+     *
+     * @param groupId ID grupy kursów.
+     */
+    public void removeGroup(Long groupId) {
+        afterCommit(() -> {
+            synchronized (lock) {
+                for (QuizBoard board : quizBoardsByGroup.getOrDefault(groupId, List.of())) {
+                    board.groupId = null;
+                }
+                quizBoardsByGroup.remove(groupId);
+                groupBoards.remove(groupId);
+            }
+        });
+    }
+
+    /**
+     * Zwraca ranking grupy, budując go z rankingów quizów grupy przy pierwszym odczycie.
+     * Wywoływane pod monitorem "lock".
+     */
+    private GroupBoard groupBoard(Long groupId) {
+        GroupBoard board = groupBoards.get(groupId);
+        if (board == null) {
+            board = new GroupBoard();
+            Set<Long> users = new HashSet<>();
+            for (QuizBoard quizBoard : quizBoardsByGroup.getOrDefault(groupId, List.of())) {
+                users.addAll(quizBoard.best.keySet());
+            }
+            for (Long userId : users) {
+                board.put(groupEntry(groupId, userId));
+            }
+            groupBoards.put(groupId, board);
+        }
+        return board;
+    }
+
+    /**
+     * Przelicza wpis użytkownika w rankingu grupy, jeśli ten ranking jest już zbudowany.
+     * Wywoływane pod monitorem "lock".
+     */
+    private void refreshGroupEntry(Long groupId, Long userId) {
+        if (groupId == null) {
+            return;
+        }
+        GroupBoard board = groupBoards.get(groupId);
+        if (board != null) {
+            board.remove(userId);
+            board.put(groupEntry(groupId, userId));
+        }
+    }
+
+    /**
+     * Dodaje ranking quizu wraz z wpisem w indeksie grup. Wywoływane pod monitorem "lock".
+     */
+    private void addQuizBoard(Long quizId, QuizBoard board) {
+        quizBoards.put(quizId, board);
+        if (board.groupId != null) {
+            quizBoardsByGroup.computeIfAbsent(board.groupId, id -> new ArrayList<>()).add(board);
+        }
+    }
+
+    /**
+     * Usuwa ranking quizu z indeksu grup. Wywoływane pod monitorem "lock".
+     */
+    private void removeFromGroup(QuizBoard board) {
+        List<QuizBoard> boards = quizBoardsByGroup.get(board.groupId);
+        if (boards != null) {
+            boards.remove(board);
+            if (boards.isEmpty()) {
+                quizBoardsByGroup.remove(board.groupId);
+            }
+        }
+    }
+
+    /**
+     * Liczy wpis użytkownika w rankingu grupy z rankingów quizów tej grupy (tylko quizy grupy, zob. quizBoardsByGroup).
+     * Wywoływane pod monitorem "lock".
+     */
+    private GroupEntry groupEntry(Long groupId, Long userId) {
+        String username = null;
+        double total = 0;
+        int quizzes = 0;
+        LocalDateTime last = null;
+        for (QuizBoard quizBoard : quizBoardsByGroup.getOrDefault(groupId, List.of())) {
+            Entry entry = quizBoard.best.get(userId);
+            if (entry == null) {
+                continue;
+            }
+            username = entry.username();
+            total += entry.score();
+            quizzes++;
+            if (entry.completionDate() != null && (last == null || entry.completionDate().isAfter(last))) {
+                last = entry.completionDate();
+            }
+        }
+        return quizzes > 0 ? new GroupEntry(userId, username, total, quizzes, last) : null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Zwraca statystyki rankingów.
+     *
+     * @return Mapa z liczbą rankingów quizów i grup, liczbą wpisów oraz licznikami odczytów i zmian.
+     */
+    public Map<String, Object> stats() {
+        int quizzes;
+        int groups;
+        long entries = 0;
+        synchronized (lock) {
+            quizzes = quizBoards.size();
+            groups = groupBoards.size();
+            for (QuizBoard board : quizBoards.values()) {
+                entries += board.best.size();
+            }
+        }
+        return Map.of(
+                "quizBoards", quizzes,
+                "groupBoards", groups,
+                "entries", entries,
+                "maxLimit", maxLimit,
+                "reads", reads.sum(),
+                "updates", updates.sum()
+        );
+    }
+
+    /**
+     * Ranking quizu: najlepszy wpis każdego użytkownika oraz te same wpisy w kolejności rankingu.
+     */
+    private static final class QuizBoard {
+
+        private final long courseId;
+        private Long groupId;
+        private final Map<Long, Entry> best = new HashMap<>();
+        private final TreeSet<Entry> ranking = new TreeSet<>(ENTRY_ORDER);
+
+        private QuizBoard(long courseId, Long groupId) {
+            this.courseId = courseId;
+            this.groupId = groupId;
+        }
+
+        /**
+         * Zapisuje wpis, jeśli jest lepszy od dotychczasowego najlepszego wpisu użytkownika.
+         *
+         * @return true, jeśli ranking się zmienił.
+         */
+        private boolean offer(Entry entry) {
+            Entry current = best.get(entry.userId());
+            if (current != null && ENTRY_ORDER.compare(entry, current) >= 0) {
+                return false;
+            }
+            if (current != null) {
+                ranking.remove(current);
+            }
+            best.put(entry.userId(), entry);
+            ranking.add(entry);
+            return true;
+        }
+
+        private void remove(Long userId) {
+            Entry current = best.remove(userId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+        }
+    }
+
+    /**
+     * Ranking grupy kursów: wpis każdego użytkownika oraz te same wpisy w kolejności rankingu.
+     */
+    private static final class GroupBoard {
+
+        private final Map<Long, GroupEntry> entries = new HashMap<>();
+        private final TreeSet<GroupEntry> ranking = new TreeSet<>(GROUP_ENTRY_ORDER);
+
+        private void put(GroupEntry entry) {
+            if (entry != null) {
+                entries.put(entry.userId(), entry);
+                ranking.add(entry);
+            }
+        }
+
+        private void remove(Long userId) {
+            GroupEntry current = entries.remove(userId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -7,61 +8,137 @@ import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.UnitValue;
-import org.example.database.Quiz;
-import org.example.database.QuizAnswer;
-import org.example.database.QuizResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * @brief
  * Usługa odpowiedzialna za generowanie raportów PDF z wynikami quizów.
  * Wykorzystuje bibliotekę iText7 do tworzenia dokumentów PDF.
+ * Raport jest zapisywany bezpośrednio do podanego strumienia: wiersze wyników są czytane kursorem
+ * (DetailedResultsStreamer.scroll), dokument działa w trybie natychmiastowego zapisu,
+ * a tabele odpowiedzi są tabelami "dużymi", opróżnianymi co kilkadziesiąt wierszy.
+ * Zużycie pamięci nie zależy więc od liczby wyników.
  */
+@Slf4j
 @Service
 public class PdfGenerationService {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final DetailedResultsStreamer detailedResultsStreamer;
+    private final int tableFlushRows;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param detailedResultsStreamer Komponent odczytujący wyniki quizu kursorem.
+     * @param tableFlushRows Liczba wierszy tabeli odpowiedzi, po których tabela jest opróżniana do dokumentu.
+     */
+    @Autowired
+    public PdfGenerationService(DetailedResultsStreamer detailedResultsStreamer,
+                                @Value("${quiz.report.pdf.table-flush-rows:50}") int tableFlushRows) {
+        this.detailedResultsStreamer = detailedResultsStreamer;
+        this.tableFlushRows = tableFlushRows;
+    }
+
     /**
-     * Generuje plik PDF zawierający szczegółowe wyniki dla danego quizu.
+     * Generuje plik PDF zawierający szczegółowe wyniki dla danego quizu i zapisuje go do strumienia.
      * Raport zawiera podsumowanie quizu oraz listę wyników poszczególnych studentów,
      * wraz z ich odpowiedziami na pytania.
      *
-     * @param quiz Obiekt Quiz, dla którego generowany jest raport.
-     * @param results Lista obiektów QuizResult zawierających wyniki studentów.
-     * @return ByteArrayInputStream zawierający wygenerowany plik PDF.
+     * @param quizId ID quizu, dla którego generowany jest raport.
+     * @param quizTitle Tytuł quizu.
+     * @param out Strumień, do którego zapisywany jest dokument (nie jest zamykany).
      */
-    public ByteArrayInputStream generateQuizResultsPdf(Quiz quiz, List<QuizResult> results) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out));
-        Document document = new Document(pdfDoc);
+    public void writeQuizResultsPdf(Long quizId, String quizTitle, OutputStream out) {
+        long start = System.nanoTime();
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc, PageSize.A4, true);
 
         // Nagłówek dokumentu
-        document.add(new Paragraph("Raport wyników dla quizu: " + quiz.getTitle())
+        document.add(new Paragraph("Raport wyników dla quizu: " + quizTitle)
                 .setBold().setFontSize(20).setMarginBottom(5));
         document.add(new Paragraph("Wygenerowano: " + java.time.LocalDate.now())
                 .setFontSize(10));
         document.add(new Paragraph("\n"));
 
-        // Sekcja dla każdego studenta
-        for (QuizResult result : results) {
-            String studentName = result.getUser() != null ? result.getUser().getUsername() : "Nieznany Użytkownik";
-            document.add(new Paragraph("Student: " + studentName)
+        ResultSectionWriter sections = new ResultSectionWriter(document, tableFlushRows);
+        detailedResultsStreamer.scroll(quizId, 0L, sections);
+        sections.finish();
+
+        document.close();
+        log.info("Wygenerowano raport PDF quizu {} ({} wyników) w {} ms",
+                quizId, sections.resultCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Zapisuje wiersze zapytania jako sekcje kolejnych studentów; nowa sekcja zaczyna się przy zmianie ID wyniku.
+     */
+    private static final class ResultSectionWriter implements RowCallbackHandler {
+
+        private final Document document;
+        private final int flushRows;
+        private Table table;
+        private long currentResultId = -1;
+        private int rowsSinceFlush;
+        private int resultCount;
+
+        private ResultSectionWriter(Document document, int flushRows) {
+            this.document = document;
+            this.flushRows = flushRows;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long resultId = rs.getLong("result_id");
+            if (resultId != currentResultId) {
+                finish();
+                startSection(rs, resultId);
+            }
+            rs.getLong("answer_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            table.addCell(nullToEmpty(rs.getString("question_text")));
+            table.addCell(nullToEmpty(rs.getString("user_answer")));
+            table.addCell(nullToEmpty(rs.getString("correct_answer")));
+            table.addCell(rs.getBoolean("is_correct") ? "OK" : "Błąd");
+            if (++rowsSinceFlush >= flushRows) {
+                table.flush();
+                rowsSinceFlush = 0;
+            }
+        }
+
+        private void startSection(ResultSet rs, long resultId) throws SQLException {
+            String username = rs.getString("username");
+            int correctAnswers = rs.getInt("correct_answers");
+            int totalQuestions = rs.getInt("total_questions");
+            Timestamp completionDate = rs.getTimestamp("completion_date");
+
+            document.add(new Paragraph("Student: " + (username != null ? username : "Nieznany Użytkownik"))
                     .setBold().setFontSize(14));
             document.add(new Paragraph(String.format("Data ukończenia: %s",
-                    result.getCompletionDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))))
+                    completionDate != null ? completionDate.toLocalDateTime().format(DATE_FORMAT) : "-"))
                     .setFontSize(10));
             document.add(new Paragraph(String.format("Wynik: %d / %d (%.2f%%)",
-                    result.getCorrectAnswers(), result.getTotalQuestions(),
-                    (double) result.getCorrectAnswers() * 100 / result.getTotalQuestions())));
+                    correctAnswers, totalQuestions, QuizStatsService.score(correctAnswers, totalQuestions))));
 
             document.add(new Paragraph("\n").setFontSize(4)); // Mały odstęp
 
-            // Tabela z odpowiedziami
-            Table table = new Table(UnitValue.createPercentArray(new float[]{3, 3, 3, 1}));
+            // Tabela z odpowiedziami; duża tabela jest dodawana do dokumentu przed wierszami i opróżniana w trakcie
+            table = new Table(UnitValue.createPercentArray(new float[]{3, 3, 3, 1}), true);
             table.setWidth(UnitValue.createPercentValue(100));
 
             // Nagłówki tabeli
@@ -69,19 +146,23 @@ public class PdfGenerationService {
             table.addHeaderCell(new Cell().add(new Paragraph("Odpowiedź studenta").setBold()));
             table.addHeaderCell(new Cell().add(new Paragraph("Poprawna odpowiedź").setBold()));
             table.addHeaderCell(new Cell().add(new Paragraph("Status").setBold()));
+            document.add(table);
+
+            currentResultId = resultId;
+            rowsSinceFlush = 0;
+            resultCount++;
+        }
 
-            List<QuizAnswer> answers = result.getQuizAnswers();
-            for (QuizAnswer answer : answers) {
-                table.addCell(answer.getQuestion().getQuestionText());
-                table.addCell(answer.getUserAnswer());
-                table.addCell(answer.getQuestion().getCorrectAnswer());
-                table.addCell(answer.isCorrect() ? "OK" : "Błąd");
+        private void finish() {
+            if (table != null) {
+                table.complete();
+                table = null;
+                document.add(new Paragraph("\n\n")); // Większy odstęp między tabelami studentów
             }
-            document.add(table);
-            document.add(new Paragraph("\n\n")); // Większy odstęp między tabelami studentów
         }
 
-        document.close();
-        return new ByteArrayInputStream(out.toByteArray());
+        private static String nullToEmpty(String value) {
+            return value != null ? value : "";
+        }
     }
-}
\ No newline at end of file
+}
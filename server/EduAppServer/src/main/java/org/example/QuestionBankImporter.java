@@ -0,0 +1,117 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.database.QuizQuestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief
+ * Usługa importu banku pytań do quizu.
+ * Plik jest parsowany strumieniowo, każde pytanie sprawdzane przez QuizQuestionValidator,
+ * a poprawne pytania zapisywane wsadami o stałym rozmiarze przez QuizQuestionBulkWriter.
+ * W pamięci przechowywany jest co najwyżej jeden wsad i ograniczona lista odrzuceń.
+ */
+@Slf4j
+@Service
+public class QuestionBankImporter {
+
+    /**
+     * Odrzucona pozycja banku pytań.
+     *
+     * @param line Numer linii, w której zaczyna się pozycja.
+     * @param message Powód odrzucenia.
+     */
+    public record Rejection(int line, String message) {}
+
+    /**
+     * Podsumowanie importu.
+     *
+     * @param imported Liczba zaimportowanych pytań.
+     * @param rejected Liczba odrzuconych pozycji.
+     * @param rejections Pierwsze odrzucone pozycje (co najwyżej quiz.import.max-reported-rejections).
+     */
+    public record Summary(int imported, int rejected, List<Rejection> rejections) {}
+
+    private final QuizQuestionBulkWriter quizQuestionBulkWriter;
+    private final int batchSize;
+    private final int maxReportedRejections;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param quizQuestionBulkWriter Usługa zbiorczego zapisu pytań.
+     * @param batchSize Liczba pytań zapisywanych w jednej transakcji.
+     * @param maxReportedRejections Maksymalna liczba odrzuceń zwracanych w podsumowaniu.
+     */
+    @Autowired
+    public QuestionBankImporter(QuizQuestionBulkWriter quizQuestionBulkWriter,
+                                @Value("${quiz.import.batch-size:200}") int batchSize,
+                                @Value("${quiz.import.max-reported-rejections:100}") int maxReportedRejections) {
+        this.quizQuestionBulkWriter = quizQuestionBulkWriter;
+        this.batchSize = batchSize;
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    /**
+     * Importuje pytania z banku do quizu. Wsady zapisane przed ewentualnym błędem odczytu pozostają w quizie.
+     *
+     * @param quizId ID quizu.
+     * @param input Strumień z zawartością pliku (UTF-8).
+     * @param parser Parser formatu pliku.
+     * @return Podsumowanie importu.
+     * @throws IOException w przypadku błędu odczytu pliku.
+     */
+    public Summary importQuestions(Long quizId, InputStream input, QuestionBankParser parser) throws IOException {
+        List<QuizQuestion> batch = new ArrayList<>(batchSize);
+        List<Rejection> rejections = new ArrayList<>();
+        int[] counters = new int[2];
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            skipByteOrderMark(reader);
+            parser.parse(reader, item -> {
+                String error = item.error() != null ? item.error() : QuizQuestionValidator.validate(item.question());
+                if (error != null) {
+                    counters[1]++;
+                    if (rejections.size() < maxReportedRejections) {
+                        rejections.add(new Rejection(item.lineNumber(), error));
+                    }
+                    return;
+                }
+                batch.add(item.question());
+                if (batch.size() >= batchSize) {
+                    counters[0] += flush(quizId, batch);
+                }
+            });
+        }
+        counters[0] += flush(quizId, batch);
+
+        log.info("Zaimportowano {} pytań do quizu {}, odrzucono {}", counters[0], quizId, counters[1]);
+        return new Summary(counters[0], counters[1], rejections);
+    }
+
+    private int flush(Long quizId, List<QuizQuestion> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int created = quizQuestionBulkWriter.saveAll(quizId, batch).created();
+        batch.clear();
+        return created;
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+}
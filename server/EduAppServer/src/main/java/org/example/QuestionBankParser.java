@@ -0,0 +1,48 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * @brief
+ * Strumieniowy parser banku pytań w formacie tekstowym (np. GIFT, Aiken).
+ * Plik jest czytany linia po linii, a każde rozpoznane pytanie jest od razu przekazywane dalej,
+ * więc zużycie pamięci nie zależy od wielkości banku.
+ */
+public interface QuestionBankParser {
+
+    /**
+     * Pojedyncza pozycja banku pytań.
+     *
+     * @param lineNumber Numer linii, w której zaczyna się pytanie (od 1).
+     * @param question Rozpoznane pytanie (bez przypisanego quizu) lub null, jeśli pozycja została odrzucona.
+     * @param error Powód odrzucenia lub null.
+     */
+    record Item(int lineNumber, QuizQuestion question, String error) {
+
+        static Item accepted(int lineNumber, QuizQuestion question) {
+            return new Item(lineNumber, question, null);
+        }
+
+        static Item rejected(int lineNumber, String error) {
+            return new Item(lineNumber, null, error);
+        }
+    }
+
+    /**
+     * Maksymalna długość jednej pozycji w znakach; dłuższe pozycje są odrzucane bez buforowania.
+     */
+    int MAX_ITEM_LENGTH = 64 * 1024;
+
+    /**
+     * Czyta bank pytań i przekazuje kolejne pozycje do odbiorcy.
+     *
+     * @param reader Źródło tekstu.
+     * @param consumer Odbiorca pozycji.
+     * @throws IOException w przypadku błędu odczytu.
+     */
+    void parse(BufferedReader reader, Consumer<Item> consumer) throws IOException;
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+import org.example.dto.QuizQuestionDTO;
+
+import java.util.Map;
+
+/**
+ * @brief
+ * Niezmienna pula pytań quizu przygotowana do wydawania studentom.
+ * Zawiera gotowe obiekty QuizQuestionDTO (bez poprawnych odpowiedzi), więc wydanie próby
+ * nie wymaga odczytu pytań z bazy ani deserializacji opcji.
+ *
+ * @param quizId ID quizu.
+ * @param title Tytuł quizu.
+ * @param description Opis quizu.
+ * @param questionsVersion Wersja zestawu pytań quizu.
+ * @param questionsToDisplay Liczba pytań wyświetlanych w jednej próbie.
+ * @param questionIds Posortowane rosnąco ID wszystkich pytań quizu.
+ * @param questions Mapa ID pytania -> pytanie do wyświetlenia.
+ */
+public record QuestionPool(
+        Long quizId,
+        String title,
+        String description,
+        int questionsVersion,
+        int questionsToDisplay,
+        long[] questionIds,
+        Map<Long, QuizQuestionDTO> questions
+) {}
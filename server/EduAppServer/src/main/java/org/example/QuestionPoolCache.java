@@ -0,0 +1,102 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizQuestionRepository;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.database.Quiz;
+import org.example.database.QuizQuestion;
+import org.example.dto.QuizQuestionDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * @brief
+ * Ograniczona pamięć podręczna pul pytań quizów (QuestionPool), indeksowana ID quizu.
+ * Przy rozpoczęciu egzaminu wszyscy studenci pobierają ten sam quiz, więc pytania są
+ * wczytywane z bazy raz, a kolejne próby jedynie losują z gotowej puli.
+ * Po przekroczeniu maksymalnego rozmiaru usuwany jest najdawniej używany quiz (LRU, zob. BoundedCache).
+ * Wpisy muszą być unieważniane przy każdej zmianie quizu lub jego pytań (zob. evict).
+ */
+@Slf4j
+@Component
+public class QuestionPoolCache {
+
+    private final QuizRepository quizRepository;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final BoundedCache<Long, QuestionPool> cache;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param quizRepository Repozytorium quizów.
+     * @param quizQuestionRepository Repozytorium pytań quizowych.
+     * @param maxSize Maksymalna liczba quizów w pamięci podręcznej.
+     */
+    @Autowired
+    public QuestionPoolCache(QuizRepository quizRepository,
+                             QuizQuestionRepository quizQuestionRepository,
+                             @Value("${quiz.question-pool-cache.max-size:256}") int maxSize) {
+        this.quizRepository = quizRepository;
+        this.quizQuestionRepository = quizQuestionRepository;
+        this.cache = new BoundedCache<>("question-pools", maxSize);
+    }
+
+    /**
+     * Zwraca pulę pytań quizu, wczytując ją z bazy przy braku wpisu.
+     *
+     * @param quizId ID quizu.
+     * @return Pula pytań lub Optional.empty(), jeśli quiz nie istnieje.
+     */
+    public Optional<QuestionPool> get(Long quizId) {
+        return Optional.ofNullable(cache.get(quizId, id -> quizRepository.findById(id).map(this::load).orElse(null)));
+    }
+
+    private QuestionPool load(Quiz quiz) {
+        List<QuizQuestion> questions = quizQuestionRepository.findByQuizId(quiz.getId());
+        Map<Long, QuizQuestionDTO> dtos = new HashMap<>();
+        long[] questionIds = new long[questions.size()];
+        int i = 0;
+        for (QuizQuestion q : questions) {
+            dtos.put(q.getId(), new QuizQuestionDTO(
+                    q.getId(),
+                    q.getQuestionText(),
+                    q.getQuestionType(),
+                    q.getOptions() != null ? Collections.unmodifiableMap(new LinkedHashMap<>(q.getOptions())) : null
+            ));
+            questionIds[i++] = q.getId();
+        }
+        Arrays.sort(questionIds);
+        log.debug("Wczytano pulę pytań quizu {} ({} pytań)", quiz.getId(), questionIds.length);
+        return new QuestionPool(
+                quiz.getId(),
+                quiz.getTitle(),
+                quiz.getDescription(),
+                quiz.getQuestionsVersion(),
+                quiz.getNumberOfQuestionsToDisplay(),
+                questionIds,
+                Map.copyOf(dtos)
+        );
+    }
+
+    /**
+     * Usuwa wpis quizu. Wywołane wewnątrz transakcji usuwa wpis ponownie po jej zatwierdzeniu,
+     * aby równoległe wczytanie nie zapisało nieaktualnej puli.
+     *
+     * @param quizId ID quizu.
+     */
+    public void evict(Long quizId) {
+        cache.evict(quizId);
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+}
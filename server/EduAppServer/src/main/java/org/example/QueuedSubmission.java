@@ -0,0 +1,36 @@
+package org.example;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @brief
+ * Rekord reprezentujący oceniony quiz oczekujący w kolejce na zapis do bazy danych.
+ * Zawiera wszystkie dane potrzebne do utworzenia wiersza QuizResult i wierszy QuizAnswer.
+ *
+ * @param userId ID użytkownika, który rozwiązał quiz.
+ * @param quizId ID quizu.
+ * @param correctAnswers Liczba poprawnych odpowiedzi.
+ * @param totalQuestions Całkowita liczba pytań.
+ * @param completionDate Data i czas ukończenia quizu.
+ * @param attemptKey Klucz próby przesłany przez klienta (może być null).
+ * @param answers Ocenione odpowiedzi użytkownika.
+ */
+public record QueuedSubmission(
+        Long userId,
+        Long quizId,
+        int correctAnswers,
+        int totalQuestions,
+        LocalDateTime completionDate,
+        String attemptKey,
+        List<Answer> answers
+) {
+    /**
+     * @brief Oceniona odpowiedź na pojedyncze pytanie.
+     *
+     * @param questionId ID pytania.
+     * @param userAnswer Odpowiedź użytkownika.
+     * @param correct Czy odpowiedź jest poprawna.
+     */
+    public record Answer(Long questionId, String userAnswer, boolean correct) {}
+}
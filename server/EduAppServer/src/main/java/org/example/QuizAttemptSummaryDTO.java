@@ -0,0 +1,30 @@
+package org.example.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * @brief
+ * Rekord DTO reprezentujący jedną próbę rozwiązania quizu w historii prób użytkownika,
+ * bez szczegółów odpowiedzi.
+ *
+ * @param resultId ID wyniku quizu.
+ * @param completionDate Data i czas ukończenia quizu.
+ * @param correctAnswers Liczba poprawnych odpowiedzi.
+ * @param totalQuestions Liczba pytań.
+ * @param score Wynik w procentach.
+ */
+public record QuizAttemptSummaryDTO(
+        Long resultId,
+        LocalDateTime completionDate,
+        int correctAnswers,
+        int totalQuestions,
+        double score
+) {
+    /**
+     * Konstruktor używany w zapytaniu JPQL; wynik procentowy jest wyliczany z liczby odpowiedzi.
+     */
+    public QuizAttemptSummaryDTO(Long resultId, LocalDateTime completionDate, int correctAnswers, int totalQuestions) {
+        this(resultId, completionDate, correctAnswers, totalQuestions,
+                totalQuestions > 0 ? (correctAnswers * 100.0) / totalQuestions : 0.0);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+
+import java.util.*;
+
+/**
+ * @brief
+ * Niezmienny, wstępnie przetworzony klucz odpowiedzi dla pojedynczego pytania quizu.
+ * Dla pytań wielokrotnego wyboru przechowuje maskę bitową poprawnych opcji,
+ * dla pytań prawda/fałsz kanoniczny token, a dla pytań otwartych znormalizowaną odpowiedź.
+ * Dzięki temu ocenianie nie musi za każdym razem dzielić i porównywać ciągów poprawnych odpowiedzi.
+ */
+public final class QuizGradingKey {
+
+    /**
+     * Rodzaj klucza, odpowiadający typowi pytania.
+     */
+    private enum Kind { MULTIPLE_CHOICE, TRUE_FALSE, OPEN_ENDED, UNKNOWN }
+
+    private final long questionId;
+    private final Kind kind;
+    /**
+     * Pozycja bitu dla każdego klucza opcji (tylko multiple_choice).
+     */
+    private final Map<String, Integer> optionBits;
+    /**
+     * Maska bitowa poprawnych opcji (tylko multiple_choice).
+     */
+    private final long correctMask;
+    /**
+     * Zbiór poprawnych opcji używany, gdy pytanie ma więcej opcji niż bitów w masce.
+     */
+    private final Set<String> correctOptions;
+    /**
+     * Kanoniczny token (true_false) lub znormalizowana odpowiedź (open_ended).
+     */
+    private final String token;
+
+    private QuizGradingKey(long questionId, Kind kind, Map<String, Integer> optionBits, long correctMask,
+                           Set<String> correctOptions, String token) {
+        this.questionId = questionId;
+        this.kind = kind;
+        this.optionBits = optionBits;
+        this.correctMask = correctMask;
+        this.correctOptions = correctOptions;
+        this.token = token;
+    }
+
+    /**
+     * Tworzy klucz odpowiedzi na podstawie encji pytania.
+     *
+     * @param question Pytanie quizu.
+     * @return Skompilowany klucz odpowiedzi.
+     */
+    public static QuizGradingKey compile(QuizQuestion question) {
+        String correctAnswer = question.getCorrectAnswer();
+        return switch (question.getQuestionType()) {
+            case "multiple_choice" -> compileMultipleChoice(question);
+            case "true_false" -> new QuizGradingKey(question.getId(), Kind.TRUE_FALSE, Map.of(), 0L, null,
+                    correctAnswer == null ? null : correctAnswer.toLowerCase(Locale.ROOT));
+            case "open_ended" -> new QuizGradingKey(question.getId(), Kind.OPEN_ENDED, Map.of(), 0L, null,
+                    correctAnswer == null ? null : correctAnswer.trim());
+            default -> new QuizGradingKey(question.getId(), Kind.UNKNOWN, Map.of(), 0L, null, null);
+        };
+    }
+
+    private static QuizGradingKey compileMultipleChoice(QuizQuestion question) {
+        if (question.getCorrectAnswer() == null) {
+            return new QuizGradingKey(question.getId(), Kind.MULTIPLE_CHOICE, Map.of(), 0L, null, null);
+        }
+        String[] correct = question.getCorrectAnswer().split(",");
+        SortedSet<String> keys = new TreeSet<>(Arrays.asList(correct));
+        if (question.getOptions() != null) {
+            keys.addAll(question.getOptions().keySet());
+        }
+        if (keys.size() > Long.SIZE) {
+            return new QuizGradingKey(question.getId(), Kind.MULTIPLE_CHOICE, Map.of(), 0L,
+                    Set.copyOf(Arrays.asList(correct)), "");
+        }
+
+        Map<String, Integer> bits = new HashMap<>();
+        for (String key : keys) {
+            bits.put(key, bits.size());
+        }
+        long mask = 0L;
+        for (String key : correct) {
+            mask |= 1L << bits.get(key);
+        }
+        return new QuizGradingKey(question.getId(), Kind.MULTIPLE_CHOICE, Map.copyOf(bits), mask, null, "");
+    }
+
+    /**
+     * Sprawdza, czy odpowiedź użytkownika jest poprawna.
+     *
+     * @param answer Odpowiedź użytkownika.
+     * @return true jeśli odpowiedź jest poprawna, false w przeciwnym razie.
+     * @throws IllegalArgumentException jeśli typ pytania jest nieznany.
+     */
+    public boolean matches(String answer) {
+        if (kind == Kind.UNKNOWN) {
+            throw new IllegalArgumentException("Nieznany typ pytania");
+        }
+        if (answer == null || token == null) {
+            return false;
+        }
+        return switch (kind) {
+            case MULTIPLE_CHOICE -> matchesMultipleChoice(answer);
+            case TRUE_FALSE -> token.equalsIgnoreCase(answer);
+            case OPEN_ENDED -> token.equalsIgnoreCase(answer.trim());
+            default -> false;
+        };
+    }
+
+    private boolean matchesMultipleChoice(String answer) {
+        String[] selected = answer.split(",");
+        if (correctOptions != null) {
+            return correctOptions.equals(new HashSet<>(Arrays.asList(selected)));
+        }
+        long mask = 0L;
+        for (String key : selected) {
+            Integer bit = optionBits.get(key);
+            if (bit == null) {
+                return false;
+            }
+            mask |= 1L << bit;
+        }
+        return mask == correctMask;
+    }
+
+    /**
+     * @return ID pytania, którego dotyczy klucz.
+     */
+    public long getQuestionId() {
+        return questionId;
+    }
+}
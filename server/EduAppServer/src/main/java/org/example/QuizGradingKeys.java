@@ -0,0 +1,26 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * @brief
+ * Niezmienny zestaw danych potrzebnych do oceniania jednego quizu.
+ * Oprócz kluczy odpowiedzi zawiera wersję zestawu pytań i dane potrzebne
+ * do odtworzenia wyboru pytań dla tokenu próby (zob. AttemptSelection).
+ *
+ * @param questionsVersion Wersja zestawu pytań quizu.
+ * @param questionsToDisplay Liczba pytań wyświetlanych w jednej próbie.
+ * @param questionIds Posortowane rosnąco ID wszystkich pytań quizu.
+ * @param keys Mapa ID pytania -> klucz odpowiedzi.
+ */
+public record QuizGradingKeys(
+        int questionsVersion,
+        int questionsToDisplay,
+        long[] questionIds,
+        Map<Long, QuizGradingKey> keys
+) {
+    /**
+     * Pusty zestaw używany, gdy quiz nie istnieje.
+     */
+    public static final QuizGradingKeys EMPTY = new QuizGradingKeys(0, 0, new long[0], Map.of());
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.database.QuizQuestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @brief
+ * Usługa zapisująca wiele pytań quizu naraz.
+ * Nowe pytania są wstawiane, a istniejące aktualizowane wsadami JDBC w jednej transakcji,
+ * po czym wersja zestawu pytań jest podbijana raz, a pamięci podręczne quizu unieważniane.
+ * Pytania muszą być wcześniej sprawdzone (QuizQuestionValidator) i należeć do quizu.
+ */
+@Slf4j
+@Service
+public class QuizQuestionBulkWriter {
+
+    private static final String INSERT_QUESTION =
+            "INSERT INTO \"quiz_questions\" (\"quiz_id\", \"question_text\", \"question_type\", \"options\", \"correct_answer\") " +
+                    "VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_QUESTION =
+            "UPDATE \"quiz_questions\" SET \"question_text\" = ?, \"question_type\" = ?, \"options\" = ?, \"correct_answer\" = ? " +
+                    "WHERE \"id\" = ? AND \"quiz_id\" = ?";
+
+    /**
+     * Wynik zapisu zbiorczego.
+     *
+     * @param created Liczba dodanych pytań.
+     * @param updated Liczba zaktualizowanych pytań.
+     */
+    public record Result(int created, int updated) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final QuizRepository quizRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final QuestionPoolCache questionPoolCache;
+    private final int batchSize;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC używany do wsadowych zapisów.
+     * @param objectMapper Mapper JSON używany do zapisu opcji pytań.
+     * @param quizRepository Repozytorium quizów.
+     * @param gradingKeyCache Pamięć podręczna kluczy odpowiedzi.
+     * @param questionPoolCache Pamięć podręczna pul pytań quizów.
+     * @param batchSize Liczba wierszy w jednym wsadzie JDBC.
+     */
+    @Autowired
+    public QuizQuestionBulkWriter(JdbcTemplate jdbcTemplate,
+                                  ObjectMapper objectMapper,
+                                  QuizRepository quizRepository,
+                                  GradingKeyCache gradingKeyCache,
+                                  QuestionPoolCache questionPoolCache,
+                                  @Value("${quiz.questions.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.quizRepository = quizRepository;
+        this.gradingKeyCache = gradingKeyCache;
+        this.questionPoolCache = questionPoolCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Zapisuje pytania quizu. Pytania bez ID są dodawane, pytania z ID aktualizowane.
+     *
+     * @param quizId ID quizu.
+     * @param questions Sprawdzone pytania należące do quizu.
+     * @return Liczba dodanych i zaktualizowanych pytań.
+     */
+    @Transactional
+    public Result saveAll(Long quizId, List<QuizQuestion> questions) {
+        List<QuizQuestion> toInsert = new ArrayList<>();
+        List<QuizQuestion> toUpdate = new ArrayList<>();
+        for (QuizQuestion question : questions) {
+            (question.getId() == null ? toInsert : toUpdate).add(question);
+        }
+
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_QUESTION, toInsert, batchSize, (ps, q) -> {
+                ps.setLong(1, quizId);
+                ps.setString(2, q.getQuestionText());
+                ps.setString(3, q.getQuestionType());
+                setOptions(ps, 4, q.getOptions());
+                ps.setString(5, q.getCorrectAnswer());
+            });
+        }
+        if (!toUpdate.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_QUESTION, toUpdate, batchSize, (ps, q) -> {
+                ps.setString(1, q.getQuestionText());
+                ps.setString(2, q.getQuestionType());
+                setOptions(ps, 3, q.getOptions());
+                ps.setString(4, q.getCorrectAnswer());
+                ps.setLong(5, q.getId());
+                ps.setLong(6, quizId);
+            });
+        }
+
+        quizRepository.incrementQuestionsVersion(quizId);
+        gradingKeyCache.evict(quizId);
+        questionPoolCache.evict(quizId);
+        log.info("Zapisano zbiorczo pytania quizu {}: dodano {}, zaktualizowano {}",
+                quizId, toInsert.size(), toUpdate.size());
+        return new Result(toInsert.size(), toUpdate.size());
+    }
+
+    private void setOptions(PreparedStatement ps, int index, Map<String, String> options) throws SQLException {
+        if (options == null) {
+            ps.setNull(index, Types.VARCHAR);
+            return;
+        }
+        try {
+            ps.setString(index, objectMapper.writeValueAsString(options));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Nie można zapisać opcji pytania", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @brief
+ * Walidacja danych pytania quizowego wspólna dla dodawania, aktualizacji i operacji zbiorczych.
+ */
+public final class QuizQuestionValidator {
+
+    private static final Set<String> QUESTION_TYPES = Set.of("multiple_choice", "open_ended", "true_false");
+    private static final Set<Map.Entry<String, String>> TRUE_FALSE_OPTIONS = Set.of(
+            Map.entry("True", "Prawda"),
+            Map.entry("False", "Fałsz")
+    );
+
+    private QuizQuestionValidator() {}
+
+    /**
+     * Sprawdza poprawność pytania.
+     *
+     * @param question Pytanie do sprawdzenia.
+     * @return Komunikat błędu lub null, jeśli pytanie jest poprawne.
+     */
+    public static String validate(QuizQuestion question) {
+        if (question == null) {
+            return "Brak danych pytania";
+        }
+        if (question.getQuestionText() == null || question.getQuestionText().isBlank()) {
+            return "Treść pytania jest wymagana";
+        }
+        if (question.getQuestionType() == null || !QUESTION_TYPES.contains(question.getQuestionType())) {
+            return "Typ pytania musi być 'multiple_choice', 'open_ended' lub 'true_false'";
+        }
+        switch (question.getQuestionType()) {
+            case "multiple_choice" -> {
+                if (question.getOptions() == null || question.getOptions().size() < 2) {
+                    return "Pytania wielokrotnego wyboru wymagają co najmniej 2 opcji";
+                }
+                if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
+                    return "Co najmniej jedna poprawna odpowiedź jest wymagana";
+                }
+                for (String correct : question.getCorrectAnswer().split(",")) {
+                    if (!question.getOptions().containsKey(correct)) {
+                        return "Wszystkie poprawne odpowiedzi muszą być kluczami opcji";
+                    }
+                }
+            }
+            case "true_false" -> {
+                if (question.getOptions() == null || !question.getOptions().entrySet().equals(TRUE_FALSE_OPTIONS)) {
+                    return "Opcje dla pytania prawda/fałsz muszą być dokładnie 'True: Prawda' i 'False: Fałsz'";
+                }
+                if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
+                    return "Co najmniej jedna poprawna odpowiedź jest wymagana";
+                }
+                for (String correct : question.getCorrectAnswer().split(",")) {
+                    if (!Set.of("True", "False").contains(correct)) {
+                        return "Poprawne odpowiedzi muszą być 'True' lub 'False'";
+                    }
+                }
+            }
+            default -> {
+                if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
+                    return "Poprawna odpowiedź jest wymagana dla pytań otwartych";
+                }
+                if (question.getOptions() != null && !question.getOptions().isEmpty()) {
+                    return "Pytania otwarte nie mogą zawierać opcji";
+                }
+            }
+        }
+        return null;
+    }
+}
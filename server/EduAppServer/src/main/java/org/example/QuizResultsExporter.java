@@ -0,0 +1,277 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.example.DataBaseRepositories.QuizQuestionRepository;
+import org.example.database.QuizQuestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * @brief
+ * Komponent eksportujący wyniki quizu do CSV lub XLSX: jeden wiersz na próbę, z kolumną poprawności
+ * (1 - poprawna, 0 - niepoprawna, puste - pytanie nie wylosowane) dla każdego pytania quizu.
+ * Wiersze są czytane kursorem (DetailedResultsStreamer.scroll) i zapisywane od razu do strumienia;
+ * XLSX jest zapisywany przez SXSSF, który trzyma w pamięci tylko okno ostatnich wierszy.
+ */
+@Slf4j
+@Component
+public class QuizResultsExporter {
+
+    /**
+     * Obsługiwane formaty eksportu.
+     */
+    public static final ExportFormat[] FORMATS = {ExportFormat.CSV, ExportFormat.XLSX};
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final List<String> FIXED_COLUMNS =
+            List.of("resultId", "username", "completionDate", "correctAnswers", "totalQuestions", "score");
+
+    private final DetailedResultsStreamer detailedResultsStreamer;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final int xlsxWindowSize;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param detailedResultsStreamer Komponent odczytujący wyniki quizu kursorem.
+     * @param quizQuestionRepository Repozytorium pytań quizowych.
+     * @param xlsxWindowSize Liczba wierszy arkusza XLSX trzymanych w pamięci przed zapisem na dysk.
+     */
+    @Autowired
+    public QuizResultsExporter(DetailedResultsStreamer detailedResultsStreamer,
+                               QuizQuestionRepository quizQuestionRepository,
+                               @Value("${quiz.export.xlsx-window-size:100}") int xlsxWindowSize) {
+        this.detailedResultsStreamer = detailedResultsStreamer;
+        this.quizQuestionRepository = quizQuestionRepository;
+        this.xlsxWindowSize = xlsxWindowSize;
+    }
+
+    /**
+     * Zapisuje wyniki quizu w podanym formacie do strumienia.
+     *
+     * @param quizId ID quizu.
+     * @param format Format eksportu.
+     * @param out Strumień odpowiedzi (nie jest zamykany).
+     * @throws IOException w przypadku błędu zapisu.
+     */
+    public void export(Long quizId, ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        List<QuizQuestion> questions = new ArrayList<>(quizQuestionRepository.findByQuizId(quizId));
+        questions.sort(Comparator.comparing(QuizQuestion::getId));
+        Map<Long, Integer> columns = new HashMap<>();
+        List<String> header = new ArrayList<>(FIXED_COLUMNS);
+        for (QuizQuestion question : questions) {
+            columns.put(question.getId(), columns.size());
+            header.add("Q" + question.getId() + ": " + question.getQuestionText());
+        }
+
+        int rows;
+        try (RowSink sink = format == ExportFormat.CSV ? new CsvSink(out) : new XlsxSink(out, xlsxWindowSize)) {
+            sink.header(header);
+            AttemptRowWriter writer = new AttemptRowWriter(sink, columns);
+            try {
+                detailedResultsStreamer.scroll(quizId, 0L, writer);
+                writer.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows = writer.attempts;
+        }
+        log.info("Wyeksportowano {} prób quizu {} do {} w {} ms",
+                rows, quizId, format, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Składa wiersze zapytania (jeden na odpowiedź) w jeden wiersz eksportu na próbę.
+     */
+    private static final class AttemptRowWriter implements RowCallbackHandler {
+
+        private final RowSink sink;
+        private final Map<Long, Integer> columns;
+        private final byte[] correctness;
+        private long currentResultId = -1;
+        private String username;
+        private LocalDateTime completionDate;
+        private int correctAnswers;
+        private int totalQuestions;
+        private int attempts;
+
+        private AttemptRowWriter(RowSink sink, Map<Long, Integer> columns) {
+            this.sink = sink;
+            this.columns = columns;
+            this.correctness = new byte[columns.size()];
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long resultId = rs.getLong("result_id");
+            if (resultId != currentResultId) {
+                finish();
+                currentResultId = resultId;
+                username = rs.getString("username");
+                Timestamp date = rs.getTimestamp("completion_date");
+                completionDate = date != null ? date.toLocalDateTime() : null;
+                correctAnswers = rs.getInt("correct_answers");
+                totalQuestions = rs.getInt("total_questions");
+                Arrays.fill(correctness, (byte) -1);
+            }
+            long questionId = rs.getLong("question_id");
+            if (!rs.wasNull()) {
+                Integer column = columns.get(questionId);
+                if (column != null) {
+                    correctness[column] = (byte) (rs.getBoolean("is_correct") ? 1 : 0);
+                }
+            }
+        }
+
+        private void finish() {
+            if (currentResultId < 0) {
+                return;
+            }
+            try {
+                sink.row(currentResultId, username, completionDate, correctAnswers, totalQuestions,
+                        QuizStatsService.score(correctAnswers, totalQuestions), correctness);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            attempts++;
+            currentResultId = -1;
+        }
+    }
+
+    /**
+     * Docelowy format wierszy eksportu.
+     */
+    private interface RowSink extends Closeable {
+        void header(List<String> columns) throws IOException;
+
+        void row(long resultId, String username, LocalDateTime completionDate, int correctAnswers,
+                 int totalQuestions, double score, byte[] correctness) throws IOException;
+    }
+
+    /**
+     * Zapis CSV (zob. CsvWriter).
+     */
+    private static final class CsvSink implements RowSink {
+
+        private final CsvWriter csv;
+
+        private CsvSink(OutputStream out) throws IOException {
+            this.csv = new CsvWriter(out);
+        }
+
+        @Override
+        public void header(List<String> columns) throws IOException {
+            for (String column : columns) {
+                csv.text(column);
+            }
+            csv.endRow();
+        }
+
+        @Override
+        public void row(long resultId, String username, LocalDateTime completionDate, int correctAnswers,
+                        int totalQuestions, double score, byte[] correctness) throws IOException {
+            csv.value(Long.toString(resultId))
+                    .text(username)
+                    .value(completionDate != null ? completionDate.format(DATE_FORMAT) : null)
+                    .value(Integer.toString(correctAnswers))
+                    .value(Integer.toString(totalQuestions))
+                    .value(String.format(Locale.ROOT, "%.2f", score));
+            for (byte value : correctness) {
+                csv.value(value >= 0 ? (value == 1 ? "1" : "0") : null);
+            }
+            csv.endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.flush();
+        }
+    }
+
+    /**
+     * Zapis XLSX przez SXSSF: wiersze spoza okna są zapisywane do skompresowanych plików tymczasowych.
+     */
+    private static final class XlsxSink implements RowSink {
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private final CellStyle headerStyle;
+        private final CellStyle dateStyle;
+        private int rowIndex;
+
+        private XlsxSink(OutputStream out, int windowSize) {
+            this.out = out;
+            this.workbook = new SXSSFWorkbook(windowSize);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet("Wyniki");
+            CreationHelper helper = workbook.getCreationHelper();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            this.headerStyle = workbook.createCellStyle();
+            this.headerStyle.setFont(bold);
+            this.dateStyle = workbook.createCellStyle();
+            this.dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        }
+
+        @Override
+        public void header(List<String> columns) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < columns.size(); i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(columns.get(i));
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+        }
+
+        @Override
+        public void row(long resultId, String username, LocalDateTime completionDate, int correctAnswers,
+                        int totalQuestions, double score, byte[] correctness) {
+            Row row = sheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(resultId);
+            row.createCell(1).setCellValue(username);
+            if (completionDate != null) {
+                Cell date = row.createCell(2);
+                date.setCellValue(completionDate);
+                date.setCellStyle(dateStyle);
+            }
+            row.createCell(3).setCellValue(correctAnswers);
+            row.createCell(4).setCellValue(totalQuestions);
+            row.createCell(5).setCellValue(Math.round(score * 100.0) / 100.0);
+            for (int i = 0; i < correctness.length; i++) {
+                if (correctness[i] >= 0) {
+                    row.createCell(FIXED_COLUMNS.size() + i).setCellValue(correctness[i]);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.example;
+
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizStatsRepository;
+import org.example.database.QuizStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @brief
+ * Usługa utrzymująca tabelę "quiz_stats" z zagregowanymi statystykami wyników quizów.
+ * Zapis wyników (SubmissionWriter) i ich usuwanie aktualizują statystyki przyrostowo
+ * w tej samej transakcji; rebuild() przelicza je od nowa z tabeli "quiz_results".
+ * Metody record* muszą być wywoływane wewnątrz transakcji, która zmienia wyniki.
+ * Każda zmiana wyników zwiększa też wersję wyników quizu (kolumna "results_version").
+ */
+@Slf4j
+@Service
+public class QuizStatsService {
+
+    /**
+     * Wynik procentowy próby w SQL (zgodny z score()).
+     */
+    private static final String SCORE_SQL =
+            "CASE WHEN \"total_questions\" > 0 THEN \"correct_answers\" * 100.0 / \"total_questions\" ELSE 0 END";
+
+    private static final String UPSERT =
+            "INSERT INTO \"quiz_stats\" (\"quiz_id\", \"attempts\", \"score_sum\", \"score_sum_squares\", \"min_score\", \"max_score\", \"pass_count\", \"results_version\") " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, 1) " +
+                    "ON CONFLICT(\"quiz_id\") DO UPDATE SET " +
+                    "\"attempts\" = \"attempts\" + excluded.\"attempts\", " +
+                    "\"score_sum\" = \"score_sum\" + excluded.\"score_sum\", " +
+                    "\"score_sum_squares\" = \"score_sum_squares\" + excluded.\"score_sum_squares\", " +
+                    "\"min_score\" = MIN(COALESCE(\"min_score\", excluded.\"min_score\"), excluded.\"min_score\"), " +
+                    "\"max_score\" = MAX(COALESCE(\"max_score\", excluded.\"max_score\"), excluded.\"max_score\"), " +
+                    "\"pass_count\" = \"pass_count\" + excluded.\"pass_count\", " +
+                    "\"results_version\" = \"results_version\" + 1";
+
+    /**
+     * Odejmuje jedną próbę. Minimum i maksimum są przeliczane z pozostałych wyników tylko wtedy,
+     * gdy usunięty wynik był wartością skrajną (usunięty wiersz musi być już usunięty w tej transakcji).
+     */
+    private static final String REMOVE =
+            "UPDATE \"quiz_stats\" SET " +
+                    "\"attempts\" = \"attempts\" - 1, " +
+                    "\"score_sum\" = CASE WHEN \"attempts\" <= 1 THEN 0 ELSE \"score_sum\" - ? END, " +
+                    "\"score_sum_squares\" = CASE WHEN \"attempts\" <= 1 THEN 0 ELSE \"score_sum_squares\" - ? END, " +
+                    "\"pass_count\" = \"pass_count\" - ?, " +
+                    "\"results_version\" = \"results_version\" + 1, " +
+                    "\"min_score\" = CASE WHEN ? <= \"min_score\" " +
+                    "THEN (SELECT MIN(" + SCORE_SQL + ") FROM \"quiz_results\" WHERE \"quiz_id\" = ?) ELSE \"min_score\" END, " +
+                    "\"max_score\" = CASE WHEN ? >= \"max_score\" " +
+                    "THEN (SELECT MAX(" + SCORE_SQL + ") FROM \"quiz_results\" WHERE \"quiz_id\" = ?) ELSE \"max_score\" END " +
+                    "WHERE \"quiz_id\" = ? AND \"attempts\" > 0";
+
+    /**
+     * Zeruje statystyki wszystkich quizów przed przebudową; wiersze (i wersje wyników) są zachowywane,
+     * aby wersja wyników nie wróciła do wcześniej użytej wartości.
+     */
+    private static final String RESET =
+            "UPDATE \"quiz_stats\" SET \"attempts\" = 0, \"score_sum\" = 0, \"score_sum_squares\" = 0, " +
+                    "\"min_score\" = NULL, \"max_score\" = NULL, \"pass_count\" = 0, " +
+                    "\"results_version\" = \"results_version\" + 1";
+
+    private static final String REBUILD =
+            "INSERT INTO \"quiz_stats\" (\"quiz_id\", \"attempts\", \"score_sum\", \"score_sum_squares\", \"min_score\", \"max_score\", \"pass_count\", \"results_version\") " +
+                    "SELECT \"quiz_id\", COUNT(*), SUM(s), SUM(s * s), MIN(s), MAX(s), SUM(CASE WHEN s >= ? THEN 1 ELSE 0 END), 1 " +
+                    "FROM (SELECT \"quiz_id\", " + SCORE_SQL + " AS s FROM \"quiz_results\") WHERE true GROUP BY \"quiz_id\" " +
+                    "ON CONFLICT(\"quiz_id\") DO UPDATE SET " +
+                    "\"attempts\" = excluded.\"attempts\", " +
+                    "\"score_sum\" = excluded.\"score_sum\", " +
+                    "\"score_sum_squares\" = excluded.\"score_sum_squares\", " +
+                    "\"min_score\" = excluded.\"min_score\", " +
+                    "\"max_score\" = excluded.\"max_score\", " +
+                    "\"pass_count\" = excluded.\"pass_count\"";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuizStatsRepository quizStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double passThreshold;
+    private final boolean rebuildOnStartup;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param quizStatsRepository Repozytorium statystyk quizów.
+     * @param transactionManager Menedżer transakcji (przebudowa przy starcie, wywoływana z tej samej klasy).
+     * @param passThreshold Próg zaliczenia w procentach (zmiana wymaga przebudowy statystyk).
+     * @param rebuildOnStartup Czy przy starcie zbudować statystyki, jeśli tabela jest pusta, a wyniki istnieją.
+     */
+    @Autowired
+    public QuizStatsService(JdbcTemplate jdbcTemplate,
+                            QuizStatsRepository quizStatsRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${quiz.stats.pass-threshold:50}") double passThreshold,
+                            @Value("${quiz.stats.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.quizStatsRepository = quizStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passThreshold = passThreshold;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * Zwraca wynik procentowy próby.
+     *
+     * @param correctAnswers Liczba poprawnych odpowiedzi.
+     * @param totalQuestions Liczba pytań.
+     * @return Wynik w procentach (0, jeśli liczba pytań jest zerowa).
+     */
+    public static double score(int correctAnswers, int totalQuestions) {
+        return totalQuestions > 0 ? correctAnswers * 100.0 / totalQuestions : 0.0;
+    }
+
+    /**
+     * Dolicza zapisywane wyniki do statystyk; wyniki są najpierw grupowane po quizie,
+     * więc wsad wymaga jednego polecenia na quiz.
+     *
+     * @param submissions Zapisywane wyniki.
+     */
+    public void recordSubmissions(List<QueuedSubmission> submissions) {
+        Map<Long, double[]> perQuiz = new LinkedHashMap<>();
+        for (QueuedSubmission submission : submissions) {
+            double s = score(submission.correctAnswers(), submission.totalQuestions());
+            double[] agg = perQuiz.computeIfAbsent(submission.quizId(),
+                    id -> new double[]{0, 0, 0, Double.MAX_VALUE, -Double.MAX_VALUE, 0});
+            agg[0]++;
+            agg[1] += s;
+            agg[2] += s * s;
+            agg[3] = Math.min(agg[3], s);
+            agg[4] = Math.max(agg[4], s);
+            agg[5] += s >= passThreshold ? 1 : 0;
+        }
+        List<Object[]> rows = new ArrayList<>(perQuiz.size());
+        perQuiz.forEach((quizId, agg) ->
+                rows.add(new Object[]{quizId, (long) agg[0], agg[1], agg[2], agg[3], agg[4], (long) agg[5]}));
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    /**
+     * Odejmuje usunięty wynik od statystyk. Wiersz wyniku musi być już usunięty (i wysłany do bazy) w bieżącej transakcji.
+     *
+     * @param quizId ID quizu.
+     * @param correctAnswers Liczba poprawnych odpowiedzi usuniętego wyniku.
+     * @param totalQuestions Liczba pytań usuniętego wyniku.
+     */
+    public void recordDeletion(Long quizId, int correctAnswers, int totalQuestions) {
+        double s = score(correctAnswers, totalQuestions);
+        jdbcTemplate.update(REMOVE, s, s * s, s >= passThreshold ? 1 : 0, s, quizId, s, quizId, quizId);
+    }
+
+    /**
+     * Usuwa statystyki quizu (przy usuwaniu quizu).
+     *
+     * @param quizId ID quizu.
+     */
+    public void deleteQuiz(Long quizId) {
+        jdbcTemplate.update("DELETE FROM \"quiz_stats\" WHERE \"quiz_id\" = ?", quizId);
+    }
+
+    /**
+     * Usuwa statystyki wszystkich quizów kursu (przy usuwaniu kursu).
+     *
+     * @param courseId ID kursu.
+     */
+    public void deleteCourse(Long courseId) {
+        jdbcTemplate.update("DELETE FROM \"quiz_stats\" WHERE \"quiz_id\" IN " +
+                "(SELECT \"id\" FROM \"quizzes\" WHERE \"course_id\" = ?)", courseId);
+    }
+
+    /**
+     * Przelicza statystyki wszystkich quizów od nowa na podstawie tabeli "quiz_results".
+     *
+     * @return Liczba quizów, dla których zapisano statystyki.
+     */
+    @Transactional
+    public int rebuild() {
+        return rebuildStats();
+    }
+
+    private int rebuildStats() {
+        long start = System.nanoTime();
+        jdbcTemplate.update(RESET);
+        int quizzes = jdbcTemplate.update(REBUILD, passThreshold);
+        log.info("Przebudowano statystyki {} quizów w {} ms", quizzes, (System.nanoTime() - start) / 1_000_000);
+        return quizzes;
+    }
+
+    /**
+     * Zwraca statystyki podanych quizów.
+     *
+     * @param quizIds ID quizów.
+     * @return Mapa ID quizu -> statystyki (quizy bez prób mogą nie mieć wpisu).
+     */
+    public Map<Long, QuizStats> findByQuizIds(Collection<Long> quizIds) {
+        return quizStatsRepository.findAllById(quizIds).stream()
+                .collect(Collectors.toMap(QuizStats::getQuizId, Function.identity()));
+    }
+
+    /**
+     * Buduje statystyki przy pierwszym uruchomieniu z nową tabelą, jeśli w bazie są już wyniki.
+     * Wywołanie rebuild() przez this pominęłoby @Transactional, więc przebudowa jest wykonywana w TransactionTemplate.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        Integer stats = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"quiz_stats\"", Integer.class);
+        Integer results = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM \"quiz_results\" LIMIT 1)", Integer.class);
+        if (stats != null && stats == 0 && results != null && results > 0) {
+            log.info("Tabela statystyk quizów jest pusta, budowanie z istniejących wyników");
+            transactionTemplate.execute(status -> rebuildStats());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.controllers.SubmissionResultDTO;
+import org.example.dto.QuizAnswerDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @brief
+ * Usługa odpowiedzialna za ocenianie i zapisywanie przesłanych odpowiedzi na quiz.
+ * Ocenianie odbywa się synchronicznie w pamięci na podstawie kluczy odpowiedzi z GradingKeyCache,
+ * a wynik wraz ze wszystkimi odpowiedziami trafia do kolejki SubmissionWriter,
+ * który zapisuje go w tle w transakcji grupującej wiele zgłoszeń.
+ * Jeśli klient przesłał token próby, ocena obejmuje dokładnie pytania wydane w tej próbie.
+ */
+@Slf4j
+@Service
+public class QuizSubmissionService {
+
+    private final GradingKeyCache gradingKeyCache;
+    private final SubmissionWriter submissionWriter;
+    private final AttemptKeyRegistry attemptKeyRegistry;
+    private final AttemptTokenService attemptTokenService;
+    private final boolean requireAttemptToken;
+
+    /**
+     * @brief Konstruktor wstrzykujący zależności.
+     * @param gradingKeyCache Pamięć podręczna kluczy odpowiedzi.
+     * @param submissionWriter Komponent zapisujący wyniki w tle.
+     * @param attemptKeyRegistry Rejestr kluczy prób chroniący przed powtórnym zapisem.
+     * @param attemptTokenService Usługa weryfikująca tokeny prób.
+     * @param requireAttemptToken Czy przesłanie quizu bez tokenu próby jest odrzucane.
+     */
+    @Autowired
+    public QuizSubmissionService(GradingKeyCache gradingKeyCache,
+                                 SubmissionWriter submissionWriter,
+                                 AttemptKeyRegistry attemptKeyRegistry,
+                                 AttemptTokenService attemptTokenService,
+                                 @Value("${quiz.attempt.require-token:false}") boolean requireAttemptToken) {
+        this.gradingKeyCache = gradingKeyCache;
+        this.submissionWriter = submissionWriter;
+        this.attemptKeyRegistry = attemptKeyRegistry;
+        this.attemptTokenService = attemptTokenService;
+        this.requireAttemptToken = requireAttemptToken;
+    }
+
+    /**
+     * @brief Przesyła quiz, pomijając powtórzenia z tym samym kluczem próby.
+     * Jeśli klucz próby został już użyty przez użytkownika w tym quizie, zwracany jest pierwotny wynik,
+     * bez ponownego oceniania i zapisu.
+     * @param userId ID użytkownika przesyłającego quiz.
+     * @param quizId ID quizu.
+     * @param attemptKey Klucz próby przesłany przez klienta lub null.
+     * @param attemptToken Token próby wydany przy pobraniu quizu lub null.
+     * @param answers Lista odpowiedzi użytkownika.
+     * @return Obiekt SubmissionResultDTO z wynikiem.
+     */
+    public SubmissionResultDTO submit(Long userId, Long quizId, String attemptKey, String attemptToken,
+                                      List<QuizAnswerDTO> answers) {
+        if (attemptKey == null) {
+            return grade(userId, quizId, null, attemptToken, answers);
+        }
+        return attemptKeyRegistry.submitOnce(userId, quizId, attemptKey,
+                () -> grade(userId, quizId, attemptKey, attemptToken, answers));
+    }
+
+    /**
+     * @brief Ocenia odpowiedzi użytkownika i przekazuje wynik quizu razem z odpowiedziami do zapisu.
+     * Wynik jest zwracany od razu; wiersze w bazie pojawiają się po zatwierdzeniu najbliższego wsadu.
+     * Przy trafieniu w pamięć podręczną pytania nie są w ogóle odczytywane z bazy.
+     * Z tokenem próby liczba pytań to liczba pytań wydanych w próbie, a pytania bez odpowiedzi
+     * są zapisywane z pustą odpowiedzią jako niepoprawne.
+     * @param userId ID użytkownika przesyłającego quiz.
+     * @param quizId ID quizu.
+     * @param attemptKey Klucz próby zapisywany razem z wynikiem lub null.
+     * @param attemptToken Token próby lub null.
+     * @param answers Lista odpowiedzi użytkownika.
+     * @return Obiekt SubmissionResultDTO z wynikiem.
+     * @throws RuntimeException jeśli któreś z pytań nie należy do quizu, nie istnieje lub nie ma odpowiedzi.
+     * @throws InvalidAttemptException jeśli token próby jest nieprawidłowy, nieaktualny lub odpowiedzi do niego nie pasują.
+     * @throws IllegalArgumentException jeśli typ pytania jest nieznany.
+     * @throws SubmissionQueueFullException jeśli kolejka zapisu jest pełna.
+     */
+    private SubmissionResultDTO grade(Long userId, Long quizId, String attemptKey, String attemptToken,
+                                      List<QuizAnswerDTO> answers) {
+        QuizGradingKeys quizKeys = gradingKeyCache.get(quizId);
+        if (attemptToken == null && requireAttemptToken) {
+            throw new InvalidAttemptException(400, "Brak tokenu próby");
+        }
+        long[] servedQuestionIds = attemptToken != null
+                ? servedQuestions(userId, quizId, attemptToken, quizKeys)
+                : null;
+
+        Map<Long, String> userAnswers = new HashMap<>();
+        for (QuizAnswerDTO answer : answers) {
+            QuizGradingKey gradingKey = answer.questionId() != null ? quizKeys.keys().get(answer.questionId()) : null;
+            if (gradingKey == null) {
+                log.error("Pytanie nie znalezione z ID: {} w quizie {}", answer.questionId(), quizId);
+                throw new RuntimeException("Pytanie nie znalezione");
+            }
+            if (answer.answer() == null) {
+                log.error("Brak odpowiedzi na pytanie {} w quizie {}", answer.questionId(), quizId);
+                throw new RuntimeException("Brak odpowiedzi na pytanie");
+            }
+            if (servedQuestionIds != null) {
+                if (!contains(servedQuestionIds, answer.questionId())) {
+                    log.warn("Odpowiedź na pytanie {} spoza próby w quizie {} (użytkownik {})",
+                            answer.questionId(), quizId, userId);
+                    throw new InvalidAttemptException(400, "Pytanie nie należy do tej próby");
+                }
+                if (userAnswers.put(answer.questionId(), answer.answer()) != null) {
+                    throw new InvalidAttemptException(400, "Zduplikowana odpowiedź na pytanie");
+                }
+            }
+        }
+
+        List<QueuedSubmission.Answer> gradedAnswers;
+        if (servedQuestionIds != null) {
+            gradedAnswers = new ArrayList<>(servedQuestionIds.length);
+            for (long questionId : servedQuestionIds) {
+                String userAnswer = userAnswers.get(questionId);
+                boolean isCorrect = userAnswer != null && quizKeys.keys().get(questionId).matches(userAnswer);
+                gradedAnswers.add(new QueuedSubmission.Answer(questionId, userAnswer != null ? userAnswer : "", isCorrect));
+            }
+        } else {
+            gradedAnswers = new ArrayList<>(answers.size());
+            for (QuizAnswerDTO answer : answers) {
+                boolean isCorrect = quizKeys.keys().get(answer.questionId()).matches(answer.answer());
+                gradedAnswers.add(new QueuedSubmission.Answer(answer.questionId(), answer.answer(), isCorrect));
+            }
+        }
+
+        int totalQuestions = gradedAnswers.size();
+        int correctAnswers = 0;
+        for (QueuedSubmission.Answer answer : gradedAnswers) {
+            log.trace("Walidacja dla pytania {}: {}", answer.questionId(), answer.correct() ? "poprawna" : "niepoprawna");
+            if (answer.correct()) {
+                correctAnswers++;
+            }
+        }
+
+        submissionWriter.enqueue(new QueuedSubmission(
+                userId, quizId, correctAnswers, totalQuestions, LocalDateTime.now(), attemptKey,
+                List.copyOf(gradedAnswers)));
+
+        log.info("Wyniki quizu {} przekazane do zapisu dla użytkownika {}. Wynik: {}/{}",
+                quizId, userId, correctAnswers, totalQuestions);
+
+        return new SubmissionResultDTO(
+                true,
+                correctAnswers + "/" + totalQuestions,
+                correctAnswers,
+                totalQuestions,
+                totalQuestions > 0 ? (correctAnswers * 100.0) / totalQuestions : 0.0
+        );
+    }
+
+    /**
+     * @brief Weryfikuje token próby i odtwarza zestaw pytań wydany w tej próbie.
+     * @param userId ID użytkownika przesyłającego quiz.
+     * @param quizId ID quizu.
+     * @param attemptToken Token próby.
+     * @param quizKeys Aktualne klucze odpowiedzi quizu.
+     * @return ID pytań wydanych w próbie.
+     * @throws InvalidAttemptException jeśli token jest nieprawidłowy, obcy lub dotyczy starszej wersji quizu.
+     */
+    private long[] servedQuestions(Long userId, Long quizId, String attemptToken, QuizGradingKeys quizKeys) {
+        AttemptTokenService.Attempt attempt;
+        try {
+            attempt = attemptTokenService.decode(attemptToken);
+        } catch (IllegalArgumentException e) {
+            log.warn("Odrzucono token próby dla quizu {} (użytkownik {}): {}", quizId, userId, e.getMessage());
+            throw new InvalidAttemptException(400, e.getMessage());
+        }
+        if (attempt.quizId() != quizId || attempt.userId() != userId) {
+            log.warn("Token próby nie pasuje do quizu {} lub użytkownika {}", quizId, userId);
+            throw new InvalidAttemptException(400, "Token próby nie dotyczy tego quizu");
+        }
+        if (attempt.questionsVersion() != quizKeys.questionsVersion()) {
+            log.info("Token próby dla quizu {} dotyczy wersji {}, aktualna wersja {}",
+                    quizId, attempt.questionsVersion(), quizKeys.questionsVersion());
+            throw new InvalidAttemptException(409, "Quiz został zmieniony, rozpocznij go ponownie");
+        }
+        return AttemptSelection.selectQuestions(quizKeys.questionIds(), quizKeys.questionsToDisplay(), attempt.seed());
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
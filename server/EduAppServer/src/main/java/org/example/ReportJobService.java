@@ -0,0 +1,302 @@
+package org.example;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Usługa asynchronicznego generowania raportów PDF z wynikami quizów.
+ * Zadania są wykonywane przez ograniczoną pulę wątków, niezależną od wątków obsługujących żądania HTTP.
+ * Gotowe raporty są zapisywane na dysku pod kluczem (ID quizu, wersja wyników), gdzie wersja
+ * zmienia się przy każdym dodaniu lub usunięciu wyniku oraz przy zmianie pytań lub tytułu quizu.
+ * Zlecenie raportu, którego plik już istnieje, kończy się od razu bez ponownego renderowania,
+ * a równoległe zlecenia tego samego raportu są łączone w jedno zadanie.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+
+    /**
+     * Stan zadania generowania raportu.
+     */
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * Migawka zadania zwracana klientom.
+     *
+     * @param id ID zadania.
+     * @param quizId ID quizu.
+     * @param owners Nazwy użytkowników, którzy zlecili raport (mają dostęp do zadania).
+     * @param status Stan zadania.
+     * @param cached Czy raport został wzięty z dysku bez ponownego renderowania.
+     * @param message Opis błędu (dla stanu FAILED).
+     * @param file Plik gotowego raportu (dla stanu DONE).
+     */
+    public record JobInfo(String id, Long quizId, Set<String> owners, Status status, boolean cached, String message, Path file) {}
+
+    private static final String SELECT_VERSION =
+            "SELECT q.\"questions_version\", q.\"title\", COALESCE(s.\"results_version\", 0) " +
+                    "FROM \"quizzes\" q LEFT JOIN \"quiz_stats\" s ON s.\"quiz_id\" = q.\"id\" WHERE q.\"id\" = ?";
+
+    private final PdfGenerationService pdfGenerationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final Duration jobTtl;
+    private final int retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Zadania wg ID; zakończone zadania są usuwane po upływie jobTtl.
+     */
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Zadania oczekujące lub trwające wg klucza artefaktu (łączenie równoległych zleceń).
+     */
+    private final ConcurrentHashMap<String, Job> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Konstruktor wstrzykujący zależności i konfigurację.
+     *
+     * @param pdfGenerationService Usługa generowania raportów PDF.
+     * @param jdbcTemplate Szablon JDBC.
+     * @param directory Katalog, w którym przechowywane są gotowe raporty.
+     * @param threads Liczba wątków generujących raporty.
+     * @param queueCapacity Maksymalna liczba zadań oczekujących na wykonanie.
+     * @param jobTtlMinutes Czas przechowywania informacji o zakończonym zadaniu.
+     * @param retryAfterSeconds Wartość nagłówka Retry-After przy pełnej kolejce.
+     * @throws IOException gdy nie można utworzyć katalogu raportów.
+     */
+    @Autowired
+    public ReportJobService(PdfGenerationService pdfGenerationService,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${quiz.report.jobs.dir:${java.io.tmpdir}/eduapp-reports}") String directory,
+                            @Value("${quiz.report.jobs.threads:2}") int threads,
+                            @Value("${quiz.report.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${quiz.report.jobs.ttl-minutes:60}") long jobTtlMinutes,
+                            @Value("${quiz.report.jobs.retry-after-seconds:10}") int retryAfterSeconds) throws IOException {
+        this.pdfGenerationService = pdfGenerationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.jobTtl = Duration.ofMinutes(jobTtlMinutes);
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "quiz-report-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Raporty PDF zapisywane w katalogu {} ({} wątków, kolejka {})", this.directory, threads, queueCapacity);
+    }
+
+    /**
+     * Zleca wygenerowanie raportu PDF wyników quizu. Jeśli raport dla bieżącej wersji wyników jest już na dysku,
+     * zadanie jest od razu zakończone; jeśli taki raport jest właśnie generowany, zwracane jest istniejące zadanie.
+     *
+     * @param quizId ID quizu.
+     * @param owner Nazwa użytkownika zlecającego raport.
+     * @return Migawka zadania.
+     * @throws ReportQueueFullException gdy kolejka zadań jest pełna.
+     * @throws NoSuchElementException gdy quiz nie istnieje.
+     */
+    public JobInfo submit(Long quizId, String owner) {
+        purgeExpired();
+        submitted.increment();
+        String key = artifactKey(quizId);
+        Path file = directory.resolve(key + ".pdf");
+
+        if (Files.exists(file)) {
+            cacheHits.increment();
+            Job job = new Job(quizId, owner, key, file);
+            job.cached = true;
+            job.finish(Status.DONE, null);
+            jobs.put(job.id, job);
+            log.debug("Raport quizu {} pobrany z dysku ({})", quizId, key);
+            return job.info();
+        }
+
+        Job job = new Job(quizId, owner, key, file);
+        Job existing = inFlight.putIfAbsent(key, job);
+        if (existing != null) {
+            log.debug("Raport quizu {} jest już generowany (zadanie {})", quizId, existing.id);
+            existing.owners.add(owner);
+            return existing.info();
+        }
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> render(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            inFlight.remove(key, job);
+            rejected.increment();
+            log.warn("Odrzucono zadanie raportu quizu {} - kolejka jest pełna", quizId);
+            throw new ReportQueueFullException(retryAfterSeconds);
+        }
+        log.info("Zlecono raport PDF quizu {} przez {} (zadanie {})", quizId, owner, job.id);
+        return job.info();
+    }
+
+    /**
+     * Zwraca stan zadania.
+     *
+     * @param jobId ID zadania.
+     * @return Migawka zadania lub pusty Optional, jeśli zadanie nie istnieje lub wygasło.
+     */
+    public Optional<JobInfo> find(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? Optional.of(job.info()) : Optional.empty();
+    }
+
+    private void render(Job job) {
+        job.status = Status.RUNNING;
+        long start = System.nanoTime();
+        Path temp = null;
+        try {
+            String quizTitle = jdbcTemplate.queryForObject(
+                    "SELECT \"title\" FROM \"quizzes\" WHERE \"id\" = ?", String.class, job.quizId);
+            temp = Files.createTempFile(directory, job.key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                pdfGenerationService.writeQuizResultsPdf(job.quizId, quizTitle, out);
+            }
+            Files.move(temp, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            removeOlderVersions(job);
+            rendered.increment();
+            job.finish(Status.DONE, null);
+            log.info("Wygenerowano raport quizu {} w {} ms (zadanie {})",
+                    job.quizId, (System.nanoTime() - start) / 1_000_000, job.id);
+        } catch (Exception e) {
+            failed.increment();
+            job.finish(Status.FAILED, "Nie udało się wygenerować raportu");
+            log.error("Błąd generowania raportu quizu {} (zadanie {}): {}", job.quizId, job.id, e.getMessage(), e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // plik tymczasowy zostanie nadpisany lub usunięty przy kolejnym raporcie
+                }
+            }
+        } finally {
+            inFlight.remove(job.key, job);
+        }
+    }
+
+    /**
+     * Wyznacza klucz artefaktu: ID quizu, wersja pytań, wersja wyników i skrót tytułu.
+     * Wersja wyników to licznik z "quiz_stats", zwiększany przy każdym zapisie i usunięciu wyniku
+     * (QuizStatsService); liczba i maksymalne ID wyników nie wystarczą, bo SQLite po usunięciu
+     * ostatniego wiersza może ponownie nadać jego ID.
+     */
+    private String artifactKey(Long quizId) {
+        List<String> keys = jdbcTemplate.query(SELECT_VERSION, (rs, rowNum) -> String.format("quiz-%d-v%d-r%d-%08x",
+                quizId, rs.getLong(1), rs.getLong(3), Objects.hashCode(rs.getString(2))), quizId);
+        if (keys.isEmpty()) {
+            throw new NoSuchElementException("Quiz nie znaleziony");
+        }
+        return keys.get(0);
+    }
+
+    private void removeOlderVersions(Job job) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "quiz-" + job.quizId + "-v*.pdf")) {
+            for (Path file : files) {
+                if (!file.equals(job.file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void purgeExpired() {
+        Instant limit = Instant.now().minus(jobTtl);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(limit));
+    }
+
+    /**
+     * Zwraca metryki zadań raportów.
+     *
+     * @return Mapa z liczbą zadań w kolejce, aktywnych i licznikami zleceń.
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "queued", executor.getQueue().size(),
+                "active", executor.getActiveCount(),
+                "trackedJobs", jobs.size(),
+                "submitted", submitted.sum(),
+                "rendered", rendered.sum(),
+                "cacheHits", cacheHits.sum(),
+                "failed", failed.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+
+    /**
+     * Zatrzymuje pulę wątków przy zamykaniu aplikacji; niedokończone raporty nie są zapisywane.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Zadanie generowania raportu. Równoległe zlecenia tego samego raportu dopisują się do listy właścicieli.
+     */
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final Long quizId;
+        private final String key;
+        private final Path file;
+        private final Set<String> owners = new CopyOnWriteArraySet<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile boolean cached;
+        private volatile String message;
+        private volatile Instant finishedAt;
+
+        private Job(Long quizId, String owner, String key, Path file) {
+            this.quizId = quizId;
+            this.key = key;
+            this.file = file;
+            this.owners.add(owner);
+        }
+
+        private void finish(Status finalStatus, String finalMessage) {
+            message = finalMessage;
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        private JobInfo info() {
+            Status current = status;
+            return new JobInfo(id, quizId, Set.copyOf(owners), current, cached, message,
+                    current == Status.DONE ? file : null);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+/**
+ * @brief
+ * Wyjątek zgłaszany, gdy kolejka zadań generowania raportów jest pełna.
+ * Kontroler zamienia go na odpowiedź 503 z nagłówkiem Retry-After.
+ */
+public class ReportQueueFullException extends RuntimeException {
+
+    /**
+     * Sugerowany czas (w sekundach), po którym klient powinien ponowić żądanie.
+     */
+    private final int retryAfterSeconds;
+
+    /**
+     * Konstruktor wyjątku.
+     *
+     * @param retryAfterSeconds Sugerowany czas ponowienia w sekundach.
+     */
+    public ReportQueueFullException(int retryAfterSeconds) {
+        super("Kolejka zadań generowania raportów jest pełna");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,199 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * @brief
+ * Usługa postępów studenta we wszystkich kursach, na które jest zapisany: liczba quizów, liczba quizów
+ * rozwiązanych, najlepsze i ostatnie wyniki. Postępy są liczone trzema zapytaniami agregującymi
+ * (kursy z liczbą quizów, próby pogrupowane po quizie, ostatnia próba każdego quizu)
+ * i przechowywane w ograniczonej pamięci podręcznej (LRU, zob. BoundedCache) indeksowanej ID użytkownika.
+ * Wpis użytkownika jest unieważniany przy jego zgłoszeniach, usunięciu wyniku oraz zmianie zapisów na kursy;
+ * zmiany quizów i kursów unieważniają wszystkie wpisy (zob. evict, evictAll).
+ */
+@Slf4j
+@Service
+public class StudentProgressService {
+
+    private static final String SELECT_COURSES =
+            "SELECT c.\"id\", c.\"course_name\", " +
+                    "(SELECT COUNT(*) FROM \"quizzes\" q WHERE q.\"course_id\" = c.\"id\") AS quiz_count " +
+                    "FROM \"user_courses\" uc " +
+                    "JOIN \"courses\" c ON c.\"id\" = uc.\"course_id\" " +
+                    "WHERE uc.\"user_id\" = ? " +
+                    "ORDER BY c.\"course_name\", c.\"id\"";
+    private static final String SELECT_QUIZ_ATTEMPTS =
+            "SELECT q.\"course_id\", q.\"id\" AS quiz_id, q.\"title\", COUNT(*) AS attempts, " +
+                    "MAX(CASE WHEN r.\"total_questions\" > 0 " +
+                    "THEN r.\"correct_answers\" * 100.0 / r.\"total_questions\" ELSE 0 END) AS best_score " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"quizzes\" q ON q.\"id\" = r.\"quiz_id\" " +
+                    "JOIN \"user_courses\" uc ON uc.\"course_id\" = q.\"course_id\" AND uc.\"user_id\" = r.\"user_id\" " +
+                    "WHERE r.\"user_id\" = ? " +
+                    "GROUP BY q.\"course_id\", q.\"id\", q.\"title\" " +
+                    "ORDER BY q.\"course_id\", q.\"id\"";
+    private static final String SELECT_LATEST_ATTEMPTS =
+            "SELECT r.\"quiz_id\", r.\"correct_answers\", r.\"total_questions\", r.\"completion_date\" " +
+                    "FROM \"quiz_results\" r " +
+                    "WHERE r.\"user_id\" = ? AND r.\"id\" = (" +
+                    "SELECT l.\"id\" FROM \"quiz_results\" l " +
+                    "WHERE l.\"user_id\" = r.\"user_id\" AND l.\"quiz_id\" = r.\"quiz_id\" " +
+                    "ORDER BY l.\"completion_date\" DESC, l.\"id\" DESC LIMIT 1)";
+
+    /**
+     * Postęp w jednym quizie.
+     *
+     * @param quizId ID quizu.
+     * @param title Tytuł quizu.
+     * @param attempts Liczba prób.
+     * @param bestScore Najlepszy wynik procentowy.
+     * @param latestScore Wynik procentowy ostatniej próby.
+     * @param lastAttempt Data ostatniej próby.
+     */
+    public record QuizProgress(Long quizId, String title, int attempts, double bestScore,
+                               double latestScore, LocalDateTime lastAttempt) {}
+
+    /**
+     * Postęp w jednym kursie.
+     *
+     * @param courseId ID kursu.
+     * @param courseName Nazwa kursu.
+     * @param quizCount Liczba quizów w kursie.
+     * @param attemptedCount Liczba quizów, do których student podszedł co najmniej raz.
+     * @param averageBestScore Średnia najlepszych wyników z rozwiązanych quizów (null, jeśli brak prób).
+     * @param latestScore Wynik ostatniej próby w kursie (null, jeśli brak prób).
+     * @param lastAttempt Data ostatniej próby w kursie (null, jeśli brak prób).
+     * @param quizzes Postępy w rozwiązanych quizach kursu.
+     */
+    public record CourseProgress(Long courseId, String courseName, int quizCount, int attemptedCount,
+                                 Double averageBestScore, Double latestScore, LocalDateTime lastAttempt,
+                                 List<QuizProgress> quizzes) {}
+
+    private record LatestAttempt(double score, LocalDateTime date) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoundedCache<Long, List<CourseProgress>> cache;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param maxSize Maksymalna liczba użytkowników, których postępy są przechowywane w pamięci.
+     */
+    @Autowired
+    public StudentProgressService(JdbcTemplate jdbcTemplate,
+                                  @Value("${quiz.progress.cache-max-size:2048}") int maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new BoundedCache<>("student-progress", maxSize);
+    }
+
+    /**
+     * Zwraca postępy użytkownika we wszystkich kursach, na które jest zapisany.
+     *
+     * @param userId ID użytkownika.
+     * @return Niemodyfikowalna lista postępów w kursach.
+     */
+    public List<CourseProgress> get(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    private List<CourseProgress> load(Long userId) {
+        Map<Long, LatestAttempt> latest = new HashMap<>();
+        jdbcTemplate.query(SELECT_LATEST_ATTEMPTS, rs -> {
+            Timestamp date = rs.getTimestamp("completion_date");
+            latest.put(rs.getLong("quiz_id"), new LatestAttempt(
+                    QuizStatsService.score(rs.getInt("correct_answers"), rs.getInt("total_questions")),
+                    date != null ? date.toLocalDateTime() : null));
+        }, userId);
+
+        Map<Long, List<QuizProgress>> quizzesByCourse = new HashMap<>();
+        jdbcTemplate.query(SELECT_QUIZ_ATTEMPTS, rs -> {
+            long quizId = rs.getLong("quiz_id");
+            LatestAttempt last = latest.get(quizId);
+            quizzesByCourse.computeIfAbsent(rs.getLong("course_id"), id -> new ArrayList<>())
+                    .add(new QuizProgress(quizId, rs.getString("title"), rs.getInt("attempts"),
+                            round(rs.getDouble("best_score")),
+                            last != null ? round(last.score()) : 0.0,
+                            last != null ? last.date() : null));
+        }, userId);
+
+        List<CourseProgress> courses = new ArrayList<>();
+        jdbcTemplate.query(SELECT_COURSES, rs -> {
+            long courseId = rs.getLong("id");
+            List<QuizProgress> quizzes = quizzesByCourse.getOrDefault(courseId, List.of());
+            Double averageBestScore = null;
+            QuizProgress newest = null;
+            if (!quizzes.isEmpty()) {
+                double sum = 0;
+                for (QuizProgress quiz : quizzes) {
+                    sum += quiz.bestScore();
+                    if (newest == null || isAfter(quiz.lastAttempt(), newest.lastAttempt())) {
+                        newest = quiz;
+                    }
+                }
+                averageBestScore = round(sum / quizzes.size());
+            }
+            courses.add(new CourseProgress(
+                    courseId,
+                    rs.getString("course_name"),
+                    rs.getInt("quiz_count"),
+                    quizzes.size(),
+                    averageBestScore,
+                    newest != null ? newest.latestScore() : null,
+                    newest != null ? newest.lastAttempt() : null,
+                    List.copyOf(quizzes)));
+        }, userId);
+        return List.copyOf(courses);
+    }
+
+    private static boolean isAfter(LocalDateTime candidate, LocalDateTime current) {
+        return candidate != null && (current == null || candidate.isAfter(current));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Usuwa wpis użytkownika. Wywołane wewnątrz transakcji usuwa wpis ponownie po jej zatwierdzeniu,
+     * aby równoległe wczytanie nie zapisało nieaktualnych postępów.
+     *
+     * @param userId ID użytkownika.
+     */
+    public void evict(Long userId) {
+        evictUsers(List.of(userId));
+    }
+
+    /**
+     * Usuwa wpisy użytkowników (np. wszystkich autorów zgłoszeń z jednego wsadu).
+     *
+     * @param userIds ID użytkowników.
+     */
+    public void evictUsers(Collection<Long> userIds) {
+        cache.evictKeys(userIds);
+    }
+
+    /**
+     * Usuwa wszystkie wpisy; używane przy zmianach quizów i kursów, które dotyczą wielu studentów.
+     */
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+}
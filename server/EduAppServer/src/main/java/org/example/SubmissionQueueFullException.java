@@ -0,0 +1,28 @@
+package org.example;
+
+/**
+ * @brief
+ * Wyjątek zgłaszany, gdy kolejka zapisu wyników quizów jest pełna lub zamykana.
+ * Kontroler zamienia go na odpowiedź 503 z nagłówkiem Retry-After.
+ */
+public class SubmissionQueueFullException extends RuntimeException {
+
+    /**
+     * Sugerowany czas (w sekundach), po którym klient powinien ponowić żądanie.
+     */
+    private final int retryAfterSeconds;
+
+    /**
+     * Konstruktor wyjątku.
+     *
+     * @param retryAfterSeconds Sugerowany czas ponowienia w sekundach.
+     */
+    public SubmissionQueueFullException(int retryAfterSeconds) {
+        super("Kolejka zapisu wyników jest pełna");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
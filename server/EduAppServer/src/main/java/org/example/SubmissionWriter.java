@@ -0,0 +1,277 @@
+package org.example;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Komponent zapisujący ocenione quizy do bazy danych w tle (write-behind).
+ * Przesłane quizy trafiają do ograniczonej kolejki, którą opróżnia jeden wątek zapisujący.
+ * Wątek grupuje zgłoszenia i zatwierdza je wsadowo: jedna transakcja obejmuje do batch-size
+ * zgłoszeń lub wszystkie zgłoszenia zebrane w ciągu flush-interval-ms.
+ * Dzięki temu SQLite ma tylko jednego pisarza, a szczyt zgłoszeń nie kończy się błędami SQLITE_BUSY.
+ */
+@Slf4j
+@Component
+public class SubmissionWriter {
+
+    private static final String INSERT_RESULT =
+            "INSERT INTO \"quiz_results\" (\"user_id\", \"quiz_id\", \"correct_answers\", \"total_questions\", \"completion_date\", \"attempt_key\") " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ANSWER =
+            "INSERT INTO \"quiz_answers\" (\"quiz_result_id\", \"question_id\", \"user_answer\", \"is_correct\") " +
+                    "VALUES (?, ?, ?, ?)";
+    /**
+     * ID ostatnio wstawionego wiersza na tym samym połączeniu (sterownik SQLite nie obsługuje getGeneratedKeys).
+     */
+    private static final String LAST_INSERT_ID = "SELECT last_insert_rowid()";
+    /**
+     * Maksymalny czas oczekiwania na pierwsze zgłoszenie, po którym wątek sprawdza flagę zamknięcia.
+     */
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final QuizStatsService quizStatsService;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
+    private final BlockingQueue<QueuedSubmission> queue;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int retryAfterSeconds;
+    private final long shutdownTimeoutMs;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder committedSubmissions = new LongAdder();
+    private final LongAdder committedBatches = new LongAdder();
+    private final LongAdder failedSubmissions = new LongAdder();
+    private final LongAdder totalCommitNanos = new LongAdder();
+    private final AtomicLong lastCommitNanos = new AtomicLong();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+
+    /**
+     * Konstruktor wstrzykujący zależności i konfigurację.
+     *
+     * @param jdbcTemplate Szablon JDBC używany do wsadowych zapisów.
+     * @param transactionManager Menedżer transakcji.
+     * @param quizStatsService Usługa statystyk quizów aktualizowanych w tej samej transakcji.
+     * @param studentProgressService Usługa postępów studentów, których wpisy są unieważniane po zapisie.
+     * @param leaderboardService Usługa rankingów aktualizowanych po zapisie.
+     * @param queueCapacity Pojemność kolejki zgłoszeń.
+     * @param batchSize Maksymalna liczba zgłoszeń w jednej transakcji.
+     * @param flushIntervalMs Maksymalny czas zbierania zgłoszeń do jednej transakcji.
+     * @param retryAfterSeconds Wartość nagłówka Retry-After przy pełnej kolejce.
+     * @param shutdownTimeoutMs Maksymalny czas opróżniania kolejki przy zamykaniu aplikacji.
+     */
+    @Autowired
+    public SubmissionWriter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            QuizStatsService quizStatsService,
+                            StudentProgressService studentProgressService,
+                            LeaderboardService leaderboardService,
+                            @Value("${quiz.submission.queue-capacity:2000}") int queueCapacity,
+                            @Value("${quiz.submission.batch-size:50}") int batchSize,
+                            @Value("${quiz.submission.flush-interval-ms:50}") long flushIntervalMs,
+                            @Value("${quiz.submission.retry-after-seconds:2}") int retryAfterSeconds,
+                            @Value("${quiz.submission.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.quizStatsService = quizStatsService;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * Uruchamia wątek zapisujący.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "quiz-submission-writer");
+        writerThread.start();
+        log.info("Uruchomiono wątek zapisu wyników quizów (kolejka: {}, wsad: {})", queueCapacity, batchSize);
+    }
+
+    /**
+     * Zatrzymuje przyjmowanie zgłoszeń i czeka, aż wątek zapisujący opróżni kolejkę.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Zamknięto aplikację z {} niezapisanymi wynikami quizów w kolejce", queue.size());
+        } else {
+            log.info("Kolejka zapisu wyników quizów opróżniona");
+        }
+    }
+
+    /**
+     * Dodaje oceniony quiz do kolejki zapisu.
+     *
+     * @param submission Oceniony quiz.
+     * @throws SubmissionQueueFullException jeśli kolejka jest pełna lub komponent jest zamykany.
+     */
+    public void enqueue(QueuedSubmission submission) {
+        if (!running || !queue.offer(submission)) {
+            rejected.increment();
+            log.warn("Odrzucono zapis quizu {} użytkownika {} - kolejka pełna ({})",
+                    submission.quizId(), submission.userId(), queue.size());
+            throw new SubmissionQueueFullException(retryAfterSeconds);
+        }
+        enqueued.increment();
+    }
+
+    /**
+     * Pętla wątku zapisującego. Zbiera zgłoszenia do wsadu i zatwierdza je w jednej transakcji.
+     * Po zatrzymaniu komponentu kontynuuje pracę, dopóki kolejka nie zostanie opróżniona.
+     */
+    private void run() {
+        List<QueuedSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedSubmission first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (running && batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    QueuedSubmission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                commit(batch);
+            } catch (InterruptedException e) {
+                log.warn("Wątek zapisu wyników quizów został przerwany");
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Zatwierdza wsad zgłoszeń w jednej transakcji. Jeśli transakcja się nie powiedzie,
+     * zgłoszenia są zapisywane pojedynczo, aby jedno błędne zgłoszenie nie blokowało pozostałych.
+     *
+     * @param batch Lista zgłoszeń do zapisania.
+     */
+    private void commit(List<QueuedSubmission> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            recordCommit(batch.size(), System.nanoTime() - start);
+        } catch (Exception e) {
+            log.error("Błąd zapisu wsadu {} wyników quizów, ponawianie pojedynczo: {}", batch.size(), e.getMessage(), e);
+            for (QueuedSubmission submission : batch) {
+                long singleStart = System.nanoTime();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(submission)));
+                    recordCommit(1, System.nanoTime() - singleStart);
+                } catch (Exception single) {
+                    failedSubmissions.increment();
+                    log.error("Nie udało się zapisać wyniku quizu {} użytkownika {}: {}",
+                            submission.quizId(), submission.userId(), single.getMessage(), single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wstawia wiersze wyników (ID wyniku jest odczytywane przez last_insert_rowid() w tej samej transakcji), a następnie wszystkie odpowiedzi wsadu jednym poleceniem wsadowym JDBC
+     * i dolicza wsad do statystyk quizów (QuizStatsService). Postępy autorów zgłoszeń są unieważniane
+     * po zatwierdzeniu transakcji (StudentProgressService), a wyniki dopisywane do rankingów (LeaderboardService).
+     *
+     * @param batch Lista zgłoszeń do zapisania.
+     */
+    private void insert(List<QueuedSubmission> batch) {
+        List<Object[]> answerRows = new ArrayList<>();
+        for (QueuedSubmission submission : batch) {
+            jdbcTemplate.update(INSERT_RESULT, submission.userId(), submission.quizId(), submission.correctAnswers(),
+                    submission.totalQuestions(), Timestamp.valueOf(submission.completionDate()), submission.attemptKey());
+            long resultId = jdbcTemplate.queryForObject(LAST_INSERT_ID, Long.class);
+            for (QueuedSubmission.Answer answer : submission.answers()) {
+                answerRows.add(new Object[]{resultId, answer.questionId(), answer.userAnswer(), answer.correct()});
+            }
+        }
+        if (!answerRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ANSWER, answerRows);
+        }
+        quizStatsService.recordSubmissions(batch);
+        studentProgressService.evictUsers(batch.stream().map(QueuedSubmission::userId).toList());
+        leaderboardService.recordSubmissions(batch);
+    }
+
+    private void recordCommit(int submissions, long nanos) {
+        committedSubmissions.add(submissions);
+        committedBatches.increment();
+        totalCommitNanos.add(nanos);
+        lastCommitNanos.set(nanos);
+        maxCommitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Zwraca metryki kolejki i zapisów wsadowych.
+     *
+     * @return Mapa z głębokością kolejki, licznikami zgłoszeń i czasami zatwierdzania (ms).
+     */
+    public Map<String, Object> stats() {
+        long batches = committedBatches.sum();
+        return Map.of(
+                "queueDepth", queue.size(),
+                "queueCapacity", queueCapacity,
+                "enqueued", enqueued.sum(),
+                "rejected", rejected.sum(),
+                "committedSubmissions", committedSubmissions.sum(),
+                "committedBatches", batches,
+                "failedSubmissions", failedSubmissions.sum(),
+                "lastCommitMs", lastCommitNanos.get() / 1_000_000.0,
+                "avgCommitMs", batches == 0 ? 0.0 : totalCommitNanos.sum() / 1_000_000.0 / batches,
+                "maxCommitMs", maxCommitNanos.get() / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief
+ * Usługa pulpitu nauczyciela: dla każdego kursu nauczyciela liczba zapisanych studentów, liczba quizów,
+ * liczba prób (łącznie i z ostatnich dni) oraz średni wynik. Wszystkie kursy są liczone dwoma zapytaniami
+ * grupującymi (kursy z liczbą studentów i quizów oraz próby pogrupowane po kursie) zamiast osobnych
+ * zapytań dla każdego kursu. Wynik jest krótko przechowywany w pamięci podręcznej (BoundedCache)
+ * indeksowanej ID nauczyciela.
+ */
+@Slf4j
+@Service
+public class TeacherDashboardService {
+
+    private static final String SELECT_COURSES =
+            "SELECT c.\"id\", c.\"course_name\", COALESCE(e.students, 0) AS students, COALESCE(qz.quizzes, 0) AS quizzes " +
+                    "FROM \"courses\" c " +
+                    "LEFT JOIN (SELECT uc.\"course_id\", COUNT(*) AS students FROM \"user_courses\" uc " +
+                    "JOIN \"courses\" ec ON ec.\"id\" = uc.\"course_id\" WHERE ec.\"teacher_id\" = ? " +
+                    "GROUP BY uc.\"course_id\") e ON e.\"course_id\" = c.\"id\" " +
+                    "LEFT JOIN (SELECT q.\"course_id\", COUNT(*) AS quizzes FROM \"quizzes\" q " +
+                    "JOIN \"courses\" qc ON qc.\"id\" = q.\"course_id\" WHERE qc.\"teacher_id\" = ? " +
+                    "GROUP BY q.\"course_id\") qz ON qz.\"course_id\" = c.\"id\" " +
+                    "WHERE c.\"teacher_id\" = ? " +
+                    "ORDER BY c.\"course_name\", c.\"id\"";
+    private static final String SELECT_ATTEMPTS =
+            "SELECT q.\"course_id\", COUNT(*) AS attempts, " +
+                    "SUM(CASE WHEN r.\"completion_date\" >= ? THEN 1 ELSE 0 END) AS recent_attempts, " +
+                    "AVG(CASE WHEN r.\"total_questions\" > 0 " +
+                    "THEN r.\"correct_answers\" * 100.0 / r.\"total_questions\" ELSE 0 END) AS average_score " +
+                    "FROM \"quiz_results\" r " +
+                    "JOIN \"quizzes\" q ON q.\"id\" = r.\"quiz_id\" " +
+                    "JOIN \"courses\" c ON c.\"id\" = q.\"course_id\" " +
+                    "WHERE c.\"teacher_id\" = ? " +
+                    "GROUP BY q.\"course_id\"";
+
+    /**
+     * Podsumowanie jednego kursu.
+     *
+     * @param courseId ID kursu.
+     * @param courseName Nazwa kursu.
+     * @param students Liczba zapisanych studentów.
+     * @param quizzes Liczba quizów.
+     * @param attempts Liczba wszystkich prób.
+     * @param recentAttempts Liczba prób z ostatnich dni (quiz.dashboard.recent-days).
+     * @param averageScore Średni wynik procentowy wszystkich prób (null, jeśli brak prób).
+     */
+    public record CourseSummary(Long courseId, String courseName, int students, int quizzes,
+                                long attempts, long recentAttempts, Double averageScore) {}
+
+    /**
+     * Pulpit nauczyciela.
+     *
+     * @param recentDays Liczba dni, z których liczone są ostatnie próby.
+     * @param generatedAt Chwila wyliczenia (odpowiedź może pochodzić z pamięci podręcznej).
+     * @param courses Podsumowania kursów nauczyciela.
+     */
+    public record Dashboard(int recentDays, LocalDateTime generatedAt, List<CourseSummary> courses) {}
+
+    private record CourseAttempts(long attempts, long recentAttempts, double averageScore) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int recentDays;
+    private final BoundedCache<Long, Dashboard> cache;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     * @param recentDays Liczba dni, z których liczone są ostatnie próby.
+     * @param ttlSeconds Czas ważności wpisu pamięci podręcznej w sekundach.
+     * @param maxSize Maksymalna liczba nauczycieli w pamięci podręcznej.
+     */
+    @Autowired
+    public TeacherDashboardService(JdbcTemplate jdbcTemplate,
+                                   @Value("${quiz.dashboard.recent-days:7}") int recentDays,
+                                   @Value("${quiz.dashboard.cache-ttl-seconds:30}") long ttlSeconds,
+                                   @Value("${quiz.dashboard.cache-max-size:256}") int maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recentDays = recentDays;
+        this.cache = new BoundedCache<>("teacher-dashboard", maxSize, TimeUnit.SECONDS.toNanos(ttlSeconds));
+    }
+
+    /**
+     * Zwraca pulpit nauczyciela, z pamięci podręcznej, jeśli wpis jest jeszcze ważny.
+     *
+     * @param teacherId ID nauczyciela.
+     * @return Pulpit z podsumowaniami wszystkich kursów nauczyciela.
+     */
+    public Dashboard get(Long teacherId) {
+        return cache.get(teacherId, this::load);
+    }
+
+    private Dashboard load(Long teacherId) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, CourseAttempts> attempts = new HashMap<>();
+        jdbcTemplate.query(SELECT_ATTEMPTS, rs -> {
+            double average = rs.getDouble("average_score");
+            attempts.put(rs.getLong("course_id"), new CourseAttempts(
+                    rs.getLong("attempts"), rs.getLong("recent_attempts"), Math.round(average * 100.0) / 100.0));
+        }, Timestamp.valueOf(now.minusDays(recentDays)), teacherId);
+
+        List<CourseSummary> courses = new ArrayList<>();
+        jdbcTemplate.query(SELECT_COURSES, rs -> {
+            long courseId = rs.getLong("id");
+            CourseAttempts courseAttempts = attempts.get(courseId);
+            courses.add(new CourseSummary(
+                    courseId,
+                    rs.getString("course_name"),
+                    rs.getInt("students"),
+                    rs.getInt("quizzes"),
+                    courseAttempts != null ? courseAttempts.attempts() : 0L,
+                    courseAttempts != null ? courseAttempts.recentAttempts() : 0L,
+                    courseAttempts != null ? courseAttempts.averageScore() : null));
+        }, teacherId, teacherId, teacherId);
+        log.debug("Wyliczono pulpit nauczyciela {} ({} kursów) w {} ms",
+                teacherId, courses.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Dashboard(recentDays, now, List.copyOf(courses));
+    }
+
+    /**
+     * Usuwa wpis nauczyciela, np. po utworzeniu lub usunięciu kursu. Wywołane wewnątrz transakcji
+     * usuwa wpis ponownie po jej zatwierdzeniu.
+     *
+     * @param teacherId ID nauczyciela.
+     */
+    public void evict(Long teacherId) {
+        cache.evict(teacherId);
+    }
+
+    /**
+     * Zwraca statystyki pamięci podręcznej.
+     *
+     * @return Mapa z rozmiarem, limitem, czasem ważności oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.CertificateService;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+/**
+ * @brief Kontroler generowania certyfikatów dla studentów, którzy zaliczyli quiz.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/courses")
+public class CertificateController {
+
+    private final QuizRepository quizRepository;
+    private final CertificateService certificateService;
+
+    /**
+     * @brief Konstruktor wstrzykujący zależności.
+     * @param quizRepository Repozytorium quizów.
+     * @param certificateService Usługa generowania certyfikatów.
+     */
+    @Autowired
+    public CertificateController(QuizRepository quizRepository, CertificateService certificateService) {
+        this.quizRepository = quizRepository;
+        this.certificateService = certificateService;
+    }
+
+    /**
+     * @brief Generuje certyfikaty dla wszystkich studentów, którzy zaliczyli quiz (dostępne tylko dla TEACHER/ADMIN).
+     * Każdy student otrzymuje jeden certyfikat z najlepszym wynikiem; certyfikaty są renderowane równolegle
+     * i wysyłane strumieniowo (zob. CertificateService).
+     * @param quizId ID quizu.
+     * @param format zip (domyślny, osobny plik na studenta) lub pdf (jeden scalony dokument).
+     * @return ResponseEntity zawierający strumień archiwum ZIP lub dokumentu PDF.
+     */
+    @GetMapping("/quizzes/{quizId}/certificates")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> downloadCertificates(@PathVariable Long quizId,
+                                                  @RequestParam(value = "format", defaultValue = "zip") String format) {
+        log.info("Generowanie certyfikatów dla quizu ID: {} ({}) przez użytkownika {}", quizId, format, Utils.currentUsername());
+
+        CertificateService.Format selected;
+        if ("zip".equalsIgnoreCase(format)) {
+            selected = CertificateService.Format.ZIP;
+        } else if ("pdf".equalsIgnoreCase(format)) {
+            selected = CertificateService.Format.PDF;
+        } else {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Nieobsługiwany format (dozwolone: zip, pdf)"));
+        }
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    if (!Utils.canViewQuizResults(quiz)) {
+                        log.warn("Nauczyciel {} próbował wygenerować certyfikaty dla quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
+                        return ResponseEntity.status(403).body(Map.of(
+                                "success", false,
+                                "message", "Brak dostępu do tego quizu"));
+                    }
+
+                    String quizTitle = quiz.getTitle();
+                    StreamingResponseBody body = out -> certificateService.write(quizId, quizTitle, selected, out);
+                    boolean zip = selected == CertificateService.Format.ZIP;
+                    return ResponseEntity.ok()
+                            .header("Content-Disposition", "attachment; filename=certyfikaty_quiz_" + quizId + (zip ? ".zip" : ".pdf"))
+                            .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
+                            .body(body);
+                })
+                .orElseGet(() -> {
+                    log.error("Quiz ID: {} nie znaleziony", quizId);
+                    return ResponseEntity.status(404).body(Map.of(
+                            "success", false,
+                            "message", "Quiz nie znaleziony"));
+                });
+    }
+}
@@ -4,13 +4,21 @@ package org.example.controllers;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.DataBaseRepositories.*;
+import org.example.ExportFormat;
+import org.example.GradebookService;
+import org.example.LeaderboardService;
+import org.example.QuizStatsService;
+import org.example.StudentProgressService;
+import org.example.TeacherDashboardService;
 import org.example.database.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,6 +47,11 @@ public class CourseController {
     private final UserRepository userRepository;
     private final UserCourseRepository userCourseRepository;
     private final CourseGroupRepository courseGroupRepository;
+    private final QuizStatsService quizStatsService;
+    private final GradebookService gradebookService;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
+    private final TeacherDashboardService teacherDashboardService;
 
     /**
      * @brief Konstruktor klasy CourseController.
@@ -47,18 +60,33 @@ public class CourseController {
      * @param userRepository Repozytorium użytkowników.
      * @param userCourseRepository Repozytorium powiązań użytkowników z kursami.
      * @param courseGroupRepository Repozytorium grup kursów.
+     * @param quizStatsService Usługa statystyk quizów.
+     * @param gradebookService Usługa dziennika ocen kursu.
+     * @param studentProgressService Usługa postępów studentów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
+     * @param teacherDashboardService Usługa pulpitu nauczyciela.
      */
     @Autowired
     public CourseController(CourseRepository courseRepository,
                             CourseFileRepository courseFileRepository,
                             UserRepository userRepository,
                             UserCourseRepository userCourseRepository,
-                            CourseGroupRepository courseGroupRepository) {
+                            CourseGroupRepository courseGroupRepository,
+                            QuizStatsService quizStatsService,
+                            GradebookService gradebookService,
+                            StudentProgressService studentProgressService,
+                            LeaderboardService leaderboardService,
+                            TeacherDashboardService teacherDashboardService) {
         this.courseRepository = courseRepository;
         this.courseFileRepository = courseFileRepository;
         this.userRepository = userRepository;
         this.userCourseRepository = userCourseRepository;
         this.courseGroupRepository = courseGroupRepository;
+        this.quizStatsService = quizStatsService;
+        this.gradebookService = gradebookService;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
+        this.teacherDashboardService = teacherDashboardService;
     }
 
     /**
@@ -105,8 +133,7 @@ public class CourseController {
                     .body(Map.of("success", false, "message", "Nazwa kursu i klucz dostępu są wymagane"));
         }
 
-        User teacher = userRepository.findByUsername(Utils.currentUsername())
-                .orElseThrow(() -> new RuntimeException("Zalogowany użytkownik nie istnieje"));
+        User teacher = Utils.getCurrentUserReference(userRepository);
 
         Course course = new Course();
         course.setCourseName(courseName);
@@ -123,6 +150,7 @@ public class CourseController {
         }
 
         Course savedCourse = courseRepository.save(course);
+        teacherDashboardService.evict(teacher.getId());
 
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -144,7 +172,6 @@ public class CourseController {
     public ResponseEntity<?> verifyAccessKey(@PathVariable Long id,
                                              @RequestBody Map<String, String> request) {
         String providedKey = request.get("accessKey");
-        String username = Utils.currentUsername();
 
         return courseRepository.findById(id)
                 .map(course -> {
@@ -153,8 +180,7 @@ public class CourseController {
                                 .body(Map.of("success", false, "message", "Nieprawidłowy klucz dostępu"));
                     }
 
-                    User user = userRepository.findByUsername(username)
-                            .orElseThrow(() -> new RuntimeException("Użytkownik nie znaleziony"));
+                    User user = Utils.getCurrentUserReference(userRepository);
 
                     if (userCourseRepository.existsByUserIdAndCourseId(user.getId(), id)) {
                         return ResponseEntity.ok(Map.of(
@@ -164,6 +190,7 @@ public class CourseController {
 
                     UserCourse userCourse = new UserCourse(user, course);
                     userCourseRepository.save(userCourse);
+                    studentProgressService.evict(user.getId());
 
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -194,7 +221,7 @@ public class CourseController {
         } else if (Utils.isAdmin(auth)) {
             log.info("Admin {} uzyskuje dostęp do plików kursu ID: {}", Utils.currentUsername(), id);
         } else {
-            Long userId = Utils.getCurrentUserId(userRepository);
+            Long userId = Utils.currentUserId();
             if (!userCourseRepository.existsByUserIdAndCourseId(userId, id)) {
                 return ResponseEntity.status(403).body(Map.of(
                         "success", false,
@@ -258,11 +285,7 @@ public class CourseController {
     @PreAuthorize("hasRole('STUDENT')")
     @GetMapping("/my-courses")
     public ResponseEntity<?> getUserCourses() {
-        String username = Utils.currentUsername();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie znaleziony"));
-
-        List<UserCourse> userCourses = userCourseRepository.findByUserId(user.getId());
+        List<UserCourse> userCourses = userCourseRepository.findByUserId(Utils.currentUserId());
 
         List<Course> courses = userCourses.stream()
                 .map(UserCourse::getCourse)
@@ -274,6 +297,47 @@ public class CourseController {
         ));
     }
 
+    /**
+     * @brief Pobiera postępy aktualnego użytkownika (studenta) we wszystkich kursach, na które jest zapisany.
+     * Zastępuje osobne pobieranie kursów, quizów i wyników dla każdego quizu jednym żądaniem.
+     * @return ResponseEntity z postępami użytkownika:
+     * - success (boolean) - zawsze true
+     * - courses (List) - dla każdego kursu: courseId, courseName, quizCount, attemptedCount,
+     *   averageBestScore, latestScore, lastAttempt oraz quizzes (quizId, title, attempts, bestScore, latestScore, lastAttempt)
+     */
+    @PreAuthorize("hasRole('STUDENT')")
+    @GetMapping("/my-progress")
+    public ResponseEntity<?> getMyProgress() {
+        Long userId = Utils.currentUserId();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "courses", studentProgressService.get(userId)
+        ));
+    }
+
+    /**
+     * @brief Pobiera pulpit aktualnego nauczyciela: podsumowanie wszystkich jego kursów w jednej odpowiedzi.
+     * Zastępuje pobieranie statystyk quizów i listy użytkowników osobno dla każdego kursu.
+     * Wynik jest krótko przechowywany w pamięci podręcznej (quiz.dashboard.cache-ttl-seconds).
+     * @return ResponseEntity z pulpitem nauczyciela:
+     * - success (boolean) - zawsze true
+     * - recentDays (Integer) - liczba dni, z których liczone są ostatnie próby
+     * - generatedAt (LocalDateTime) - chwila wyliczenia podsumowania
+     * - courses (List) - dla każdego kursu: courseId, courseName, students, quizzes, attempts, recentAttempts, averageScore
+     */
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @GetMapping("/teacher-dashboard")
+    public ResponseEntity<?> getTeacherDashboard() {
+        Long teacherId = Utils.currentUserId();
+        TeacherDashboardService.Dashboard dashboard = teacherDashboardService.get(teacherId);
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "recentDays", dashboard.recentDays(),
+                "generatedAt", dashboard.generatedAt(),
+                "courses", dashboard.courses()
+        ));
+    }
+
     /**
      * @brief Usuwa kurs wraz z powiązaniami użytkowników.
      * @param id ID kursu do usunięcia.
@@ -294,6 +358,10 @@ public class CourseController {
         return courseRepository.findById(id)
                 .map(course -> {
                     userCourseRepository.deleteByCourseId(id);
+                    quizStatsService.deleteCourse(id);
+                    studentProgressService.evictAll();
+                    leaderboardService.removeCourse(id);
+                    teacherDashboardService.evict(course.getTeacher().getId());
                     courseRepository.delete(course);
 
                     return ResponseEntity.ok(Map.of(
@@ -374,6 +442,7 @@ public class CourseController {
                 .ifPresentOrElse(
                         userCourse -> {
                             userCourseRepository.delete(userCourse);
+                            studentProgressService.evict(userId);
                             log.info("Usunięto użytkownika ID: {} z kursu ID: {}", userId, courseId);
                         },
                         () -> {
@@ -387,4 +456,51 @@ public class CourseController {
                 "message", "Użytkownik został usunięty z kursu"
         ));
     }
-}
\ No newline at end of file
+
+    /**
+     * @brief Pobiera dziennik ocen kursu: macierz studenci × quizy (dostępne tylko dla TEACHER/ADMIN).
+     * Dla każdej pary student-quiz zwracany jest najlepszy wynik, liczba prób i data ostatniej próby
+     * (null, jeśli student nie rozwiązywał quizu). Odpowiedź jest zapisywana strumieniowo.
+     * @param courseId ID kursu.
+     * @param format json (domyślny) lub csv.
+     * @return ResponseEntity zawierający strumień z dziennikiem ocen:
+     * - success (boolean), courseId (Long), courseName (String)
+     * - quizzes (List) - kolumny macierzy: id, title
+     * - students (List) - wiersze macierzy: id, username, grades (bestScore, attempts, lastAttempt lub null dla każdego quizu)
+     */
+    @GetMapping("/{courseId}/gradebook")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> getGradebook(@PathVariable Long courseId,
+                                          @RequestParam(value = "format", defaultValue = "json") String format) {
+        log.info("Pobieranie dziennika ocen kursu ID: {} ({}) przez użytkownika {}", courseId, format, Utils.currentUsername());
+
+        ExportFormat selected = ExportFormat.parse(format, GradebookService.FORMATS).orElse(null);
+        if (selected == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Nieobsługiwany format (dozwolone: json, csv)"));
+        }
+
+        Authentication auth = Utils.getAuthentication();
+        if (Utils.isTeacher(auth) && courseRepository.findByIdAndTeacherUsername(courseId, Utils.currentUsername()).isEmpty()) {
+            log.warn("Brak dostępu do kursu ID: {} dla nauczyciela {}", courseId, Utils.currentUsername());
+            return ResponseEntity.status(403)
+                    .body(Map.of("success", false, "message", "Brak uprawnień lub kurs nie istnieje"));
+        }
+
+        return courseRepository.findById(courseId)
+                .<ResponseEntity<?>>map(course -> {
+                    String courseName = course.getCourseName();
+                    StreamingResponseBody body = out -> gradebookService.write(courseId, courseName, selected, out);
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(selected.getContentType()));
+                    if (selected == ExportFormat.CSV) {
+                        response.header("Content-Disposition",
+                                "attachment; filename=dziennik_kurs_" + courseId + "." + selected.getExtension());
+                    }
+                    return response.body(body);
+                })
+                .orElseGet(() -> ResponseEntity.status(404)
+                        .body(Map.of("success", false, "message", "Kurs nie istnieje")));
+    }
+}
@@ -4,6 +4,7 @@ package org.example.controllers;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.DataBaseRepositories.*;
+import org.example.LeaderboardService;
 import org.example.database.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +12,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,6 +37,7 @@ public class CourseGroupController {
     private final QuizQuestionRepository quizQuestionRepository;
     private final QuizRepository quizRepository;
     private final CourseFileRepository courseFileRepository;
+    private final LeaderboardService leaderboardService;
 
     /**
      * @brief Konstruktor klasy CourseGroupController.
@@ -44,6 +48,7 @@ public class CourseGroupController {
      * @param quizQuestionRepository Repozytorium pytań quizowych.
      * @param quizRepository Repozytorium quizów.
      * @param courseFileRepository Repozytorium plików kursów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
      */
     @Autowired
     public CourseGroupController(CourseGroupRepository courseGroupRepository,
@@ -52,7 +57,8 @@ public class CourseGroupController {
                                  UserCourseRepository userCourseRepository,
                                  QuizQuestionRepository quizQuestionRepository,
                                  QuizRepository quizRepository,
-                                 CourseFileRepository courseFileRepository) {
+                                 CourseFileRepository courseFileRepository,
+                                 LeaderboardService leaderboardService) {
         this.courseGroupRepository = courseGroupRepository;
         this.courseRepository = courseRepository;
         this.userRepository = userRepository;
@@ -60,6 +66,7 @@ public class CourseGroupController {
         this.quizQuestionRepository = quizQuestionRepository;
         this.quizRepository = quizRepository;
         this.courseFileRepository = courseFileRepository;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
@@ -111,7 +118,7 @@ public class CourseGroupController {
         }
 
         Course course = courseOpt.get();
-        User student = Utils.getCurrentUser(userRepository);
+        User student = Utils.getCurrentUserReference(userRepository);
 
         if (userCourseRepository.existsByUserIdAndCourseId(student.getId(), course.getId())) {
             return ResponseEntity.ok(Map.of("success", true, "message", "Jesteś już zapisany na ten kurs."));
@@ -119,11 +126,68 @@ public class CourseGroupController {
 
         UserCourse userCourse = new UserCourse(student, course);
         userCourseRepository.save(userCourse);
-        log.info("Student '{}' zapisał się na kurs '{}' (ID: {}) z kluczem '{}'", student.getUsername(), course.getCourseName(), course.getId(), accessKey);
+        log.info("Student '{}' zapisał się na kurs '{}' (ID: {}) z kluczem '{}'", Utils.currentUsername(), course.getCourseName(), course.getId(), accessKey);
 
         return ResponseEntity.ok(Map.of("success", true, "message", "Zostałeś pomyślnie zapisany na kurs."));
     }
 
+    /**
+     * @brief Pobiera ranking grupy kursów: suma najlepszych wyników studenta ze wszystkich quizów kursów grupy,
+     * przy równych sumach wyżej jest student, który osiągnął ją wcześniej.
+     * Dostępne dla studentów zapisanych na kurs z grupy, nauczyciela grupy oraz ADMIN.
+     * @param groupId ID grupy kursów.
+     * @param limit Liczba miejsc (domyślnie 10, maksymalnie quiz.leaderboard.max-limit).
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - groupId (Long), groupName (String)
+     * - leaderboard (List<Map>) - kolejne miejsca: rank, userId, username, totalScore, quizzes, lastCompletionDate
+     */
+    @GetMapping("/{groupId}/leaderboard")
+    public ResponseEntity<?> getGroupLeaderboard(@PathVariable Long groupId,
+                                                 @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > leaderboardService.getMaxLimit()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Parametr limit musi być w zakresie 1-" + leaderboardService.getMaxLimit()));
+        }
+
+        Optional<CourseGroup> groupOpt = courseGroupRepository.findById(groupId);
+        if (groupOpt.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("success", false, "message", "Grupa kursów nie znaleziona."));
+        }
+        CourseGroup group = groupOpt.get();
+
+        Authentication auth = Utils.getAuthentication();
+        boolean allowed;
+        if (Utils.isAdmin(auth)) {
+            allowed = true;
+        } else if (Utils.isTeacher(auth)) {
+            allowed = group.getTeacher().getUsername().equals(Utils.currentUsername());
+        } else {
+            allowed = userCourseRepository.existsByUserIdAndCourseCourseGroupId(Utils.currentUserId(), groupId);
+        }
+        if (!allowed) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Brak dostępu do tej grupy kursów."));
+        }
+
+        List<Map<String, Object>> leaderboard = new ArrayList<>();
+        for (LeaderboardService.GroupEntry entry : leaderboardService.topForGroup(groupId, limit)) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("rank", leaderboard.size() + 1);
+            row.put("userId", entry.userId());
+            row.put("username", entry.username());
+            row.put("totalScore", Math.round(entry.totalScore() * 100.0) / 100.0);
+            row.put("quizzes", entry.quizzes());
+            row.put("lastCompletionDate", entry.lastCompletionDate());
+            leaderboard.add(row);
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "groupId", groupId,
+                "groupName", group.getName(),
+                "leaderboard", leaderboard));
+    }
+
     /**
      * @brief Tworzy nową grupę kursów.
      * @param request Mapa zawierająca dane grupy:
@@ -145,14 +209,14 @@ public class CourseGroupController {
                     .body(Map.of("success", false, "message", "Nazwa grupy jest wymagana"));
         }
 
-        User teacher = Utils.getCurrentUser(userRepository);
+        User teacher = Utils.getCurrentUserReference(userRepository);
         CourseGroup courseGroup = new CourseGroup();
         courseGroup.setName(name);
         courseGroup.setDescription(description);
         courseGroup.setTeacher(teacher);
 
         CourseGroup savedGroup = courseGroupRepository.save(courseGroup);
-        log.info("Utworzono nową grupę kursów '{}' (ID: {}) przez użytkownika '{}'", name, savedGroup.getId(), teacher.getUsername());
+        log.info("Utworzono nową grupę kursów '{}' (ID: {}) przez użytkownika '{}'", name, savedGroup.getId(), Utils.currentUsername());
 
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -273,6 +337,7 @@ public class CourseGroupController {
         }
 
         courseGroupRepository.delete(groupToDelete);
+        leaderboardService.removeGroup(groupId);
         log.info("Użytkownik '{}' usunął grupę kursów '{}' (ID: {})", currentUsername, groupToDelete.getName(), groupId);
 
         return ResponseEntity.ok(Map.of("success", true, "message", "Grupa kursów została pomyślnie usunięta."));
@@ -0,0 +1,301 @@
+package org.example.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.AttemptKeyRegistry;
+import org.example.CertificateService;
+import org.example.GradingKeyCache;
+import org.example.ItemAnalysisService;
+import org.example.LeaderboardService;
+import org.example.QuestionPoolCache;
+import org.example.ReportJobService;
+import org.example.StudentProgressService;
+import org.example.SubmissionWriter;
+import org.example.TeacherDashboardService;
+import org.example.security.JwtUtil;
+import org.example.security.PasswordHashingService;
+import org.example.security.RateLimiter;
+import org.example.security.TokenRevocationList;
+import org.example.security.TokenVersionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @brief Kontroler udostępniający metryki wewnętrznych komponentów serwera (pamięci podręczne, kolejki).
+ * Dostępny tylko dla ADMIN.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final GradingKeyCache gradingKeyCache;
+    private final SubmissionWriter submissionWriter;
+    private final AttemptKeyRegistry attemptKeyRegistry;
+    private final QuestionPoolCache questionPoolCache;
+    private final ItemAnalysisService itemAnalysisService;
+    private final ReportJobService reportJobService;
+    private final CertificateService certificateService;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
+    private final TeacherDashboardService teacherDashboardService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final JwtUtil jwtUtil;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationList tokenRevocationList;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * @brief Konstruktor wstrzykujący zależności.
+     * @param gradingKeyCache Pamięć podręczna kluczy odpowiedzi.
+     * @param submissionWriter Komponent zapisujący wyniki quizów w tle.
+     * @param attemptKeyRegistry Rejestr kluczy prób przesłań quizów.
+     * @param questionPoolCache Pamięć podręczna pul pytań quizów.
+     * @param itemAnalysisService Usługa analizy pytań quizów.
+     * @param reportJobService Usługa zadań generowania raportów.
+     * @param certificateService Usługa generowania certyfikatów.
+     * @param studentProgressService Usługa postępów studentów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
+     * @param teacherDashboardService Usługa pulpitu nauczyciela.
+     * @param tokenVersionRegistry Rejestr wersji tokenów JWT.
+     * @param jwtUtil Narzędzie do obsługi tokenów JWT.
+     * @param passwordHashingService Usługa haszowania haseł.
+     * @param tokenRevocationList Lista unieważnionych tokenów dostępu.
+     * @param rateLimiter Ogranicznik liczby żądań.
+     */
+    @Autowired
+    public MetricsController(GradingKeyCache gradingKeyCache,
+                             SubmissionWriter submissionWriter,
+                             AttemptKeyRegistry attemptKeyRegistry,
+                             QuestionPoolCache questionPoolCache,
+                             ItemAnalysisService itemAnalysisService,
+                             ReportJobService reportJobService,
+                             CertificateService certificateService,
+                             StudentProgressService studentProgressService,
+                             LeaderboardService leaderboardService,
+                             TeacherDashboardService teacherDashboardService,
+                             TokenVersionRegistry tokenVersionRegistry,
+                             JwtUtil jwtUtil,
+                             PasswordHashingService passwordHashingService,
+                             TokenRevocationList tokenRevocationList,
+                             RateLimiter rateLimiter) {
+        this.gradingKeyCache = gradingKeyCache;
+        this.submissionWriter = submissionWriter;
+        this.attemptKeyRegistry = attemptKeyRegistry;
+        this.questionPoolCache = questionPoolCache;
+        this.itemAnalysisService = itemAnalysisService;
+        this.reportJobService = reportJobService;
+        this.certificateService = certificateService;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
+        this.teacherDashboardService = teacherDashboardService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.jwtUtil = jwtUtil;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @brief Pobiera statystyki pamięci podręcznej kluczy odpowiedzi.
+     * @return ResponseEntity z rozmiarem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    @GetMapping("/grading-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getGradingCacheStats() {
+        log.debug("Pobieranie statystyk pamięci podręcznej kluczy odpowiedzi przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "gradingCache", gradingKeyCache.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera metryki kolejki zapisu wyników quizów.
+     * @return ResponseEntity z głębokością kolejki, licznikami zgłoszeń, czasami zatwierdzania wsadów
+     * oraz statystykami kluczy prób.
+     */
+    @GetMapping("/submission-queue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSubmissionQueueStats() {
+        log.debug("Pobieranie metryk kolejki zapisu wyników przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "submissionQueue", submissionWriter.stats(),
+                "attemptKeys", attemptKeyRegistry.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki pamięci podręcznej pul pytań quizów.
+     * @return ResponseEntity z rozmiarem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    @GetMapping("/question-pool-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getQuestionPoolCacheStats() {
+        log.debug("Pobieranie statystyk pamięci podręcznej pul pytań przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "questionPoolCache", questionPoolCache.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki pamięci podręcznej analizy pytań quizów.
+     * @return ResponseEntity z rozmiarem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    @GetMapping("/item-analysis-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getItemAnalysisCacheStats() {
+        log.debug("Pobieranie statystyk pamięci podręcznej analizy pytań przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "itemAnalysisCache", itemAnalysisService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera metryki zadań generowania raportów PDF.
+     * @return ResponseEntity z liczbą zadań w kolejce i aktywnych oraz licznikami zleceń.
+     */
+    @GetMapping("/report-jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getReportJobStats() {
+        log.debug("Pobieranie metryk zadań raportów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "reportJobs", reportJobService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera metryki generatora certyfikatów, w tym przepustowość ostatniego przebiegu (certyfikaty/s).
+     * @return ResponseEntity z liczbą wątków, łączną liczbą certyfikatów i pomiarem ostatniego przebiegu.
+     */
+    @GetMapping("/certificates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getCertificateStats() {
+        log.debug("Pobieranie metryk generatora certyfikatów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "certificates", certificateService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki pamięci podręcznej postępów studentów.
+     * @return ResponseEntity z rozmiarem oraz licznikami trafień, chybień i wyrzuceń.
+     */
+    @GetMapping("/student-progress-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStudentProgressCacheStats() {
+        log.debug("Pobieranie statystyk pamięci podręcznej postępów studentów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "studentProgressCache", studentProgressService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki rankingów quizów i grup kursów.
+     * @return ResponseEntity z liczbą rankingów, liczbą wpisów oraz licznikami odczytów i zmian.
+     */
+    @GetMapping("/leaderboards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLeaderboardStats() {
+        log.debug("Pobieranie statystyk rankingów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "leaderboards", leaderboardService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki pamięci podręcznej pulpitów nauczycieli.
+     * @return ResponseEntity z rozmiarem, czasem ważności oraz licznikami trafień i chybień.
+     */
+    @GetMapping("/teacher-dashboard-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTeacherDashboardCacheStats() {
+        log.debug("Pobieranie statystyk pamięci podręcznej pulpitów nauczycieli przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "teacherDashboardCache", teacherDashboardService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki rejestru wersji tokenów JWT.
+     * @return ResponseEntity z liczbą wpisów oraz licznikami trafień, wczytań z bazy i odrzuconych tokenów.
+     */
+    @GetMapping("/token-versions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTokenVersionStats() {
+        log.debug("Pobieranie statystyk rejestru wersji tokenów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "tokenVersions", tokenVersionRegistry.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki weryfikacji tokenów JWT i pamięci podręcznej zweryfikowanych tokenów.
+     * @return ResponseEntity z aktywnym kluczem, rozmiarem pamięci podręcznej oraz licznikami trafień i chybień.
+     */
+    @GetMapping("/jwt")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getJwtStats() {
+        log.debug("Pobieranie statystyk weryfikacji tokenów JWT przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "jwt", jwtUtil.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki puli haszowania haseł oraz percentyle czasów logowania.
+     * @return ResponseEntity z kosztem BCrypt, stanem kolejki, licznikami operacji i percentylami p50/p90/p99.
+     */
+    @GetMapping("/password-hashing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getPasswordHashingStats() {
+        log.debug("Pobieranie statystyk haszowania haseł przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "passwordHashing", passwordHashingService.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki listy unieważnionych tokenów dostępu.
+     * @return ResponseEntity z liczbą unieważnionych tokenów oraz licznikami sprawdzeń i trafień filtru Blooma.
+     */
+    @GetMapping("/token-revocations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTokenRevocationStats() {
+        log.debug("Pobieranie statystyk listy unieważnionych tokenów przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "tokenRevocations", tokenRevocationList.stats()
+        ));
+    }
+
+    /**
+     * @brief Pobiera statystyki ograniczania liczby żądań.
+     * @return ResponseEntity z liczbą kubełków oraz licznikami dozwolonych i odrzuconych żądań.
+     */
+    @GetMapping("/rate-limits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getRateLimitStats() {
+        log.debug("Pobieranie statystyk ograniczania liczby żądań przez {}", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "rateLimits", rateLimiter.stats()
+        ));
+    }
+}
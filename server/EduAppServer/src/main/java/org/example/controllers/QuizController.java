@@ -4,6 +4,12 @@ package org.example.controllers;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.DataBaseRepositories.*;
+import org.example.GradingKeyCache;
+import org.example.ItemAnalysisService;
+import org.example.LeaderboardService;
+import org.example.QuestionPoolCache;
+import org.example.QuizStatsService;
+import org.example.StudentProgressService;
 import org.example.database.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +38,12 @@ public class QuizController {
     private final UserCourseRepository userCourseRepository;
     private final QuizQuestionRepository quizQuestionRepository;
     private final UserRepository userRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final QuestionPoolCache questionPoolCache;
+    private final QuizStatsService quizStatsService;
+    private final ItemAnalysisService itemAnalysisService;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
 
     /**
      * @brief Konstruktor klasy QuizController.
@@ -41,6 +53,12 @@ public class QuizController {
      * @param userCourseRepository Repozytorium powiązań użytkowników z kursami.
      * @param quizQuestionRepository Repozytorium pytań quizowych.
      * @param userRepository Repozytorium użytkowników.
+     * @param gradingKeyCache Pamięć podręczna kluczy odpowiedzi.
+     * @param questionPoolCache Pamięć podręczna pul pytań quizów.
+     * @param quizStatsService Usługa statystyk quizów.
+     * @param itemAnalysisService Usługa analizy pytań quizów.
+     * @param studentProgressService Usługa postępów studentów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
      */
     @Autowired
     public QuizController(CourseRepository courseRepository,
@@ -48,13 +66,25 @@ public class QuizController {
                           QuizResultRepository quizResultRepository,
                           UserCourseRepository userCourseRepository,
                           QuizQuestionRepository quizQuestionRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          GradingKeyCache gradingKeyCache,
+                          QuestionPoolCache questionPoolCache,
+                          QuizStatsService quizStatsService,
+                          ItemAnalysisService itemAnalysisService,
+                          StudentProgressService studentProgressService,
+                          LeaderboardService leaderboardService) {
         this.courseRepository = courseRepository;
         this.quizRepository = quizRepository;
         this.quizResultRepository = quizResultRepository;
         this.userCourseRepository = userCourseRepository;
         this.quizQuestionRepository = quizQuestionRepository;
         this.userRepository = userRepository;
+        this.gradingKeyCache = gradingKeyCache;
+        this.questionPoolCache = questionPoolCache;
+        this.quizStatsService = quizStatsService;
+        this.itemAnalysisService = itemAnalysisService;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
@@ -78,7 +108,7 @@ public class QuizController {
         } else if (Utils.isAdmin(auth)) {
             log.info("Admin {} uzyskuje dostęp do quizów kursu ID: {}", Utils.currentUsername(), id);
         } else {
-            Long userId = Utils.getCurrentUserId(userRepository);
+            Long userId = Utils.currentUserId();
             if (!userCourseRepository.existsByUserIdAndCourseId(userId, id)) {
                 return ResponseEntity.status(403).body(Map.of(
                         "success", false,
@@ -129,6 +159,7 @@ public class QuizController {
                     }
                     quiz.setCourse(course);
                     Quiz savedQuiz = quizRepository.save(quiz);
+                    studentProgressService.evictAll();
                     log.info("Dodano quiz '{}' (ID: {}) do kursu ID: {}", quiz.getTitle(), savedQuiz.getId(), id);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -169,10 +200,18 @@ public class QuizController {
                         return ResponseEntity.status(403)
                                 .body(Map.of("success", false, "message", "Brak dostępu do tego quizu"));
                     }
+                    boolean selectionChanged =
+                            existingQuiz.getNumberOfQuestionsToDisplay() != quiz.getNumberOfQuestionsToDisplay();
                     existingQuiz.setTitle(quiz.getTitle());
                     existingQuiz.setDescription(quiz.getDescription());
                     existingQuiz.setNumberOfQuestionsToDisplay(quiz.getNumberOfQuestionsToDisplay());
                     Quiz updatedQuiz = quizRepository.save(existingQuiz);
+                    if (selectionChanged) {
+                        quizRepository.incrementQuestionsVersion(quizId);
+                        gradingKeyCache.evict(quizId);
+                    }
+                    questionPoolCache.evict(quizId);
+                    studentProgressService.evictAll();
                     log.info("Zaktualizowano quiz '{}' (ID: {})", updatedQuiz.getTitle(), quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -205,6 +244,12 @@ public class QuizController {
                     }
                     quizQuestionRepository.deleteByQuizId(quizId);
                     quizRepository.delete(quiz);
+                    quizStatsService.deleteQuiz(quizId);
+                    itemAnalysisService.evict(quizId);
+                    gradingKeyCache.evict(quizId);
+                    questionPoolCache.evict(quizId);
+                    studentProgressService.evictAll();
+                    leaderboardService.removeQuiz(quizId);
                     log.info("Usunięto quiz ID: {}", quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -226,6 +271,12 @@ public class QuizController {
      *   - quizTitle (String) - tytuł quizu
      *   - attempts (Long) - liczba prób
      *   - averageScore (Double) - średni wynik w procentach
+     *   - minScore (Double) - najniższy wynik w procentach (null, jeśli brak prób)
+     *   - maxScore (Double) - najwyższy wynik w procentach (null, jeśli brak prób)
+     *   - stdDeviation (Double) - odchylenie standardowe wyników
+     *   - passCount (Long) - liczba prób z wynikiem nie niższym niż próg zaliczenia
+     *   - passRate (Double) - odsetek zaliczonych prób w procentach
+     * Statystyki są czytane z tabeli "quiz_stats", więc koszt nie zależy od liczby wyników.
      */
     @GetMapping("/{courseId}/quiz-stats")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
@@ -238,20 +289,22 @@ public class QuizController {
         }
 
         List<Quiz> quizzes = quizRepository.findByCourseId(courseId);
+        Map<Long, QuizStats> statsByQuiz = quizStatsService.findByQuizIds(
+                quizzes.stream().map(Quiz::getId).collect(Collectors.toList()));
         List<Map<String, Object>> stats = quizzes.stream().map(quiz -> {
-            List<QuizResult> results = quizResultRepository.findByQuizId(quiz.getId());
-            long attempts = results.size();
-            double avgScore = results.isEmpty() ? 0.0 :
-                    results.stream()
-                            .mapToDouble(r -> (r.getCorrectAnswers() * 100.0) / r.getTotalQuestions())
-                            .average()
-                            .orElse(0.0);
+            QuizStats quizStats = statsByQuiz.get(quiz.getId());
+            long attempts = quizStats != null ? quizStats.getAttempts() : 0L;
 
             Map<String, Object> quizStat = new HashMap<>();
             quizStat.put("quizId", quiz.getId());
             quizStat.put("quizTitle", quiz.getTitle());
             quizStat.put("attempts", attempts);
-            quizStat.put("averageScore", Math.round(avgScore * 10.0) / 10.0);
+            quizStat.put("averageScore", attempts > 0 ? round(quizStats.getAverageScore()) : 0.0);
+            quizStat.put("minScore", attempts > 0 ? round(quizStats.getMinScore()) : null);
+            quizStat.put("maxScore", attempts > 0 ? round(quizStats.getMaxScore()) : null);
+            quizStat.put("stdDeviation", attempts > 0 ? round(quizStats.getStandardDeviation()) : 0.0);
+            quizStat.put("passCount", attempts > 0 ? quizStats.getPassCount() : 0L);
+            quizStat.put("passRate", attempts > 0 ? round(quizStats.getPassCount() * 100.0 / attempts) : 0.0);
             return quizStat;
         }).collect(Collectors.toList());
 
@@ -262,4 +315,26 @@ public class QuizController {
                 "stats", stats
         ));
     }
-}
\ No newline at end of file
+
+    /**
+     * @brief Przelicza od nowa statystyki wszystkich quizów na podstawie zapisanych wyników (tylko ADMIN).
+     * Używane po zmianie progu zaliczenia lub po ręcznych zmianach w bazie.
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - quizzes (Integer) - liczba quizów, dla których zapisano statystyki
+     */
+    @PostMapping("/quiz-stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildQuizStats() {
+        int quizzes = quizStatsService.rebuild();
+        log.info("Administrator {} przebudował statystyki quizów", Utils.currentUsername());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "quizzes", quizzes
+        ));
+    }
+
+    private static Double round(Double value) {
+        return value == null ? null : Math.round(value * 10.0) / 10.0;
+    }
+}
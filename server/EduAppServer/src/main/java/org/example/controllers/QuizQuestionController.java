@@ -4,6 +4,16 @@ package org.example.controllers;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.DataBaseRepositories.*;
+import org.example.AikenQuestionParser;
+import org.example.AttemptSelection;
+import org.example.AttemptTokenService;
+import org.example.GiftQuestionParser;
+import org.example.GradingKeyCache;
+import org.example.QuestionBankImporter;
+import org.example.QuestionBankParser;
+import org.example.QuestionPoolCache;
+import org.example.QuizQuestionBulkWriter;
+import org.example.QuizQuestionValidator;
 import org.example.database.*;
 import org.example.dto.QuizQuestionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +21,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,10 +39,20 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/courses")
 public class QuizQuestionController {
 
+    /**
+     * Maksymalna liczba pytań w jednym żądaniu zbiorczym.
+     */
+    private static final int MAX_BULK_QUESTIONS = 500;
+
     private final QuizRepository quizRepository;
     private final QuizQuestionRepository quizQuestionRepository;
     private final UserRepository userRepository;
     private final UserCourseRepository userCourseRepository;
+    private final GradingKeyCache gradingKeyCache;
+    private final AttemptTokenService attemptTokenService;
+    private final QuestionPoolCache questionPoolCache;
+    private final QuizQuestionBulkWriter quizQuestionBulkWriter;
+    private final QuestionBankImporter questionBankImporter;
 
     /**
      * @brief Konstruktor klasy QuizQuestionController.
@@ -36,16 +60,31 @@ public class QuizQuestionController {
      * @param quizQuestionRepository Repozytorium pytań quizowych.
      * @param userRepository Repozytorium użytkowników.
      * @param userCourseRepository Repozytorium powiązań użytkowników z kursami.
+     * @param gradingKeyCache Pamięć podręczna kluczy odpowiedzi.
+     * @param attemptTokenService Usługa wydająca tokeny prób.
+     * @param questionPoolCache Pamięć podręczna pul pytań quizów.
+     * @param quizQuestionBulkWriter Usługa zbiorczego zapisu pytań.
+     * @param questionBankImporter Usługa importu banków pytań.
      */
     @Autowired
     public QuizQuestionController(QuizRepository quizRepository,
                                   QuizQuestionRepository quizQuestionRepository,
                                   UserRepository userRepository,
-                                  UserCourseRepository userCourseRepository) {
+                                  UserCourseRepository userCourseRepository,
+                                  GradingKeyCache gradingKeyCache,
+                                  AttemptTokenService attemptTokenService,
+                                  QuestionPoolCache questionPoolCache,
+                                  QuizQuestionBulkWriter quizQuestionBulkWriter,
+                                  QuestionBankImporter questionBankImporter) {
         this.quizRepository = quizRepository;
         this.quizQuestionRepository = quizQuestionRepository;
         this.userRepository = userRepository;
         this.userCourseRepository = userCourseRepository;
+        this.gradingKeyCache = gradingKeyCache;
+        this.attemptTokenService = attemptTokenService;
+        this.questionPoolCache = questionPoolCache;
+        this.quizQuestionBulkWriter = quizQuestionBulkWriter;
+        this.questionBankImporter = questionBankImporter;
     }
 
     /**
@@ -60,64 +99,10 @@ public class QuizQuestionController {
     @PostMapping("/quizzes/{quizId}/questions")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
     public ResponseEntity<?> addQuizQuestion(@PathVariable Long quizId, @RequestBody QuizQuestion question) {
-        if (question.getQuestionText() == null || question.getQuestionText().isBlank()) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Treść pytania jest wymagana"));
-        }
-        if (question.getQuestionType() == null ||
-                (!question.getQuestionType().equals("multiple_choice") &&
-                        !question.getQuestionType().equals("open_ended") &&
-                        !question.getQuestionType().equals("true_false"))) {
+        String validationError = QuizQuestionValidator.validate(question);
+        if (validationError != null) {
             return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Typ pytania musi być 'multiple_choice', 'open_ended' lub 'true_false'"));
-        }
-        if (question.getQuestionType().equals("multiple_choice")) {
-            if (question.getOptions() == null || question.getOptions().size() < 2) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Pytania wielokrotnego wyboru wymagają co najmniej 2 opcji"));
-            }
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Co najmniej jedna poprawna odpowiedź jest wymagana"));
-            }
-            List<String> correctAnswers = Arrays.asList(question.getCorrectAnswer().split(","));
-            for (String correct : correctAnswers) {
-                if (!question.getOptions().containsKey(correct)) {
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("success", false, "message", "Wszystkie poprawne odpowiedzi muszą być kluczami opcji"));
-                }
-            }
-        } else if (question.getQuestionType().equals("true_false")) {
-            if (question.getOptions() == null ||
-                    !question.getOptions().entrySet().equals(
-                            Set.of(
-                                    Map.entry("True", "Prawda"),
-                                    Map.entry("False", "Fałsz")
-                            )
-                    )) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Opcje dla pytania prawda/fałsz muszą być dokładnie 'True: Prawda' i 'False: Fałsz'"));
-            }
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Co najmniej jedna poprawna odpowiedź jest wymagana"));
-            }
-            List<String> correctAnswers = Arrays.asList(question.getCorrectAnswer().split(","));
-            for (String correct : correctAnswers) {
-                if (!Set.of("True", "False").contains(correct)) {
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("success", false, "message", "Poprawne odpowiedzi muszą być 'True' lub 'False'"));
-                }
-            }
-        } else if (question.getQuestionType().equals("open_ended")) {
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Poprawna odpowiedź jest wymagana dla pytań otwartych"));
-            }
-            if (question.getOptions() != null && !question.getOptions().isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Pytania otwarte nie mogą zawierać opcji"));
-            }
+                    .body(Map.of("success", false, "message", validationError));
         }
 
         return quizRepository.findById(quizId)
@@ -130,6 +115,9 @@ public class QuizQuestionController {
                     }
                     question.setQuiz(quiz);
                     QuizQuestion savedQuestion = quizQuestionRepository.save(question);
+                    quizRepository.incrementQuestionsVersion(quizId);
+                    gradingKeyCache.evict(quizId);
+                    questionPoolCache.evict(quizId);
                     log.info("Dodano pytanie '{}' do quizu ID: {}", question.getQuestionText(), quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -141,6 +129,146 @@ public class QuizQuestionController {
                         .body(Map.of("success", false, "message", "Quiz nie znaleziony")));
     }
 
+    /**
+     * @brief Dodaje lub aktualizuje wiele pytań quizu w jednej operacji.
+     * Wszystkie pytania są sprawdzane przed zapisem; jeśli którekolwiek jest niepoprawne,
+     * nic nie jest zapisywane, a odpowiedź zawiera listę błędów z indeksami pytań.
+     * Pytania bez ID są dodawane, pytania z ID (należące do quizu) aktualizowane.
+     * @param quizId ID quizu.
+     * @param questions Lista pytań.
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - message (String) - komunikat o wyniku
+     * - created (int) - liczba dodanych pytań (w przypadku sukcesu)
+     * - updated (int) - liczba zaktualizowanych pytań (w przypadku sukcesu)
+     * - errors (List<Map>) - błędy walidacji: index (int), message (String) (w przypadku błędu)
+     */
+    @PostMapping("/quizzes/{quizId}/questions/bulk")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> saveQuizQuestionsBulk(@PathVariable Long quizId, @RequestBody List<QuizQuestion> questions) {
+        if (questions == null || questions.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Brak pytań"));
+        }
+        if (questions.size() > MAX_BULK_QUESTIONS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Maksymalna liczba pytań w jednym żądaniu to " + MAX_BULK_QUESTIONS));
+        }
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    Course course = quiz.getCourse();
+                    if (Utils.isTeacher(Utils.getAuthentication()) &&
+                            !course.getTeacher().getUsername().equals(Utils.currentUsername())) {
+                        return ResponseEntity.status(403)
+                                .body(Map.of("success", false, "message", "Brak dostępu do tego quizu"));
+                    }
+
+                    Set<Long> quizQuestionIds = new HashSet<>(quizQuestionRepository.findIdsByQuizId(quizId));
+                    Set<Long> seenIds = new HashSet<>();
+                    List<Map<String, Object>> errors = new ArrayList<>();
+                    for (int i = 0; i < questions.size(); i++) {
+                        QuizQuestion question = questions.get(i);
+                        String error = QuizQuestionValidator.validate(question);
+                        if (error == null && question.getId() != null) {
+                            if (!quizQuestionIds.contains(question.getId())) {
+                                error = "Pytanie nie należy do tego quizu";
+                            } else if (!seenIds.add(question.getId())) {
+                                error = "Pytanie występuje w żądaniu więcej niż raz";
+                            }
+                        }
+                        if (error != null) {
+                            errors.add(Map.of("index", i, "message", error));
+                        }
+                    }
+                    if (!errors.isEmpty()) {
+                        log.warn("Odrzucono zbiorczy zapis {} pytań do quizu ID: {} ({} błędów)",
+                                questions.size(), quizId, errors.size());
+                        return ResponseEntity.badRequest().body(Map.of(
+                                "success", false,
+                                "message", "Niektóre pytania są niepoprawne",
+                                "errors", errors
+                        ));
+                    }
+
+                    QuizQuestionBulkWriter.Result result = quizQuestionBulkWriter.saveAll(quizId, questions);
+                    return ResponseEntity.ok(Map.of(
+                            "success", true,
+                            "message", "Pytania zapisane pomyślnie",
+                            "created", result.created(),
+                            "updated", result.updated()
+                    ));
+                })
+                .orElse(ResponseEntity.status(404)
+                        .body(Map.of("success", false, "message", "Quiz nie znaleziony")));
+    }
+
+    /**
+     * @brief Importuje pytania do quizu z pliku banku pytań w formacie GIFT lub Aiken.
+     * Plik jest przetwarzany strumieniowo i zapisywany wsadami, więc rozmiar banku nie wpływa na zużycie pamięci.
+     * Niepoprawne pozycje są pomijane i raportowane z numerami linii.
+     * @param quizId ID quizu.
+     * @param file Plik banku pytań (UTF-8).
+     * @param format Format pliku: "gift" lub "aiken"; domyślnie wykrywany z rozszerzenia (.gift).
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - message (String) - komunikat o wyniku
+     * - imported (int) - liczba zaimportowanych pytań
+     * - rejected (int) - liczba odrzuconych pozycji
+     * - rejections (List) - pierwsze odrzucone pozycje: line (int), message (String)
+     */
+    @PostMapping("/quizzes/{quizId}/questions/import")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> importQuizQuestions(@PathVariable Long quizId,
+                                                 @RequestParam("file") MultipartFile file,
+                                                 @RequestParam(value = "format", required = false) String format) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Plik jest pusty"));
+        }
+        String resolvedFormat = format != null ? format.toLowerCase(Locale.ROOT) : null;
+        String filename = file.getOriginalFilename();
+        if (resolvedFormat == null && filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".gift")) {
+            resolvedFormat = "gift";
+        }
+        QuestionBankParser parser;
+        if ("gift".equals(resolvedFormat)) {
+            parser = new GiftQuestionParser();
+        } else if ("aiken".equals(resolvedFormat)) {
+            parser = new AikenQuestionParser();
+        } else {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Nieznany format pliku, podaj format 'gift' lub 'aiken'"));
+        }
+
+        Optional<Quiz> quizOptional = quizRepository.findById(quizId);
+        if (quizOptional.isEmpty()) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("success", false, "message", "Quiz nie znaleziony"));
+        }
+        Course course = quizOptional.get().getCourse();
+        if (Utils.isTeacher(Utils.getAuthentication()) &&
+                !course.getTeacher().getUsername().equals(Utils.currentUsername())) {
+            return ResponseEntity.status(403)
+                    .body(Map.of("success", false, "message", "Brak dostępu do tego quizu"));
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            QuestionBankImporter.Summary summary = questionBankImporter.importQuestions(quizId, input, parser);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Zaimportowano " + summary.imported() + " pytań, odrzucono " + summary.rejected(),
+                    "imported", summary.imported(),
+                    "rejected", summary.rejected(),
+                    "rejections", summary.rejections()
+            ));
+        } catch (IOException e) {
+            log.error("Błąd podczas importu pytań do quizu ID: {}: {}", quizId, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("success", false, "message", "Błąd odczytu pliku"));
+        }
+    }
+
     /**
      * @brief Aktualizuje istniejące pytanie w quizie.
      * @param quizId ID quizu.
@@ -154,64 +282,10 @@ public class QuizQuestionController {
     @PutMapping("/quizzes/{quizId}/questions/{questionId}")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
     public ResponseEntity<?> updateQuizQuestion(@PathVariable Long quizId, @PathVariable Long questionId, @RequestBody QuizQuestion question) {
-        if (question.getQuestionText() == null || question.getQuestionText().isBlank()) {
+        String validationError = QuizQuestionValidator.validate(question);
+        if (validationError != null) {
             return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Treść pytania jest wymagana"));
-        }
-        if (question.getQuestionType() == null ||
-                (!question.getQuestionType().equals("multiple_choice") &&
-                        !question.getQuestionType().equals("open_ended") &&
-                        !question.getQuestionType().equals("true_false"))) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Typ pytania musi być 'multiple_choice', 'open_ended' lub 'true_false'"));
-        }
-        if (question.getQuestionType().equals("multiple_choice")) {
-            if (question.getOptions() == null || question.getOptions().size() < 2) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Pytania wielokrotnego wyboru wymagają co najmniej 2 opcji"));
-            }
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Co najmniej jedna poprawna odpowiedź jest wymagana"));
-            }
-            List<String> correctAnswers = Arrays.asList(question.getCorrectAnswer().split(","));
-            for (String correct : correctAnswers) {
-                if (!question.getOptions().containsKey(correct)) {
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("success", false, "message", "Wszystkie poprawne odpowiedzi muszą być kluczami opcji"));
-                }
-            }
-        } else if (question.getQuestionType().equals("true_false")) {
-            if (question.getOptions() == null ||
-                    !question.getOptions().entrySet().equals(
-                            Set.of(
-                                    Map.entry("True", "Prawda"),
-                                    Map.entry("False", "Fałsz")
-                            )
-                    )) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Opcje dla pytania prawda/fałsz muszą być dokładnie 'True: Prawda' i 'False: Fałsz'"));
-            }
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Co najmniej jedna poprawna odpowiedź jest wymagana"));
-            }
-            List<String> correctAnswers = Arrays.asList(question.getCorrectAnswer().split(","));
-            for (String correct : correctAnswers) {
-                if (!Set.of("True", "False").contains(correct)) {
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("success", false, "message", "Poprawne odpowiedzi muszą być 'True' lub 'False'"));
-                }
-            }
-        } else if (question.getQuestionType().equals("open_ended")) {
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().isBlank()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Poprawna odpowiedź jest wymagana dla pytań otwartych"));
-            }
-            if (question.getOptions() != null && !question.getOptions().isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("success", false, "message", "Pytania otwarte nie mogą zawierać opcji"));
-            }
+                    .body(Map.of("success", false, "message", validationError));
         }
 
         return quizQuestionRepository.findById(questionId)
@@ -231,6 +305,9 @@ public class QuizQuestionController {
                     existingQuestion.setOptions(question.getOptions());
                     existingQuestion.setCorrectAnswer(question.getCorrectAnswer());
                     QuizQuestion updatedQuestion = quizQuestionRepository.save(existingQuestion);
+                    quizRepository.incrementQuestionsVersion(quizId);
+                    gradingKeyCache.evict(quizId);
+                    questionPoolCache.evict(quizId);
                     log.info("Zaktualizowano pytanie ID: {} w quizie ID: {}", questionId, quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -267,6 +344,9 @@ public class QuizQuestionController {
                                 .body(Map.of("success", false, "message", "Brak dostępu do tego quizu"));
                     }
                     quizQuestionRepository.delete(question);
+                    quizRepository.incrementQuestionsVersion(quizId);
+                    gradingKeyCache.evict(quizId);
+                    questionPoolCache.evict(quizId);
                     log.info("Usunięto pytanie ID: {} z quizu ID: {}", questionId, quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -287,7 +367,7 @@ public class QuizQuestionController {
      */
     @GetMapping("/{courseId}/available-quizzes")
     public ResponseEntity<?> getAvailableQuizzes(@PathVariable Long courseId) {
-        Long userId = Utils.getCurrentUserId(userRepository);
+        Long userId = Utils.currentUserId();
 
         if (!userCourseRepository.existsByUserIdAndCourseId(userId, courseId)) {
             return ResponseEntity.status(403).body(Map.of(
@@ -306,6 +386,9 @@ public class QuizQuestionController {
 
     /**
      * @brief Pobiera szczegóły quizu do rozwiązania przez użytkownika.
+     * Wybór pytań i kolejność opcji wynikają z seeda zapisanego w podpisanym tokenie próby,
+     * dzięki czemu serwer może przy przesłaniu odtworzyć dokładnie ten sam zestaw pytań.
+     * Pytania pochodzą z pamięci podręcznej QuestionPoolCache, a losowanych jest tylko k z nich.
      * @param quizId ID quizu.
      * @return ResponseEntity z wynikiem operacji:
      * - success (boolean) - czy operacja się powiodła
@@ -314,32 +397,38 @@ public class QuizQuestionController {
      *   - title (String) - tytuł quizu
      *   - description (String) - opis quizu
      *   - questions (List<QuizQuestionDTO>) - lista wybranych pytań
+     *   - attemptToken (String) - token próby do odesłania w nagłówku X-Quiz-Attempt
      */
     @GetMapping("/quizzes/{quizId}")
     public ResponseEntity<?> getQuizForSolving(@PathVariable Long quizId) {
-        return quizRepository.findById(quizId)
-                .map(quiz -> {
-                    List<QuizQuestion> allQuestions = quizQuestionRepository.findByQuizId(quizId);
-                    Collections.shuffle(allQuestions);
-                    int questionsToDisplay = Math.min(quiz.getNumberOfQuestionsToDisplay(), allQuestions.size());
-                    List<QuizQuestionDTO> selectedQuestions = allQuestions.stream()
-                            .limit(questionsToDisplay)
-                            .map(q -> new QuizQuestionDTO(
-                                    q.getId(),
-                                    q.getQuestionText(),
-                                    q.getQuestionType(),
-                                    q.getOptions()
-                            ))
-                            .collect(Collectors.toList());
+        Long userId = Utils.currentUserId();
+        return questionPoolCache.get(quizId)
+                .map(pool -> {
+                    AttemptTokenService.Attempt attempt =
+                            attemptTokenService.newAttempt(quizId, pool.questionsVersion(), userId);
+                    long[] selectedIds = AttemptSelection.selectQuestions(
+                            pool.questionIds(), pool.questionsToDisplay(), attempt.seed());
+
+                    List<QuizQuestionDTO> selectedQuestions = new ArrayList<>(selectedIds.length);
+                    for (long id : selectedIds) {
+                        QuizQuestionDTO q = pool.questions().get(id);
+                        selectedQuestions.add(new QuizQuestionDTO(
+                                q.questionId(),
+                                q.questionText(),
+                                q.questionType(),
+                                AttemptSelection.orderOptions(q.options(), attempt.seed(), id)
+                        ));
+                    }
 
                     log.info("Pobrano quiz ID: {} do rozwiązania", quizId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
                             "quiz", Map.of(
-                                    "id", quiz.getId(),
-                                    "title", quiz.getTitle(),
-                                    "description", quiz.getDescription(),
-                                    "questions", selectedQuestions
+                                    "id", pool.quizId(),
+                                    "title", pool.title(),
+                                    "description", pool.description(),
+                                    "questions", selectedQuestions,
+                                    "attemptToken", attemptTokenService.encode(attempt)
                             )
                     ));
                 })
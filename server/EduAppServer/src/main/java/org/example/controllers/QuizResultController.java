@@ -4,22 +4,34 @@ package org.example.controllers;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.DataBaseRepositories.*;
+import org.example.DetailedResultsStreamer;
+import org.example.ExportFormat;
+import org.example.InvalidAttemptException;
+import org.example.ItemAnalysisService;
+import org.example.LeaderboardService;
 import org.example.PdfGenerationService;
+import org.example.QuizResultsExporter;
+import org.example.QuizStatsService;
+import org.example.QuizSubmissionService;
+import org.example.StudentProgressService;
+import org.example.SubmissionQueueFullException;
 import org.example.database.*;
 import org.example.dto.QuizAnswerDTO;
+import org.example.dto.QuizAttemptSummaryDTO;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @brief Kontroler REST do obsługi operacji związanych z wynikami quizów.
@@ -29,110 +41,88 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/courses")
 public class QuizResultController {
 
+    private static final int MAX_ATTEMPT_KEY_LENGTH = 100; ///< Maksymalna długość nagłówka Idempotency-Key.
+    private static final int MAX_DETAILED_RESULTS_PAGE = 1000; ///< Maksymalna liczba wyników na stronie szczegółowych wyników.
+    private static final int MAX_ATTEMPT_HISTORY_PAGE = 100; ///< Maksymalna liczba prób na stronie historii prób.
+
     private final QuizRepository quizRepository;
-    private final QuizQuestionRepository quizQuestionRepository;
     private final QuizResultRepository quizResultRepository;
     private final QuizAnswerRepository quizAnswerRepository;
     private final UserRepository userRepository;
     private final PdfGenerationService pdfGenerationService;
+    private final QuizSubmissionService quizSubmissionService;
+    private final DetailedResultsStreamer detailedResultsStreamer;
+    private final QuizStatsService quizStatsService;
+    private final ItemAnalysisService itemAnalysisService;
+    private final QuizResultsExporter quizResultsExporter;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
+    private final UserCourseRepository userCourseRepository;
 
     /**
      * @brief Konstruktor wstrzykujący zależności.
      * @param quizRepository Repozytorium quizów.
-     * @param quizQuestionRepository Repozytorium pytań quizowych.
      * @param quizResultRepository Repozytorium wyników quizów.
      * @param quizAnswerRepository Repozytorium odpowiedzi quizowych.
      * @param userRepository Repozytorium użytkowników.
      * @param pdfGenerationService Serwis do generowania PDF.
+     * @param quizSubmissionService Serwis oceniający i zapisujący przesłane quizy.
+     * @param detailedResultsStreamer Komponent strumieniujący szczegółowe wyniki quizu.
+     * @param quizStatsService Usługa statystyk quizów.
+     * @param itemAnalysisService Usługa analizy pytań quizów.
+     * @param quizResultsExporter Komponent eksportujący wyniki quizu do CSV/XLSX.
+     * @param studentProgressService Usługa postępów studentów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
+     * @param userCourseRepository Repozytorium przypisań użytkownik-kurs.
      */
     @Autowired
     public QuizResultController(QuizRepository quizRepository,
-                                QuizQuestionRepository quizQuestionRepository,
                                 QuizResultRepository quizResultRepository,
                                 QuizAnswerRepository quizAnswerRepository,
-                                UserRepository userRepository, PdfGenerationService pdfGenerationService) {
+                                UserRepository userRepository, PdfGenerationService pdfGenerationService,
+                                QuizSubmissionService quizSubmissionService,
+                                DetailedResultsStreamer detailedResultsStreamer,
+                                QuizStatsService quizStatsService,
+                                ItemAnalysisService itemAnalysisService,
+                                QuizResultsExporter quizResultsExporter,
+                                StudentProgressService studentProgressService,
+                                LeaderboardService leaderboardService,
+                                UserCourseRepository userCourseRepository) {
         this.quizRepository = quizRepository;
-        this.quizQuestionRepository = quizQuestionRepository;
         this.quizResultRepository = quizResultRepository;
         this.quizAnswerRepository = quizAnswerRepository;
         this.userRepository = userRepository;
         this.pdfGenerationService = pdfGenerationService;
-    }
-
-    /**
-     * @brief Waliduje odpowiedź dla pytania wielokrotnego wyboru.
-     * @param question Obiekt pytania quizowego.
-     * @param answer Odpowiedź użytkownika.
-     * @return true jeśli odpowiedź jest poprawna, false w przeciwnym razie.
-     */
-    private boolean validateMultipleChoice(QuizQuestion question, String answer) {
-        Set<String> correctAnswers = Set.of(question.getCorrectAnswer().split(","));
-        Set<String> userAnswers = Set.of(answer.split(","));
-        return correctAnswers.equals(userAnswers);
-    }
-
-    /**
-     * @brief Waliduje odpowiedź dla pytania typu prawda/fałsz.
-     * @param question Obiekt pytania quizowego.
-     * @param answer Odpowiedź użytkownika.
-     * @return true jeśli odpowiedź jest poprawna, false w przeciwnym razie.
-     */
-    private boolean validateTrueFalse(QuizQuestion question, String answer) {
-        return question.getCorrectAnswer().equalsIgnoreCase(answer);
-    }
-
-    /**
-     * @brief Waliduje odpowiedź dla pytania otwartego.
-     * @param question Obiekt pytania quizowego.
-     * @param answer Odpowiedź użytkownika.
-     * @return true jeśli odpowiedź jest poprawna, false w przeciwnym razie.
-     */
-    private boolean validateOpenEnded(QuizQuestion question, String answer) {
-        return answer.trim().equalsIgnoreCase(question.getCorrectAnswer().trim());
-    }
-
-    /**
-     * @brief Waliduje odpowiedź użytkownika w zależności od typu pytania.
-     * @param answer Obiekt DTO zawierający ID pytania i odpowiedź użytkownika.
-     * @return true jeśli odpowiedź jest poprawna, false w przeciwnym razie.
-     * @throws RuntimeException jeśli pytanie nie zostanie znalezione.
-     * @throws IllegalArgumentException jeśli typ pytania jest nieznany.
-     */
-    private boolean validateAnswer(QuizAnswerDTO answer) {
-        try {
-            QuizQuestion question = quizQuestionRepository.findById(answer.questionId())
-                    .orElseThrow(() -> {
-                        log.error("Pytanie nie znalezione z ID: {}", answer.questionId());
-                        return new RuntimeException("Pytanie nie znalezione");
-                    });
-
-            boolean isValid = switch (question.getQuestionType()) {
-                case "multiple_choice" -> validateMultipleChoice(question, answer.answer());
-                case "true_false" -> validateTrueFalse(question, answer.answer());
-                case "open_ended" -> validateOpenEnded(question, answer.answer());
-                default -> throw new IllegalArgumentException("Nieznany typ pytania");
-            };
-
-            log.trace("Walidacja dla pytania {}: {}", answer.questionId(), isValid ? "poprawna" : "niepoprawna");
-            return isValid;
-        } catch (Exception e) {
-            log.error("Błąd podczas walidacji odpowiedzi dla pytania {}: {}", answer.questionId(), e.getMessage(), e);
-            throw e;
-        }
+        this.quizSubmissionService = quizSubmissionService;
+        this.detailedResultsStreamer = detailedResultsStreamer;
+        this.quizStatsService = quizStatsService;
+        this.itemAnalysisService = itemAnalysisService;
+        this.quizResultsExporter = quizResultsExporter;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
+        this.userCourseRepository = userCourseRepository;
     }
 
     /**
      * @brief Przetwarza przesłane odpowiedzi na quiz.
+     * Odpowiedzi są oceniane od razu, a zapis wyniku odbywa się w tle (zob. QuizSubmissionService).
+     * Gdy kolejka zapisu jest pełna, zwracany jest status 503 z nagłówkiem Retry-After.
+     * Powtórzone żądanie z tym samym nagłówkiem Idempotency-Key zwraca pierwotny wynik bez ponownego zapisu.
+     * Nagłówek X-Quiz-Attempt (token zwrócony przy pobraniu quizu) ogranicza ocenę do pytań wydanych w tej próbie.
      * @param quizId ID quizu.
+     * @param attemptKey Opcjonalny klucz próby (nagłówek Idempotency-Key).
+     * @param attemptToken Opcjonalny token próby (nagłówek X-Quiz-Attempt).
      * @param answers Lista odpowiedzi użytkownika.
      * @return ResponseEntity zawierający wynik przesłania quizu.
      */
     @PostMapping("/quizzes/{quizId}/submit")
     public ResponseEntity<?> submitQuizAnswers(
             @PathVariable Long quizId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String attemptKey,
+            @RequestHeader(value = "X-Quiz-Attempt", required = false) String attemptToken,
             @RequestBody List<QuizAnswerDTO> answers
     ) {
-        Long userId = Utils.getCurrentUserId(userRepository);
+        Long userId = Utils.currentUserId();
         log.info("Próba przesłania quizu {} przez użytkownika {} z {} odpowiedziami",
                 quizId, userId, answers != null ? answers.size() : 0);
 
@@ -144,54 +134,28 @@ public class QuizResultController {
             ));
         }
 
+        if (attemptKey != null && (attemptKey.isBlank() || attemptKey.length() > MAX_ATTEMPT_KEY_LENGTH)) {
+            log.warn("Nieprawidłowy klucz próby od użytkownika {} dla quizu {}", userId, quizId);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Nieprawidłowy nagłówek Idempotency-Key"
+            ));
+        }
+
         try {
-            int totalQuestions = answers.size();
-            List<QuizAnswer> quizAnswers = new ArrayList<>();
-            int correctAnswers = 0;
-
-            QuizResult result = new QuizResult(
-                    Utils.getCurrentUser(userRepository),
-                    quizRepository.getReferenceById(quizId),
-                    0,
-                    totalQuestions,
-                    LocalDateTime.now()
-            );
-            quizResultRepository.save(result);
-
-            for (QuizAnswerDTO answer : answers) {
-                QuizQuestion question = quizQuestionRepository.findById(answer.questionId())
-                        .orElseThrow(() -> {
-                            log.error("Pytanie nie znalezione z ID: {}", answer.questionId());
-                            return new RuntimeException("Pytanie nie znalezione");
-                        });
-                boolean isCorrect = validateAnswer(answer);
-
-                QuizAnswer quizAnswer = new QuizAnswer();
-                quizAnswer.setQuizResult(result);
-                quizAnswer.setQuestion(question);
-                quizAnswer.setUserAnswer(answer.answer());
-                quizAnswer.setIsCorrect(isCorrect);
-                quizAnswers.add(quizAnswer);
-
-                if (isCorrect) {
-                    correctAnswers++;
-                }
-            }
-
-            result.setCorrectAnswers(correctAnswers);
-            quizResultRepository.save(result);
-            quizAnswerRepository.saveAll(quizAnswers);
-
-            log.info("Wyniki quizu {} zapisane dla użytkownika {}. Wynik: {}/{}",
-                    quizId, userId, correctAnswers, totalQuestions);
-
-            return ResponseEntity.ok(new SubmissionResultDTO(
-                    true,
-                    correctAnswers + "/" + totalQuestions,
-                    correctAnswers,
-                    totalQuestions,
-                    (correctAnswers * 100.0) / totalQuestions
+            return ResponseEntity.ok(quizSubmissionService.submit(userId, quizId, attemptKey, attemptToken, answers));
+        } catch (InvalidAttemptException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
             ));
+        } catch (SubmissionQueueFullException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of(
+                            "success", false,
+                            "message", "Serwer jest przeciążony, spróbuj ponownie za chwilę"
+                    ));
         } catch (Exception e) {
             log.error("Błąd podczas przetwarzania przesłania quizu {} przez użytkownika {}: {}",
                     quizId, userId, e.getMessage(), e);
@@ -203,17 +167,19 @@ public class QuizResultController {
     }
 
     /**
-     * @brief Pobiera wyniki quizu dla aktualnie zalogowanego użytkownika.
+     * @brief Pobiera wyniki ostatniej próby quizu dla aktualnie zalogowanego użytkownika.
+     * Ostatnia próba to wynik o najpóźniejszej dacie ukończenia (przy równych datach - o najwyższym ID),
+     * wyszukiwany po indeksie (user_id, quiz_id, completion_date), więc czas odpowiedzi nie zależy od liczby prób.
      * @param quizId ID quizu.
      * @return ResponseEntity zawierający wyniki quizu.
      */
     @GetMapping("/quizzes/{quizId}/results")
     public ResponseEntity<?> getQuizResults(@PathVariable Long quizId) {
-        Long userId = Utils.getCurrentUserId(userRepository);
+        Long userId = Utils.currentUserId();
         log.info("Pobieranie wyników quizu {} dla użytkownika {}", quizId, userId);
 
-        List<QuizResult> results = quizResultRepository.findByUserIdAndQuizId(userId, quizId);
-        if (results.isEmpty()) {
+        Optional<QuizResult> latest = quizResultRepository.findFirstByUserIdAndQuizIdOrderByCompletionDateDescIdDesc(userId, quizId);
+        if (latest.isEmpty()) {
             log.warn("Brak wyników dla quizu {} i użytkownika {}", quizId, userId);
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -225,7 +191,7 @@ public class QuizResultController {
             ));
         }
 
-        QuizResult latestResult = results.get(0);
+        QuizResult latestResult = latest.get();
         List<QuizAnswer> quizAnswers = quizAnswerRepository.findByQuizResultIdWithQuestions(latestResult.getId());
 
         List<Map<String, Object>> questionResults = quizAnswers.stream().map(answer -> {
@@ -238,7 +204,7 @@ public class QuizResultController {
             return questionResult;
         }).collect(Collectors.toList());
 
-        log.debug("Znaleziono {} wyników dla quizu {} i użytkownika {}", results.size(), quizId, userId);
+        log.debug("Ostatnia próba quizu {} użytkownika {}: wynik ID {}", quizId, userId, latestResult.getId());
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -251,59 +217,180 @@ public class QuizResultController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * @brief Pobiera historię prób quizu aktualnie zalogowanego użytkownika, od najnowszej, stronami.
+     * Zwraca tylko podsumowania prób (bez odpowiedzi); szczegóły ostatniej próby zwraca getQuizResults.
+     * @param quizId ID quizu.
+     * @param page Numer strony (od 0).
+     * @param size Liczba prób na stronie (1-100).
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - quizId (Long), page (Integer), size (Integer)
+     * - totalAttempts (Long) - liczba wszystkich prób
+     * - totalPages (Integer) - liczba stron
+     * - attempts (List<QuizAttemptSummaryDTO>) - próby na stronie
+     */
+    @GetMapping("/quizzes/{quizId}/results/history")
+    public ResponseEntity<?> getQuizAttemptHistory(@PathVariable Long quizId,
+                                                   @RequestParam(value = "page", defaultValue = "0") int page,
+                                                   @RequestParam(value = "size", defaultValue = "20") int size) {
+        Long userId = Utils.currentUserId();
+        log.info("Pobieranie historii prób quizu {} dla użytkownika {} (strona {}, rozmiar {})", quizId, userId, page, size);
+
+        if (page < 0 || size < 1 || size > MAX_ATTEMPT_HISTORY_PAGE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Parametr page musi być nieujemny, a size w zakresie 1-" + MAX_ATTEMPT_HISTORY_PAGE));
+        }
+
+        Page<QuizAttemptSummaryDTO> attempts = quizResultRepository.findAttemptSummaries(userId, quizId, PageRequest.of(page, size));
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "quizId", quizId,
+                "page", page,
+                "size", size,
+                "totalAttempts", attempts.getTotalElements(),
+                "totalPages", attempts.getTotalPages(),
+                "attempts", attempts.getContent()
+        ));
+    }
+
     /**
      * @brief Pobiera szczegółowe wyniki dla danego quizu (dostępne tylko dla TEACHER/ADMIN).
+     * Wyniki są czytane jednym zapytaniem i zapisywane strumieniowo do odpowiedzi (zob. DetailedResultsStreamer).
+     * Opcjonalne parametry after i limit pozwalają pobierać wyniki stronami posortowanymi po ID wyniku;
+     * wtedy odpowiedź zawiera pole nextAfter (ID do przekazania w kolejnym żądaniu lub null na ostatniej stronie).
      * @param quizId ID quizu.
+     * @param after ID wyniku, po którym zaczyna się strona (opcjonalne).
+     * @param limit Maksymalna liczba wyników na stronie (opcjonalne).
      * @return ResponseEntity zawierający szczegółowe wyniki quizu.
      */
     @GetMapping("/quizzes/{quizId}/detailed-results")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
-    public ResponseEntity<?> getQuizDetailedResults(@PathVariable Long quizId) {
+    public ResponseEntity<?> getQuizDetailedResults(@PathVariable Long quizId,
+                                                    @RequestParam(value = "after", required = false) Long after,
+                                                    @RequestParam(value = "limit", required = false) Integer limit) {
         log.info("Pobieranie szczegółowych wyników dla quizu ID: {} przez użytkownika {}", quizId, Utils.currentUsername());
 
+        if (limit != null && (limit < 1 || limit > MAX_DETAILED_RESULTS_PAGE)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Parametr limit musi być w zakresie 1-" + MAX_DETAILED_RESULTS_PAGE));
+        }
+
         return quizRepository.findById(quizId)
                 .map(quiz -> {
-                    if (Utils.isTeacher(Utils.getAuthentication()) &&
-                            !quiz.getCourse().getTeacher().getUsername().equals(Utils.currentUsername())) {
+                    if (!Utils.canViewQuizResults(quiz)) {
                         log.warn("Nauczyciel {} próbował uzyskać dostęp do szczegółowych wyników quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
                         return ResponseEntity.status(403).body(Map.of(
                                 "success", false,
                                 "message", "Brak dostępu do tego quizu"));
                     }
 
-                    List<QuizResult> results = quizResultRepository.findByQuizId(quizId);
-                    List<Map<String, Object>> detailedResults = results.stream().map(result -> {
-                        List<QuizAnswer> answers = quizAnswerRepository.findByQuizResultIdWithQuestions(result.getId());
-                        Map<String, Object> studentResult = new HashMap<>();
-                        studentResult.put("resultId", result.getId());
-                        studentResult.put("userId", result.getUser().getId());
-                        studentResult.put("username", result.getUser().getUsername());
-                        studentResult.put("correctAnswers", result.getCorrectAnswers());
-                        studentResult.put("totalQuestions", result.getTotalQuestions());
-                        studentResult.put("score", (result.getCorrectAnswers() * 100.0) / result.getTotalQuestions());
-                        studentResult.put("completionDate", result.getCompletionDate());
-
-                        List<Map<String, Object>> questionAnswers = answers.stream().map(answer -> {
-                            Map<String, Object> answerDetail = new HashMap<>();
-                            answerDetail.put("questionId", answer.getQuestion().getId());
-                            answerDetail.put("questionText", answer.getQuestion().getQuestionText());
-                            answerDetail.put("userAnswer", answer.getUserAnswer());
-                            answerDetail.put("correctAnswer", answer.getQuestion().getCorrectAnswer());
-                            answerDetail.put("isCorrect", answer.isCorrect());
-                            return answerDetail;
-                        }).collect(Collectors.toList());
-
-                        studentResult.put("answers", questionAnswers);
-                        return studentResult;
-                    }).collect(Collectors.toList());
-
-                    log.info("Pobrano szczegółowe wyniki dla quizu ID: {} z {} zgłoszeniami studentów", quizId, detailedResults.size());
+                    String quizTitle = quiz.getTitle();
+                    StreamingResponseBody body = out -> detailedResultsStreamer.write(quizId, quizTitle, after, limit, out);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(body);
+                })
+                .orElseGet(() -> {
+                    log.error("Quiz ID: {} nie znaleziony", quizId);
+                    return ResponseEntity.status(404).body(Map.of(
+                            "success", false,
+                            "message", "Quiz nie znaleziony"));
+                });
+    }
+
+    /**
+     * @brief Pobiera ranking quizu: najlepszy wynik każdego studenta, przy równych wynikach wyżej jest
+     * wcześniejsza próba. Ranking jest utrzymywany w pamięci (LeaderboardService), więc odczyt nie odpytuje bazy wyników.
+     * Dostępne dla studentów zapisanych na kurs quizu, nauczyciela kursu oraz ADMIN.
+     * @param quizId ID quizu.
+     * @param limit Liczba miejsc (domyślnie 10, maksymalnie quiz.leaderboard.max-limit).
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - quizId (Long), quizTitle (String)
+     * - leaderboard (List<Map>) - kolejne miejsca: rank, userId, username, score, completionDate
+     */
+    @GetMapping("/quizzes/{quizId}/leaderboard")
+    public ResponseEntity<?> getQuizLeaderboard(@PathVariable Long quizId,
+                                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > leaderboardService.getMaxLimit()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Parametr limit musi być w zakresie 1-" + leaderboardService.getMaxLimit()));
+        }
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    Authentication auth = Utils.getAuthentication();
+                    boolean allowed = (Utils.isAdmin(auth) || Utils.isTeacher(auth))
+                            ? Utils.canViewQuizResults(quiz)
+                            : userCourseRepository.existsByUserIdAndCourseId(
+                                    Utils.currentUserId(), quiz.getCourse().getId());
+                    if (!allowed) {
+                        log.warn("Użytkownik {} próbował pobrać ranking quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
+                        return ResponseEntity.status(403).body(Map.of(
+                                "success", false,
+                                "message", "Brak dostępu do tego quizu"));
+                    }
+
+                    List<Map<String, Object>> leaderboard = new ArrayList<>();
+                    for (LeaderboardService.Entry entry : leaderboardService.topForQuiz(quizId, limit)) {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("rank", leaderboard.size() + 1);
+                        row.put("userId", entry.userId());
+                        row.put("username", entry.username());
+                        row.put("score", Math.round(entry.score() * 100.0) / 100.0);
+                        row.put("completionDate", entry.completionDate());
+                        leaderboard.add(row);
+                    }
                     return ResponseEntity.ok(Map.of(
                             "success", true,
                             "quizId", quizId,
                             "quizTitle", quiz.getTitle(),
-                            "results", detailedResults
-                    ));
+                            "leaderboard", leaderboard));
+                })
+                .orElseGet(() -> {
+                    log.error("Quiz ID: {} nie znaleziony", quizId);
+                    return ResponseEntity.status(404).body(Map.of(
+                            "success", false,
+                            "message", "Quiz nie znaleziony"));
+                });
+    }
+
+    /**
+     * @brief Pobiera analizę pytań quizu (dostępne tylko dla TEACHER/ADMIN).
+     * Dla każdego pytania zwraca trudność (pValue - odsetek poprawnych odpowiedzi), moc różnicującą
+     * (discrimination - korelacja punktowo-dwuseryjna z wynikiem próby, null gdy nieokreślona)
+     * oraz częstość wyboru poszczególnych odpowiedzi (choices).
+     * @param quizId ID quizu.
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - quizId (Long), quizTitle (String), attempts (Long) - liczba uwzględnionych prób
+     * - questions (List<Map>) - analiza kolejnych pytań
+     */
+    @GetMapping("/quizzes/{quizId}/item-analysis")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> getQuizItemAnalysis(@PathVariable Long quizId) {
+        log.info("Pobieranie analizy pytań quizu ID: {} przez użytkownika {}", quizId, Utils.currentUsername());
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    if (!Utils.canViewQuizResults(quiz)) {
+                        log.warn("Nauczyciel {} próbował uzyskać dostęp do analizy pytań quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
+                        return ResponseEntity.status(403).body(Map.of(
+                                "success", false,
+                                "message", "Brak dostępu do tego quizu"));
+                    }
+
+                    ItemAnalysisService.Report report = itemAnalysisService.analyze(quizId);
+                    return ResponseEntity.ok(Map.of(
+                            "success", true,
+                            "quizId", quizId,
+                            "quizTitle", quiz.getTitle(),
+                            "attempts", report.attempts(),
+                            "questions", report.questions()));
                 })
                 .orElseGet(() -> {
                     log.error("Quiz ID: {} nie znaleziony", quizId);
@@ -322,7 +409,7 @@ public class QuizResultController {
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
     @Transactional
     public ResponseEntity<?> deleteQuizResult(@PathVariable Long resultId) {
-        Long currentUserId = Utils.getCurrentUserId(userRepository);
+        Long currentUserId = Utils.currentUserId();
         log.info("Użytkownik {} próbuje usunąć wynik quizu o ID: {}", currentUserId, resultId);
 
         // Pobranie obiektu Authentication z Twojej klasy Utils
@@ -344,6 +431,12 @@ public class QuizResultController {
                     // Logika usuwania - dostępna dla admina lub właściwego nauczyciela
                     quizAnswerRepository.deleteByQuizResultId(resultId);
                     quizResultRepository.delete(result);
+                    quizResultRepository.flush();
+                    quizStatsService.recordDeletion(result.getQuiz().getId(), result.getCorrectAnswers(), result.getTotalQuestions());
+                    itemAnalysisService.evict(result.getQuiz().getId());
+                    studentProgressService.evict(result.getUser().getId());
+                    leaderboardService.recordDeletion(result.getQuiz().getId(), result.getUser().getId(),
+                            result.getCorrectAnswers(), result.getTotalQuestions());
 
                     log.info("Wynik quizu ID: {} został pomyślnie usunięty przez użytkownika {}.", resultId, Utils.currentUsername());
                     return ResponseEntity.ok(Map.of("success", true, "message", "Wynik został usunięty."));
@@ -355,27 +448,24 @@ public class QuizResultController {
     }
     /**
      * @brief Generuje i pobiera raport PDF ze szczegółowymi wynikami quizu (dostępne tylko dla TEACHER/ADMIN).
+     * Dokument jest generowany w trakcie wysyłania odpowiedzi (zob. PdfGenerationService), bez buforowania w pamięci.
      * @param quizId ID quizu.
      * @return ResponseEntity zawierający strumień danych PDF.
      */
     @GetMapping("/quizzes/{quizId}/detailed-results/pdf")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
-    public ResponseEntity<InputStreamResource> downloadQuizResultsPdf(@PathVariable Long quizId) {
+    public ResponseEntity<StreamingResponseBody> downloadQuizResultsPdf(@PathVariable Long quizId) {
         log.info("Generowanie raportu PDF dla quizu ID: {}", quizId);
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new RuntimeException("Quiz nie znaleziony"));
 
-        if (Utils.isTeacher(Utils.getAuthentication()) &&
-                !quiz.getCourse().getTeacher().getUsername().equals(Utils.currentUsername())) {
+        if (!Utils.canViewQuizResults(quiz)) {
             log.warn("Nauczyciel {} próbował pobrać PDF dla quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
             return ResponseEntity.status(403).build();
         }
 
-        List<QuizResult> results = quizResultRepository.findByQuizId(quizId);
-        results.forEach(result -> result.setQuizAnswers(quizAnswerRepository.findByQuizResultIdWithQuestions(result.getId())));
-
-
-        ByteArrayInputStream bis = pdfGenerationService.generateQuizResultsPdf(quiz, results);
+        String quizTitle = quiz.getTitle();
+        StreamingResponseBody body = out -> pdfGenerationService.writeQuizResultsPdf(quizId, quizTitle, out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition", "inline; filename=quiz_results_" + quizId + ".pdf");
@@ -384,6 +474,69 @@ public class QuizResultController {
                 .ok()
                 .headers(headers)
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(new InputStreamResource(bis));
+                .body(body);
+    }
+
+    /**
+     * @brief Eksportuje wyniki quizu do CSV lub XLSX (dostępne tylko dla TEACHER/ADMIN).
+     * Jeden wiersz na próbę, z kolumną poprawności dla każdego pytania. Wiersze są czytane kursorem
+     * i zapisywane strumieniowo (zob. QuizResultsExporter). Jeśli klient akceptuje gzip,
+     * eksport CSV jest kompresowany (XLSX jest już skompresowanym archiwum).
+     * @param quizId ID quizu.
+     * @param format Format eksportu: csv (domyślny) lub xlsx.
+     * @param acceptEncoding Nagłówek Accept-Encoding żądania.
+     * @return ResponseEntity zawierający strumień pliku eksportu.
+     */
+    @GetMapping("/quizzes/{quizId}/results/export")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> exportQuizResults(@PathVariable Long quizId,
+                                               @RequestParam(value = "format", defaultValue = "csv") String format,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Eksport wyników quizu ID: {} do {} przez użytkownika {}", quizId, format, Utils.currentUsername());
+
+        Optional<ExportFormat> exportFormat = ExportFormat.parse(format, QuizResultsExporter.FORMATS);
+        if (exportFormat.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Nieobsługiwany format eksportu (dozwolone: csv, xlsx)"));
+        }
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    if (!Utils.canViewQuizResults(quiz)) {
+                        log.warn("Nauczyciel {} próbował wyeksportować wyniki quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
+                        return ResponseEntity.status(403).body(Map.of(
+                                "success", false,
+                                "message", "Brak dostępu do tego quizu"));
+                    }
+
+                    ExportFormat selected = exportFormat.get();
+                    boolean gzip = selected == ExportFormat.CSV
+                            && acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+                    StreamingResponseBody body = out -> {
+                        if (gzip) {
+                            GZIPOutputStream compressed = new GZIPOutputStream(out, 16 * 1024);
+                            quizResultsExporter.export(quizId, selected, compressed);
+                            compressed.finish();
+                        } else {
+                            quizResultsExporter.export(quizId, selected, out);
+                        }
+                    };
+
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .header("Content-Disposition", "attachment; filename=quiz_results_" + quizId + "." + selected.getExtension())
+                            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                            .contentType(MediaType.parseMediaType(selected.getContentType()));
+                    if (gzip) {
+                        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                    return response.body(body);
+                })
+                .orElseGet(() -> {
+                    log.error("Quiz ID: {} nie znaleziony", quizId);
+                    return ResponseEntity.status(404).body(Map.of(
+                            "success", false,
+                            "message", "Quiz nie znaleziony"));
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package org.example.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.ReportJobService;
+import org.example.ReportQueueFullException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * @brief Kontroler zadań asynchronicznego generowania raportów PDF z wynikami quizów.
+ * Raport zleca się jednym żądaniem, stan sprawdza po ID zadania, a gotowy plik pobiera osobnym żądaniem.
+ * Generowanie odbywa się w puli wątków ReportJobService, a nie w wątku obsługującym żądanie.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/courses")
+public class ReportJobController {
+
+    private final QuizRepository quizRepository;
+    private final ReportJobService reportJobService;
+
+    /**
+     * @brief Konstruktor wstrzykujący zależności.
+     * @param quizRepository Repozytorium quizów.
+     * @param reportJobService Usługa zadań generowania raportów.
+     */
+    @Autowired
+    public ReportJobController(QuizRepository quizRepository, ReportJobService reportJobService) {
+        this.quizRepository = quizRepository;
+        this.reportJobService = reportJobService;
+    }
+
+    /**
+     * @brief Zleca wygenerowanie raportu PDF ze szczegółowymi wynikami quizu (dostępne tylko dla TEACHER/ADMIN).
+     * Jeśli raport dla bieżącej wersji wyników jest już gotowy, zadanie ma od razu stan DONE.
+     * @param quizId ID quizu.
+     * @return ResponseEntity (202) z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - jobId (String) - ID zadania
+     * - status (String) - stan zadania (QUEUED, RUNNING, DONE, FAILED)
+     */
+    @PostMapping("/quizzes/{quizId}/detailed-results/pdf/jobs")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> submitQuizResultsPdfJob(@PathVariable Long quizId) {
+        log.info("Zlecanie raportu PDF dla quizu ID: {} przez użytkownika {}", quizId, Utils.currentUsername());
+
+        return quizRepository.findById(quizId)
+                .map(quiz -> {
+                    if (!Utils.canViewQuizResults(quiz)) {
+                        log.warn("Nauczyciel {} próbował zlecić raport PDF dla quizu ID: {} bez uprawnień", Utils.currentUsername(), quizId);
+                        return ResponseEntity.status(403).body(Map.of(
+                                "success", false,
+                                "message", "Brak dostępu do tego quizu"));
+                    }
+                    try {
+                        ReportJobService.JobInfo job = reportJobService.submit(quizId, Utils.currentUsername());
+                        return ResponseEntity.accepted().body(describe(job));
+                    } catch (ReportQueueFullException e) {
+                        return ResponseEntity.status(503)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                                .body(Map.of(
+                                        "success", false,
+                                        "message", "Serwer jest przeciążony, spróbuj ponownie za chwilę"));
+                    } catch (NoSuchElementException e) {
+                        return ResponseEntity.status(404).body(Map.of(
+                                "success", false,
+                                "message", "Quiz nie znaleziony"));
+                    }
+                })
+                .orElseGet(() -> {
+                    log.error("Quiz ID: {} nie znaleziony", quizId);
+                    return ResponseEntity.status(404).body(Map.of(
+                            "success", false,
+                            "message", "Quiz nie znaleziony"));
+                });
+    }
+
+    /**
+     * @brief Pobiera stan zadania generowania raportu (dostępne dla zlecającego oraz ADMIN).
+     * @param jobId ID zadania.
+     * @return ResponseEntity z wynikiem operacji:
+     * - success (boolean) - czy operacja się powiodła
+     * - jobId (String), quizId (Long), status (String), cached (boolean)
+     * - message (String) - opis błędu (dla stanu FAILED)
+     * - downloadUrl (String) - adres pobrania (dla stanu DONE)
+     */
+    @GetMapping("/reports/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId) {
+        return reportJobService.find(jobId)
+                .filter(this::canAccess)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(describe(job)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of(
+                        "success", false,
+                        "message", "Zadanie nie istnieje lub wygasło")));
+    }
+
+    /**
+     * @brief Pobiera gotowy raport PDF (dostępne dla zlecającego oraz ADMIN).
+     * @param jobId ID zadania.
+     * @return ResponseEntity z plikiem PDF, 409 jeśli raport nie jest jeszcze gotowy,
+     * 410 jeśli plik został zastąpiony nowszą wersją raportu.
+     */
+    @GetMapping("/reports/jobs/{jobId}/download")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<?> downloadReport(@PathVariable String jobId) {
+        return reportJobService.find(jobId)
+                .filter(this::canAccess)
+                .<ResponseEntity<?>>map(job -> {
+                    if (job.status() != ReportJobService.Status.DONE) {
+                        return ResponseEntity.status(409).body(Map.of(
+                                "success", false,
+                                "message", "Raport nie jest gotowy",
+                                "status", job.status().name()));
+                    }
+                    if (!Files.exists(job.file())) {
+                        return ResponseEntity.status(410).body(Map.of(
+                                "success", false,
+                                "message", "Raport został zastąpiony nowszą wersją, zleć go ponownie"));
+                    }
+                    log.info("Pobieranie raportu PDF quizu ID: {} (zadanie {}) przez użytkownika {}", job.quizId(), jobId, Utils.currentUsername());
+                    return ResponseEntity.ok()
+                            .header("Content-Disposition", "inline; filename=quiz_results_" + job.quizId() + ".pdf")
+                            .contentType(MediaType.APPLICATION_PDF)
+                            .body(new FileSystemResource(job.file()));
+                })
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of(
+                        "success", false,
+                        "message", "Zadanie nie istnieje lub wygasło")));
+    }
+
+    private boolean canAccess(ReportJobService.JobInfo job) {
+        return Utils.isAdmin(Utils.getAuthentication()) || job.owners().contains(Utils.currentUsername());
+    }
+
+    private static Map<String, Object> describe(ReportJobService.JobInfo job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.id());
+        response.put("quizId", job.quizId());
+        response.put("status", job.status().name());
+        response.put("cached", job.cached());
+        if (job.message() != null) {
+            response.put("message", job.message());
+        }
+        if (job.status() == ReportJobService.Status.DONE) {
+            response.put("downloadUrl", "/api/courses/reports/jobs/" + job.id() + "/download");
+        }
+        return response;
+    }
+}
@@ -5,16 +5,28 @@ import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.CodeValidity;
 import org.example.DataBaseRepositories.*;
+import org.example.ItemAnalysisService;
+import org.example.LeaderboardService;
+import org.example.QuizStatsService;
+import org.example.StudentProgressService;
 import org.example.database.*;
+import org.example.security.PasswordHashingBusyException;
+import org.example.security.PasswordHashingService;
+import org.example.security.RefreshTokenService;
+import org.example.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -27,33 +39,61 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final RoleCodeRepository roleCodeRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserCourseRepository userCourseRepository;
     private final QuizResultRepository quizResultRepository;
     private final QuizAnswerRepository quizAnswerRepository;
+    private final QuizStatsService quizStatsService;
+    private final ItemAnalysisService itemAnalysisService;
+    private final StudentProgressService studentProgressService;
+    private final LeaderboardService leaderboardService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RefreshTokenService refreshTokenService;
+    private final Executor persistenceExecutor;
 
     /**
      * @brief Konstruktor wstrzykujący zależności.
      * @param userRepository Repozytorium użytkowników.
      * @param roleCodeRepository Repozytorium kodów ról.
-     * @param passwordEncoder Koder haseł.
+     * @param passwordHashingService Usługa haszowania haseł w osobnej puli wątków.
      * @param userCourseRepository Repozytorium przypisań użytkownik-kurs.
      * @param quizResultRepository Repozytorium wyników quizów.
      * @param quizAnswerRepository Repozytorium odpowiedzi quizowych.
+     * @param quizStatsService Usługa statystyk quizów.
+     * @param itemAnalysisService Usługa analizy pytań quizów.
+     * @param studentProgressService Usługa postępów studentów.
+     * @param leaderboardService Usługa rankingów quizów i grup kursów.
+     * @param tokenVersionRegistry Rejestr wersji tokenów (unieważnianie tokenów po zmianie roli).
+     * @param refreshTokenService Usługa tokenów odświeżania (unieważnianie przy zmianie roli i usunięciu).
+     * @param persistenceExecutor Pula zadań aplikacji (applicationTaskExecutor), w której zapisywany jest nowy użytkownik.
      */
     @Autowired
     public UserController(UserRepository userRepository,
                           RoleCodeRepository roleCodeRepository,
-                          PasswordEncoder passwordEncoder,
+                          PasswordHashingService passwordHashingService,
                           UserCourseRepository userCourseRepository,
                           QuizResultRepository quizResultRepository,
-                          QuizAnswerRepository quizAnswerRepository) {
+                          QuizAnswerRepository quizAnswerRepository,
+                          QuizStatsService quizStatsService,
+                          ItemAnalysisService itemAnalysisService,
+                          StudentProgressService studentProgressService,
+                          LeaderboardService leaderboardService,
+                          TokenVersionRegistry tokenVersionRegistry,
+                          RefreshTokenService refreshTokenService,
+                          @Qualifier("applicationTaskExecutor") Executor persistenceExecutor) {
         this.userRepository = userRepository;
         this.roleCodeRepository = roleCodeRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.userCourseRepository = userCourseRepository;
         this.quizResultRepository = quizResultRepository;
         this.quizAnswerRepository = quizAnswerRepository;
+        this.quizStatsService = quizStatsService;
+        this.itemAnalysisService = itemAnalysisService;
+        this.studentProgressService = studentProgressService;
+        this.leaderboardService = leaderboardService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.refreshTokenService = refreshTokenService;
+        this.persistenceExecutor = persistenceExecutor;
     }
 
     /**
@@ -83,8 +123,7 @@ public class UserController {
                     .body(Map.of("success", false, "message", "Nieprawidłowa wartość validity. Dozwolone: 1_HOUR, 2_HOURS, 1_DAY, 1_WEEK"));
         }
 
-        User teacher = userRepository.findByUsername(Utils.currentUsername())
-                .orElseThrow(() -> new RuntimeException("Nauczyciel nie znaleziony"));
+        User teacher = Utils.getCurrentUserReference(userRepository);
 
         String code;
         int attempts = 0;
@@ -123,12 +162,14 @@ public class UserController {
 
     /**
      * @brief Rejestruje nowego użytkownika z rolą STUDENT.
-     * Wymaga podania nazwy użytkownika, hasła i kodu roli.
+     * Wymaga podania nazwy użytkownika, hasła i kodu roli. Hasło jest haszowane w puli PasswordHashingService;
+     * przy pełnej kolejce zwracana jest od razu odpowiedź 503. Użytkownik jest zapisywany w puli zadań aplikacji,
+     * a nie w wątku haszującym.
      * @param request Mapa zawierająca "username", "password" i "roleCode".
      * @return ResponseEntity z informacją o sukcesie lub błędzie rejestracji.
      */
     @PostMapping("/auth/register")
-    public ResponseEntity<?> registerUser(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody Map<String, String> request) {
         log.info("Próba rejestracji użytkownika");
 
         String username = request.get("username");
@@ -137,50 +178,58 @@ public class UserController {
 
         if (username == null || username.isBlank() || password == null || password.isBlank() || roleCode == null || roleCode.isBlank()) {
             log.warn("Nieprawidłowe dane rejestracji: brak nazwy użytkownika, hasła lub kodu roli");
-            return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Nazwa użytkownika, hasło i kod roli są wymagane"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Nazwa użytkownika, hasło i kod roli są wymagane")));
         }
 
         if (userRepository.findByUsername(username).isPresent()) {
             log.warn("Nazwa użytkownika {} jest już zajęta", username);
-            return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Nazwa użytkownika jest już zajęta"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Nazwa użytkownika jest już zajęta")));
         }
 
-        return roleCodeRepository.findByCodeAndIsActiveTrue(roleCode)
-                .map(code -> {
-                    if (code.getExpiresAt().isBefore(LocalDateTime.now())) {
-                        log.warn("Kod {} wygasł", roleCode);
-                        return ResponseEntity.badRequest()
-                                .body(Map.of("success", false, "message", "Kod wygasł"));
-                    }
-
-                    if (code.getRole() != UserRole.STUDENT) {
-                        log.warn("Kod {} nie jest przeznaczony dla roli STUDENT", roleCode);
-                        return ResponseEntity.badRequest()
-                                .body(Map.of("success", false, "message", "Nieprawidłowy kod roli"));
-                    }
-
-                    User user = new User();
-                    user.setUsername(username);
-                    user.setPassword(passwordEncoder.encode(password));
-                    user.setRole(UserRole.STUDENT);
-                    userRepository.save(user);
-
-                    code.setActive(false);
-                    roleCodeRepository.save(code);
+        Optional<RoleCode> found = roleCodeRepository.findByCodeAndIsActiveTrue(roleCode);
+        if (found.isEmpty()) {
+            log.warn("Nieprawidłowy lub nieaktywny kod roli: {}", roleCode);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Nieprawidłowy lub nieaktywny kod roli")));
+        }
+        RoleCode code = found.get();
+        if (code.getExpiresAt().isBefore(LocalDateTime.now())) {
+            log.warn("Kod {} wygasł", roleCode);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Kod wygasł")));
+        }
+        if (code.getRole() != UserRole.STUDENT) {
+            log.warn("Kod {} nie jest przeznaczony dla roli STUDENT", roleCode);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Nieprawidłowy kod roli")));
+        }
 
-                    log.info("Użytkownik {} zarejestrowany pomyślnie z rolą STUDENT", username);
-                    return ResponseEntity.ok(Map.of(
-                            "success", true,
-                            "message", "Rejestracja pomyślna"
-                    ));
-                })
-                .orElseGet(() -> {
-                    log.warn("Nieprawidłowy lub nieaktywny kod roli: {}", roleCode);
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("success", false, "message", "Nieprawidłowy lub nieaktywny kod roli"));
-                });
+        CompletableFuture<String> encodedPassword;
+        try {
+            encodedPassword = passwordHashingService.encode(password);
+        } catch (PasswordHashingBusyException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("success", false, "message", "Serwer jest przeciążony, spróbuj ponownie za chwilę")));
+        }
+        return encodedPassword.thenApplyAsync(encoded -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword(encoded);
+            user.setRole(UserRole.STUDENT);
+            userRepository.save(user);
+
+            code.setActive(false);
+            roleCodeRepository.save(code);
+
+            log.info("Użytkownik {} zarejestrowany pomyślnie z rolą STUDENT", username);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Rejestracja pomyślna"
+            ));
+        }, persistenceExecutor);
     }
 
     /**
@@ -210,12 +259,13 @@ public class UserController {
 
     /**
      * @brief Promuje użytkownika do roli TEACHER.
-     * Dostępne tylko dla ADMIN.
+     * Dostępne tylko dla ADMIN. Unieważnia dotychczasowe tokeny użytkownika.
      * @param userId ID użytkownika do awansowania.
      * @return ResponseEntity z informacją o sukcesie lub błędzie.
      */
     @PostMapping("/users/{userId}/promote-to-teacher")
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public ResponseEntity<?> promoteToTeacher(@PathVariable Long userId) {
         log.info("Próba nadania roli TEACHER użytkownikowi ID: {} przez admina {}", userId, Utils.currentUsername());
         return userRepository.findById(userId)
@@ -233,7 +283,10 @@ public class UserController {
                         ));
                     }
                     user.setRole(UserRole.TEACHER);
+                    user.incrementTokenVersion();
                     userRepository.save(user);
+                    tokenVersionRegistry.register(user);
+                    refreshTokenService.revokeUser(userId);
                     log.info("Użytkownik ID: {} otrzymał rolę TEACHER", userId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -249,12 +302,13 @@ public class UserController {
 
     /**
      * @brief Degraduuje użytkownika do roli STUDENT.
-     * Dostępne tylko dla ADMIN.
+     * Dostępne tylko dla ADMIN. Unieważnia dotychczasowe tokeny użytkownika.
      * @param userId ID użytkownika do degradacji.
      * @return ResponseEntity z informacją o sukcesie lub błędzie.
      */
     @PostMapping("/users/{userId}/demote-to-student")
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public ResponseEntity<?> demoteToStudent(@PathVariable Long userId) {
         log.info("Próba zmiany roli na STUDENT dla użytkownika ID: {} przez admina {}", userId, Utils.currentUsername());
         return userRepository.findById(userId)
@@ -272,7 +326,10 @@ public class UserController {
                         ));
                     }
                     user.setRole(UserRole.STUDENT);
+                    user.incrementTokenVersion();
                     userRepository.save(user);
+                    tokenVersionRegistry.register(user);
+                    refreshTokenService.revokeUser(userId);
                     log.info("Użytkownik ID: {} otrzymał rolę STUDENT", userId);
                     return ResponseEntity.ok(Map.of(
                             "success", true,
@@ -342,6 +399,17 @@ public class UserController {
         }
 
         userRepository.delete(userToDelete);
+        studentProgressService.evict(userId);
+        leaderboardService.removeUser(userId);
+        tokenVersionRegistry.revokeUser(userId);
+        refreshTokenService.deleteUser(userId);
+        if (quizResultsForUser != null && !quizResultsForUser.isEmpty()) {
+            userRepository.flush();
+            for (QuizResult result : quizResultsForUser) {
+                quizStatsService.recordDeletion(result.getQuiz().getId(), result.getCorrectAnswers(), result.getTotalQuestions());
+                itemAnalysisService.evict(result.getQuiz().getId());
+            }
+        }
         log.info("Użytkownik ID: {} został pomyślnie usunięty przez administratora {}", userId, adminUsername);
 
         return ResponseEntity.ok(Map.of(
@@ -2,7 +2,9 @@
 package org.example.controllers;
 
 import org.example.DataBaseRepositories.UserRepository;
+import org.example.database.Quiz;
 import org.example.database.User;
+import org.example.security.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -56,31 +58,45 @@ public class Utils {
     }
 
     /**
-     * @brief Pobiera obiekt użytkownika dla aktualnie zalogowanego użytkownika.
-     * @param userRepository Repozytorium użytkowników do wyszukania użytkownika.
-     * @return Obiekt User aktualnie zalogowanego użytkownika.
-     * @throws RuntimeException jeśli użytkownik nie zostanie znaleziony.
+     * @brief Sprawdza, czy aktualnie zalogowany użytkownik może przeglądać wyniki quizu:
+     * nauczyciel tylko dla quizów własnych kursów, pozostałe role dopuszczone przez @PreAuthorize zawsze.
+     * @param quiz Quiz.
+     * @return true, jeśli dostęp jest dozwolony.
      */
-    public static User getCurrentUser(UserRepository userRepository) {
-        return userRepository.findByUsername(currentUsername())
-                .orElseThrow(() -> new RuntimeException("Użytkownik nie znaleziony"));
+    public static boolean canViewQuizResults(Quiz quiz) {
+        return !isTeacher(getAuthentication()) ||
+                quiz.getCourse().getTeacher().getUsername().equals(currentUsername());
     }
 
     /**
-     * @brief Pobiera ID użytkownika aktualnie zalogowanego użytkownika.
-     * @param userRepository Repozytorium użytkowników do wyszukania ID użytkownika.
+     * @brief Zwraca tożsamość aktualnie zalogowanego użytkownika odczytaną z tokenu JWT (bez odczytu z bazy).
+     * @return Principal AuthenticatedUser z ID, nazwą i rolą użytkownika.
+     * @throws RuntimeException jeśli żądanie nie zostało uwierzytelnione tokenem JWT.
+     */
+    public static AuthenticatedUser currentUser() {
+        Authentication auth = getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        throw new RuntimeException("Użytkownik nie znaleziony");
+    }
+
+    /**
+     * @brief Zwraca ID aktualnie zalogowanego użytkownika (z tokenu JWT, bez odczytu z bazy).
      * @return ID aktualnie zalogowanego użytkownika.
-     * @throws RuntimeException jeśli użytkownik nie zostanie znaleziony.
      */
-    public static Long getCurrentUserId(UserRepository userRepository) {
-        String username = currentUsername();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    org.slf4j.LoggerFactory.getLogger(Utils.class)
-                            .error("Użytkownik nie znaleziony z nazwą: {}", username);
-                    return new RuntimeException("Użytkownik nie znaleziony");
-                })
-                .getId();
+    public static Long currentUserId() {
+        return currentUser().id();
+    }
+
+    /**
+     * @brief Zwraca referencję encji aktualnie zalogowanego użytkownika do użycia w relacjach (np. UserCourse).
+     * Referencja nie jest wczytywana z bazy, dopóki nie zostanie odczytane inne pole niż ID.
+     * @param userRepository Repozytorium użytkowników.
+     * @return Referencja encji User aktualnie zalogowanego użytkownika.
+     */
+    public static User getCurrentUserReference(UserRepository userRepository) {
+        return userRepository.getReferenceById(currentUserId());
     }
 
     /**
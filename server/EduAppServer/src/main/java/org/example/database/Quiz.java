@@ -57,6 +57,16 @@ public class Quiz {
     @Column(nullable = false)
     private int numberOfQuestionsToDisplay;
 
+    /**
+     * Wersja zestawu pytań quizu. Zwiększana przy każdej zmianie pytań lub liczby wyświetlanych pytań,
+     * dzięki czemu tokeny prób wydane dla starszej wersji mogą zostać odrzucone.
+     * Null dla quizów utworzonych przed wprowadzeniem wersjonowania (traktowane jako 0).
+     * Pole jest ignorowane podczas serializacji JSON.
+     */
+    @Column(name = "questions_version")
+    @JsonIgnore
+    private Integer questionsVersion;
+
     /**
      * Lista pytań należących do tego quizu.
      * Relacja jeden do wielu z klasą QuizQuestion.
@@ -119,4 +129,8 @@ public class Quiz {
     public void setNumberOfQuestionsToDisplay(int numberOfQuestionsToDisplay) {
         this.numberOfQuestionsToDisplay = numberOfQuestionsToDisplay;
     }
+
+    public int getQuestionsVersion() {
+        return questionsVersion != null ? questionsVersion : 0;
+    }
 }
\ No newline at end of file
@@ -9,7 +9,9 @@ import lombok.Data;
  * Mapowana jest do tabeli "quiz_answers" w bazie danych.
  */
 @Entity
-@Table(name = "quiz_answers")
+@Table(name = "quiz_answers", indexes = {
+        @Index(name = "ix_quiz_answers_result", columnList = "quiz_result_id")
+})
 @Data
 public class QuizAnswer {
     /**
@@ -10,7 +10,11 @@ import java.util.List;
  * Mapowana jest do tabeli "quiz_results" w bazie danych.
  */
 @Entity
-@Table(name = "quiz_results")
+@Table(name = "quiz_results", indexes = {
+        @Index(name = "ux_quiz_results_user_quiz_attempt_key", columnList = "user_id, quiz_id, attempt_key", unique = true),
+        @Index(name = "ix_quiz_results_quiz", columnList = "quiz_id, id"),
+        @Index(name = "ix_quiz_results_user_quiz_date", columnList = "user_id, quiz_id, completion_date, id")
+})
 public class QuizResult {
     /**
      * Unikalny identyfikator wyniku quizu.
@@ -56,6 +60,13 @@ public class QuizResult {
     @Column(nullable = false)
     private LocalDateTime completionDate;
 
+    /**
+     * Klucz próby przesłany przez klienta (nagłówek Idempotency-Key).
+     * Unikalny w obrębie użytkownika i quizu; chroni przed zapisaniem tego samego podejścia wielokrotnie.
+     */
+    @Column(name = "attempt_key")
+    private String attemptKey;
+
     /**
      * Lista odpowiedzi udzielonych przez użytkownika w ramach tego wyniku quizu.
      * Relacja jeden do wielu z klasą QuizAnswer.
@@ -98,6 +109,8 @@ public class QuizResult {
     public void setTotalQuestions(int totalQuestions) { this.totalQuestions = totalQuestions; }
     public LocalDateTime getCompletionDate() { return completionDate; }
     public void setCompletionDate(LocalDateTime completionDate) { this.completionDate = completionDate; }
+    public String getAttemptKey() { return attemptKey; }
+    public void setAttemptKey(String attemptKey) { this.attemptKey = attemptKey; }
     public List<QuizAnswer> getQuizAnswers() { return quizAnswers; }
     public void setQuizAnswers(List<QuizAnswer> quizAnswers) { this.quizAnswers = quizAnswers; }
 }
\ No newline at end of file
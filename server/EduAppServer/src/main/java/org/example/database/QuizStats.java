@@ -0,0 +1,100 @@
+package org.example.database;
+
+import jakarta.persistence.*;
+
+/**
+ * @brief
+ * Klasa encji przechowująca zagregowane statystyki wyników jednego quizu.
+ * Mapowana jest do tabeli "quiz_stats" w bazie danych.
+ * Wiersz jest aktualizowany przyrostowo w tej samej transakcji co zapis lub usunięcie wyniku
+ * (zob. QuizStatsService), więc odczyt statystyk nie wymaga przeglądania wyników.
+ * Wynik próby liczony jest w procentach: poprawne odpowiedzi * 100 / liczba pytań.
+ */
+@Entity
+@Table(name = "quiz_stats")
+public class QuizStats {
+    /**
+     * ID quizu, którego dotyczą statystyki (klucz główny).
+     */
+    @Id
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    /**
+     * Liczba prób.
+     */
+    @Column(nullable = false)
+    private long attempts;
+
+    /**
+     * Suma wyników procentowych.
+     */
+    @Column(name = "score_sum", nullable = false)
+    private double scoreSum;
+
+    /**
+     * Suma kwadratów wyników procentowych (do wyznaczenia odchylenia standardowego).
+     */
+    @Column(name = "score_sum_squares", nullable = false)
+    private double scoreSumSquares;
+
+    /**
+     * Najniższy wynik procentowy lub null, jeśli nie ma prób.
+     */
+    @Column(name = "min_score")
+    private Double minScore;
+
+    /**
+     * Najwyższy wynik procentowy lub null, jeśli nie ma prób.
+     */
+    @Column(name = "max_score")
+    private Double maxScore;
+
+    /**
+     * Liczba prób z wynikiem nie niższym niż próg zaliczenia.
+     */
+    @Column(name = "pass_count", nullable = false)
+    private long passCount;
+
+    /**
+     * Wersja wyników quizu, zwiększana przy każdym zapisie i usunięciu wyniku oraz przy przebudowie statystyk.
+     * Nigdy nie maleje, więc (w przeciwieństwie do liczby i maksymalnego ID wyników) identyfikuje stan wyników
+     * także po usunięciu wyniku (zob. ReportJobService).
+     */
+    @Column(name = "results_version", nullable = false, columnDefinition = "INTEGER NOT NULL DEFAULT 0")
+    private long resultsVersion;
+
+    /**
+     * Domyślny konstruktor.
+     */
+    public QuizStats() {}
+
+    public Long getQuizId() { return quizId; }
+    public long getAttempts() { return attempts; }
+    public double getScoreSum() { return scoreSum; }
+    public double getScoreSumSquares() { return scoreSumSquares; }
+    public Double getMinScore() { return minScore; }
+    public Double getMaxScore() { return maxScore; }
+    public long getPassCount() { return passCount; }
+    public long getResultsVersion() { return resultsVersion; }
+
+    /**
+     * Zwraca średni wynik procentowy.
+     * @return Średnia lub 0, jeśli nie ma prób.
+     */
+    public double getAverageScore() {
+        return attempts > 0 ? scoreSum / attempts : 0.0;
+    }
+
+    /**
+     * Zwraca odchylenie standardowe wyników (populacyjne).
+     * @return Odchylenie standardowe lub 0, jeśli nie ma prób.
+     */
+    public double getStandardDeviation() {
+        if (attempts == 0) {
+            return 0.0;
+        }
+        double mean = scoreSum / attempts;
+        return Math.sqrt(Math.max(0.0, scoreSumSquares / attempts - mean * mean));
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.database;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * @brief
+ * Klasa encji reprezentująca token odświeżania (refresh token) wydany przy logowaniu.
+ * Mapowana jest do tabeli "refresh_tokens" w bazie danych.
+ * W bazie przechowywany jest tylko skrót SHA-256 tokenu. Każde użycie tokenu unieważnia go i wydaje
+ * następny z tej samej rodziny (rotacja); ponowne użycie unieważnionego tokenu unieważnia całą rodzinę.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ix_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "ix_refresh_tokens_family", columnList = "family_id")
+})
+public class RefreshToken {
+    /**
+     * Unikalny identyfikator tokenu.
+     * Jest to klucz główny generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID użytkownika, któremu wydano token.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Skrót SHA-256 tokenu (Base64). Sam token nie jest przechowywany.
+     */
+    @Column(name = "token_hash", nullable = false, unique = true)
+    private String tokenHash;
+
+    /**
+     * Identyfikator rodziny tokenów powstałej z jednego logowania.
+     */
+    @Column(name = "family_id", nullable = false)
+    private String familyId;
+
+    /**
+     * Identyfikator (jti) tokenu dostępu wydanego razem z tym tokenem; unieważniany wraz z rodziną.
+     */
+    @Column(name = "access_token_id")
+    private String accessTokenId;
+
+    /**
+     * Data wygaśnięcia tokenu dostępu wydanego razem z tym tokenem.
+     */
+    @Column(name = "access_expires_at")
+    private LocalDateTime accessExpiresAt;
+
+    /**
+     * Data i czas utworzenia tokenu.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Data i czas wygaśnięcia tokenu.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Flaga wskazująca, czy token został użyty lub unieważniony.
+     */
+    @Column(nullable = false)
+    private boolean revoked;
+
+    /**
+     * Domyślny konstruktor.
+     */
+    public RefreshToken() {}
+
+    /**
+     * Konstruktor tworzący nowy, aktywny token.
+     *
+     * @param userId ID użytkownika.
+     * @param tokenHash Skrót tokenu.
+     * @param familyId Identyfikator rodziny tokenów.
+     * @param accessTokenId Identyfikator tokenu dostępu wydanego razem z tym tokenem.
+     * @param accessExpiresAt Data wygaśnięcia tokenu dostępu.
+     * @param createdAt Data utworzenia.
+     * @param expiresAt Data wygaśnięcia.
+     */
+    public RefreshToken(Long userId, String tokenHash, String familyId, String accessTokenId,
+                        LocalDateTime accessExpiresAt, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.accessTokenId = accessTokenId;
+        this.accessExpiresAt = accessExpiresAt;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public String getTokenHash() { return tokenHash; }
+    public String getFamilyId() { return familyId; }
+    public String getAccessTokenId() { return accessTokenId; }
+    public LocalDateTime getAccessExpiresAt() { return accessExpiresAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public boolean isRevoked() { return revoked; }
+}
@@ -0,0 +1,47 @@
+package org.example.database;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * @brief
+ * Klasa encji reprezentująca unieważniony token dostępu (JWT) przed jego wygaśnięciem.
+ * Mapowana jest do tabeli "revoked_tokens" w bazie danych.
+ * Wiersze są wczytywane do pamięci przy starcie (zob. TokenRevocationList) i usuwane po wygaśnięciu tokenu.
+ */
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+    /**
+     * Identyfikator tokenu (roszczenie jti).
+     */
+    @Id
+    @Column(name = "token_id")
+    private String tokenId;
+
+    /**
+     * Data wygaśnięcia tokenu; po niej wpis nie jest już potrzebny.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Domyślny konstruktor.
+     */
+    public RevokedToken() {}
+
+    /**
+     * Konstruktor wpisu.
+     *
+     * @param tokenId Identyfikator tokenu.
+     * @param expiresAt Data wygaśnięcia tokenu.
+     */
+    public RevokedToken(String tokenId, LocalDateTime expiresAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() { return tokenId; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
@@ -37,6 +37,14 @@ public class User {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    /**
+     * Wersja tokenów użytkownika. Zwiększana przy zmianie roli, co unieważnia wcześniej wydane tokeny JWT
+     * (token zawiera wersję, z którą został wydany). Pole jest ignorowane podczas serializacji JSON.
+     */
+    @Column(name = "token_version", nullable = false, columnDefinition = "INTEGER NOT NULL DEFAULT 0")
+    @JsonIgnore
+    private int tokenVersion;
+
     /**
      * Identyfikator kursu, do którego przypisany jest student (opcjonalne, tylko dla studentów).
      */
@@ -59,6 +67,8 @@ public class User {
     public void setPassword(String password) { this.password = password; }
     public UserRole getRole() { return role; }
     public void setRole(UserRole role) { this.role = role; }
+    public int getTokenVersion() { return tokenVersion; }
+    public void incrementTokenVersion() { this.tokenVersion++; }
     public Integer getCourseId() { return courseId; }
     public void setCourseId(Integer courseId) { this.courseId = courseId; }
 }
\ No newline at end of file
@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
  * Mapowana jest do tabeli "user_courses" w bazie danych.
  */
 @Entity
-@Table(name = "user_courses")
+@Table(name = "user_courses", indexes = {
+        @Index(name = "ix_user_courses_course", columnList = "course_id, user_id")
+})
 public class UserCourse {
     /**
      * Unikalny identyfikator powiązania użytkownika z kursem.
@@ -2,12 +2,17 @@ package org.example.security;
 
 import org.example.DataBaseRepositories.UserRepository;
 import org.example.LoginRequest;
+import org.example.database.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @brief
@@ -23,59 +28,129 @@ public class AuthController {
      */
     private final UserRepository userRepository;
     /**
-     * Koder haseł do bezpiecznego przechowywania i weryfikacji haseł.
+     * Usługa wydająca i odświeżająca pary tokenów.
      */
-    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
     /**
-     * Narzędzie do generowania i walidacji tokenów JWT.
+     * Usługa weryfikacji haseł w osobnej puli wątków.
      */
-    private final JwtUtil jwtUtil;
+    private final PasswordHashingService passwordHashingService;
+    /**
+     * Pula, w której po weryfikacji hasła wykonywane są zapisy do bazy (wątki haszujące tylko haszują).
+     */
+    private final Executor persistenceExecutor;
 
     /**
      * Konstruktor klasy AuthController.
-     * Wstrzykuje zależności UserRepository, PasswordEncoder i JwtUtil.
+     * Wstrzykuje zależności UserRepository, RefreshTokenService, PasswordHashingService i pulę zapisów.
      *
      * @param userRepository Repozytorium użytkowników.
-     * @param passwordEncoder Koder haseł.
-     * @param jwtUtil Narzędzie do obsługi JWT.
+     * @param refreshTokenService Usługa wydająca i odświeżająca pary tokenów.
+     * @param passwordHashingService Usługa weryfikacji haseł.
+     * @param persistenceExecutor Pula zadań aplikacji (applicationTaskExecutor), w której zapisywane są tokeny.
      */
     @Autowired
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthController(UserRepository userRepository, RefreshTokenService refreshTokenService,
+                          PasswordHashingService passwordHashingService,
+                          @Qualifier("applicationTaskExecutor") Executor persistenceExecutor) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordHashingService = passwordHashingService;
+        this.persistenceExecutor = persistenceExecutor;
     }
 
     /**
      * Obsługuje żądanie logowania użytkownika.
-     * Sprawdza podane dane uwierzytelniające i w przypadku powodzenia, zwraca token JWT oraz rolę użytkownika.
+     * Sprawdza podane dane uwierzytelniające i w przypadku powodzenia, zwraca krótko ważny token JWT,
+     * token odświeżania (zob. /refresh) oraz rolę użytkownika.
+     * Weryfikacja hasła odbywa się w puli PasswordHashingService, więc wątek żądania jest zwalniany na czas
+     * haszowania; przy pełnej kolejce zwracana jest od razu odpowiedź 503. Skrót hasła zapisany z innym
+     * kosztem BCrypt jest po udanym logowaniu zastępowany nowym. Zapisy (nowy skrót, token odświeżania)
+     * są wykonywane w puli zadań aplikacji, a nie w wątku haszującym.
      *
      * @param loginRequest Obiekt zawierający nazwę użytkownika i hasło.
      * @return ResponseEntity zawierający status operacji, wiadomość, token JWT i rolę użytkownika w przypadku sukcesu,
      * lub status błędu z odpowiednią wiadomością w przypadku niepowodzenia.
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody(required = false) LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody(required = false) LoginRequest loginRequest) {
+        long started = System.nanoTime();
         if (loginRequest == null || loginRequest.getUsername() == null || loginRequest.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Missing username or password")));
+        }
+        Optional<User> found = userRepository.findByUsername(loginRequest.getUsername());
+        if (found.isEmpty()) {
+            passwordHashingService.recordLogin(System.nanoTime() - started);
+            return CompletableFuture.completedFuture(ResponseEntity.status(401)
+                    .body(Map.of("success", false, "message", "User not found")));
+        }
+        User user = found.get();
+        CompletableFuture<PasswordHashingService.Verification> verification;
+        try {
+            verification = passwordHashingService.verify(loginRequest.getPassword(), user.getPassword());
+        } catch (PasswordHashingBusyException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("success", false, "message", "Server busy, please try again shortly")));
+        }
+        return verification.<ResponseEntity<?>>thenApplyAsync(result -> {
+            if (!result.matches()) {
+                return ResponseEntity.status(401)
+                        .body(Map.of("success", false, "message", "Invalid credentials"));
+            }
+            if (result.rehashed() != null) {
+                userRepository.updatePasswordHash(user.getId(), user.getPassword(), result.rehashed());
+            }
+            return tokenResponse("Login successful!", refreshTokenService.issue(user));
+        }, persistenceExecutor).whenComplete((response, error) -> passwordHashingService.recordLogin(System.nanoTime() - started));
+    }
+
+    /**
+     * Wymienia token odświeżania na nową parę tokenów. Token odświeżania jest jednorazowy;
+     * ponowne użycie zużytego tokenu unieważnia wszystkie tokeny wydane z tego samego logowania.
+     *
+     * @param request Mapa zawierająca "refreshToken".
+     * @return ResponseEntity z nowym tokenem JWT i tokenem odświeżania lub status 401.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody(required = false) Map<String, String> request) {
+        String refreshToken = request != null ? request.get("refreshToken") : null;
+        if (refreshToken == null || refreshToken.isBlank()) {
             return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Missing username or password"));
+                    .body(Map.of("success", false, "message", "Missing refresh token"));
         }
-        return userRepository.findByUsername(loginRequest.getUsername())
-                .map(user -> {
-                    if (passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-                        String token = jwtUtil.generateToken(user.getUsername());
-                        return ResponseEntity.ok(Map.of(
-                                "success", true,
-                                "message", "Login successful!",
-                                "token", token,
-                                "role", user.getRole().name()
-                        ));
-                    } else {
-                        return ResponseEntity.status(401)
-                                .body(Map.of("success", false, "message", "Invalid credentials"));
-                    }
-                })
-                .orElse(ResponseEntity.status(401)
-                        .body(Map.of("success", false, "message", "User not found")));
+        return refreshTokenService.refresh(refreshToken)
+                .<ResponseEntity<?>>map(pair -> tokenResponse("Token refreshed", pair))
+                .orElseGet(() -> ResponseEntity.status(401)
+                        .body(Map.of("success", false, "message", "Invalid refresh token")));
+    }
+
+    /**
+     * Wylogowuje użytkownika: unieważnia token odświeżania wraz z jego rodziną oraz wydane w niej tokeny JWT.
+     *
+     * @param request Mapa zawierająca "refreshToken".
+     * @return ResponseEntity z informacją o wyniku operacji.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) Map<String, String> request) {
+        String refreshToken = request != null ? request.get("refreshToken") : null;
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Missing refresh token"));
+        }
+        refreshTokenService.revoke(refreshToken);
+        return ResponseEntity.ok(Map.of("success", true, "message", "Logged out"));
+    }
+
+    private static ResponseEntity<?> tokenResponse(String message, RefreshTokenService.TokenPair pair) {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", message,
+                "token", pair.accessToken(),
+                "refreshToken", pair.refreshToken(),
+                "expiresIn", pair.expiresIn(),
+                "role", pair.role()
+        ));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package org.example.security;
+
+import org.example.database.UserRole;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * @brief
+ * Tożsamość zalogowanego użytkownika odczytana z podpisanego tokenu JWT.
+ * Jest ustawiana przez JwtRequestFilter jako principal obiektu Authentication na czas jednego żądania,
+ * dzięki czemu kontrolery znają ID i rolę użytkownika bez odpytywania bazy danych.
+ *
+ * @param id ID użytkownika.
+ * @param username Nazwa użytkownika.
+ * @param role Rola użytkownika.
+ */
+public record AuthenticatedUser(Long id, String username, UserRole role) implements AuthenticatedPrincipal {
+
+    /**
+     * Zwraca nazwę użytkownika (używaną przez Authentication.getName()).
+     *
+     * @return Nazwa użytkownika.
+     */
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,10 +1,12 @@
 package org.example.security;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -14,33 +16,44 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @brief
  * Filtr żądań JWT, który przechwytuje każde żądanie HTTP
  * w celu weryfikacji tokenu JWT i ustawienia kontekstu bezpieczeństwa.
  * Rozszerza OncePerRequestFilter, aby zapewnić wykonanie filtra tylko raz na żądanie.
+ * Uwierzytelnienie jest budowane wyłącznie z roszczeń zweryfikowanego tokenu (ID, nazwa, rola);
+ * dodatkowo sprawdzane są, bez zapytań do bazy, wersja tokenów (TokenVersionRegistry), która odrzuca tokeny
+ * wydane przed zmianą roli lub usunięciem konta, oraz lista unieważnionych tokenów (TokenRevocationList).
  */
+@Slf4j
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     /**
-     * Serwis do ładowania danych użytkownika.
+     * Narzędzie do obsługi tokenów JWT.
      */
     @Autowired
-    private UserDetailsService userDetailsService;
+    private JwtUtil jwtUtil;
 
     /**
-     * Narzędzie do obsługi tokenów JWT.
+     * Rejestr aktualnych wersji tokenów użytkowników.
      */
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    /**
+     * Lista unieważnionych tokenów dostępu.
+     */
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
 
     /**
      * Wykonuje logikę filtrowania dla każdego żądania HTTP.
      * Sprawdza nagłówek "Authorization" pod kątem tokenu Bearer JWT.
-     * Jeśli token jest obecny i ważny, uwierzytelnia użytkownika
-     * i ustawia go w kontekście bezpieczeństwa Spring.
+     * Jeśli token jest obecny, ważny i aktualny, ustawia w kontekście bezpieczeństwa Spring
+     * uwierzytelnienie z principalem AuthenticatedUser i uprawnieniem ROLE_&lt;rola&gt;.
      *
      * @param request  Obiekt HttpServletRequest.
      * @param response Obiekt HttpServletResponse.
@@ -53,23 +66,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtUtil.getClaimsFromToken(jwt).getSubject();
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwt)) {
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
+            try {
+                DecodedJWT decoded = jwtUtil.getClaimsFromToken(jwt);
+                AuthenticatedUser principal = jwtUtil.getPrincipal(decoded);
+                Integer version = jwtUtil.getTokenVersion(decoded);
+                if (principal != null && version != null
+                        && tokenVersionRegistry.isCurrent(principal.id(), principal.username(), version)
+                        && !tokenRevocationList.isRevoked(decoded.getId())) {
+                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                            principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.role().name())));
+                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                } else {
+                    log.debug("Odrzucono nieaktualny token JWT dla żądania {}", request.getRequestURI());
+                }
+            } catch (JWTVerificationException e) {
+                log.debug("Nieprawidłowy token JWT dla żądania {}: {}", request.getRequestURI(), e.getMessage());
             }
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
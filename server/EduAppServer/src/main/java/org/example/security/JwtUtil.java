@@ -1,55 +1,341 @@
 package org.example.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.example.database.User;
+import org.example.database.UserRole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @brief
  * Klasa narzędziowa do generowania, walidacji i parsowania tokenów JWT.
+ * Klucze podpisu są konfigurowane jako pary kid=sekret (jwt.keys); nowe tokeny są podpisywane kluczem
+ * jwt.active-key-id i zawierają jego identyfikator w nagłówku "kid", a weryfikacja wybiera klucz po tym
+ * identyfikatorze, więc po rotacji tokeny podpisane poprzednim kluczem są ważne, dopóki klucz pozostaje
+ * na liście. Dla każdego klucza istnieje jeden, współdzielony (bezpieczny wątkowo) JWTVerifier.
+ * Zweryfikowane tokeny są przechowywane aż do ich wygaśnięcia w ConcurrentHashMap indeksowanej skrótem SHA-256
+ * tokenu (w pamięci nie są trzymane same tokeny), dzięki czemu kolejne żądania z tym samym tokenem pomijają
+ * obliczanie HMAC bez globalnej blokady. Limit rozmiaru jest twardy: miejsce na wpis jest rezerwowane przed
+ * jego dodaniem, a gdy pamięć jest pełna, jeden wątek usuwa wygasłe tokeny i najdawniej używane wpisy
+ * (przybliżone LRU wg czasu ostatniego użycia) do 7/8 limitu. Token, dla którego zabrakło miejsca,
+ * jest zwracany bez zapisywania w pamięci podręcznej.
  */
+@Slf4j
 @Component
 public class JwtUtil {
 
     /**
-     * Sekretny klucz używany do podpisywania i weryfikacji tokenów JWT.
-     * Powinien być przechowywany bezpiecznie i być odpowiednio złożony w środowisku produkcyjnym.
+     * Nazwy roszczeń z ID użytkownika, jego rolą i wersją tokenów (zob. TokenVersionRegistry).
      */
-    private final String secret = "your_secret_key";
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    /**
+     * Wydany token dostępu.
+     *
+     * @param token Podpisany token JWT.
+     * @param id Identyfikator tokenu (roszczenie jti), używany przy unieważnianiu.
+     * @param expiresAt Data wygaśnięcia tokenu.
+     */
+    public record AccessToken(String token, String id, Instant expiresAt) {}
+
     /**
-     * Czas wygaśnięcia tokenu w milisekundach (domyślnie 1 godzina).
+     * Czas ważności tokenu dostępu.
      */
-    private final int expirationTime = 1000 * 60 * 60; // 1 godzina
+    private final Duration accessTokenTtl;
 
     /**
-     * Generuje nowy token JWT dla podanego użytkownika.
-     * Token zawiera nazwę użytkownika jako podmiot, datę wydania oraz datę wygaśnięcia.
+     * Zweryfikowany token wraz z czasem ostatniego użycia (System.nanoTime), według którego usuwane są wpisy.
+     */
+    private static final class CachedToken {
+        private final DecodedJWT jwt;
+        private final Instant expiresAt;
+        private volatile long lastAccess = System.nanoTime();
+
+        private CachedToken(DecodedJWT jwt, Instant expiresAt) {
+            this.jwt = jwt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Identyfikator klucza, którym podpisywane są nowe tokeny.
+     */
+    private final String activeKeyId;
+    private final Algorithm signingAlgorithm;
+
+    /**
+     * Współdzielone weryfikatory indeksowane identyfikatorem klucza (kid).
+     */
+    private final Map<String, JWTVerifier> verifiers;
+
+    private final int cacheMaxSize;
+
+    /**
+     * Zweryfikowane tokeny wg skrótu SHA-256 tokenu.
+     */
+    private final ConcurrentHashMap<String, CachedToken> verified = new ConcurrentHashMap<>();
+
+    /**
+     * Liczba wpisów wraz z zarezerwowanymi miejscami; nigdy nie przekracza cacheMaxSize.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Czy któryś wątek właśnie usuwa wpisy z pamięci podręcznej.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder notCached = new LongAdder();
+
+    /**
+     * Konstruktor wczytujący klucze podpisu z konfiguracji.
+     *
+     * @param keys Klucze w postaci "kid=sekret", rozdzielone przecinkami.
+     * @param activeKeyId Identyfikator klucza używanego do podpisywania nowych tokenów.
+     * @param cacheMaxSize Maksymalna liczba zweryfikowanych tokenów w pamięci podręcznej.
+     * @param accessTokenMinutes Czas ważności tokenu dostępu w minutach.
+     */
+    @Autowired
+    public JwtUtil(@Value("${jwt.keys:default=your_secret_key}") String keys,
+                   @Value("${jwt.active-key-id:default}") String activeKeyId,
+                   @Value("${jwt.verified-cache-max-size:4096}") int cacheMaxSize,
+                   @Value("${jwt.access-token-minutes:15}") long accessTokenMinutes) {
+        Map<String, JWTVerifier> verifiers = new LinkedHashMap<>();
+        Algorithm signingAlgorithm = null;
+        for (String entry : keys.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalStateException("Nieprawidłowy wpis jwt.keys (oczekiwano kid=sekret)");
+            }
+            String keyId = entry.substring(0, separator).trim();
+            Algorithm algorithm = Algorithm.HMAC512(entry.substring(separator + 1).trim());
+            verifiers.put(keyId, JWT.require(algorithm).build());
+            if (keyId.equals(activeKeyId)) {
+                signingAlgorithm = algorithm;
+            }
+        }
+        if (signingAlgorithm == null) {
+            throw new IllegalStateException("Brak klucza jwt.active-key-id=" + activeKeyId + " w jwt.keys");
+        }
+        this.activeKeyId = activeKeyId;
+        this.signingAlgorithm = signingAlgorithm;
+        this.verifiers = Map.copyOf(verifiers);
+        this.cacheMaxSize = cacheMaxSize;
+        this.accessTokenTtl = Duration.ofMinutes(accessTokenMinutes);
+        log.info("Wczytano {} kluczy JWT, aktywny klucz: {}", verifiers.size(), activeKeyId);
+    }
+
+    /**
+     * Generuje nowy, krótko ważny token dostępu JWT dla podanego użytkownika.
+     * Token zawiera identyfikator (jti), nazwę użytkownika jako podmiot, ID użytkownika, rolę, wersję tokenów,
+     * datę wydania oraz datę wygaśnięcia, dzięki czemu żądania można uwierzytelniać bez odczytu z bazy.
      *
-     * @param username Nazwa użytkownika, dla którego ma zostać wygenerowany token.
-     * @return Wygenerowany token JWT.
-     */
-    public String generateToken(String username) {
-        return JWT.create()
-                .withSubject(username)
-                .withIssuedAt(new Date())
-                .withExpiresAt(new Date(System.currentTimeMillis() + expirationTime))
-                .sign(Algorithm.HMAC512(secret));
+     * @param user Użytkownik, dla którego ma zostać wygenerowany token.
+     * @return Wygenerowany token JWT podpisany aktywnym kluczem wraz z jego identyfikatorem i datą wygaśnięcia.
+     */
+    public AccessToken generateToken(User user) {
+        String id = UUID.randomUUID().toString();
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(accessTokenTtl);
+        String token = JWT.create()
+                .withKeyId(activeKeyId)
+                .withJWTId(id)
+                .withSubject(user.getUsername())
+                .withClaim(CLAIM_USER_ID, user.getId())
+                .withClaim(CLAIM_ROLE, user.getRole().name())
+                .withClaim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .withIssuedAt(issuedAt)
+                .withExpiresAt(expiresAt)
+                .sign(signingAlgorithm);
+        return new AccessToken(token, id, expiresAt);
     }
 
     /**
-     * Pobiera zdekodowany obiekt JWT z podanego tokenu.
-     * Służy do wyodrębniania roszczeń (claims) z tokenu.
+     * Zwraca czas ważności tokenu dostępu.
      *
-     * @param token Token JWT do zdekodowania.
-     * @return Zdekodowany obiekt JWT (DecodedJWT).
+     * @return Czas ważności tokenu dostępu.
+     */
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    /**
+     * Weryfikuje token i zwraca jego roszczenia (claims) w jednym przebiegu.
+     * Token obecny w pamięci podręcznej i jeszcze nieprzeterminowany nie jest weryfikowany ponownie.
+     * Tokeny bez nagłówka "kid" (wydane przed rotacją kluczy) są weryfikowane aktywnym kluczem.
+     *
+     * @param token Token JWT do zweryfikowania.
+     * @return Zdekodowany i zweryfikowany obiekt JWT (DecodedJWT).
+     * @throws JWTVerificationException jeśli token jest nieprawidłowy, wygasł lub podpisano go nieznanym kluczem.
      */
     public DecodedJWT getClaimsFromToken(String token) {
-        return JWT.require(Algorithm.HMAC512(secret))
-                .build()
-                .verify(token);
+        Instant now = Instant.now();
+        String key = cacheKey(token);
+        CachedToken cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt.isAfter(now)) {
+                cached.lastAccess = System.nanoTime();
+                hits.increment();
+                return cached.jwt;
+            }
+            remove(key, cached);
+        }
+        misses.increment();
+
+        DecodedJWT jwt;
+        try {
+            String keyId = JWT.decode(token).getKeyId();
+            JWTVerifier verifier = verifiers.get(keyId != null ? keyId : activeKeyId);
+            if (verifier == null) {
+                throw new JWTVerificationException("Nieznany klucz JWT: " + keyId);
+            }
+            jwt = verifier.verify(token);
+        } catch (JWTVerificationException e) {
+            failures.increment();
+            throw e;
+        }
+        Instant expiresAt = jwt.getExpiresAtAsInstant();
+        if (expiresAt != null) {
+            cache(key, new CachedToken(jwt, expiresAt), now);
+        }
+        return jwt;
+    }
+
+    /**
+     * Zwraca klucz pamięci podręcznej: skrót SHA-256 (Base64) tokenu.
+     */
+    private static String cacheKey(String token) {
+        return Base64.getEncoder().encodeToString(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Zapisuje zweryfikowany token, jeśli uda się zarezerwować dla niego miejsce (w razie potrzeby po usunięciu
+     * wpisów). Gdy miejsca brak, bo inny wątek właśnie usuwa wpisy, token nie jest zapisywany.
+     */
+    private void cache(String key, CachedToken token, Instant now) {
+        if (size.get() >= cacheMaxSize) {
+            evict(now);
+        }
+        if (size.incrementAndGet() > cacheMaxSize) {
+            size.decrementAndGet();
+            notCached.increment();
+            return;
+        }
+        if (verified.put(key, token) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    private boolean remove(String key, CachedToken cached) {
+        if (!verified.remove(key, cached)) {
+            return false;
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Usuwa wygasłe tokeny, a jeśli pamięć podręczna nadal zajmuje więcej niż 7/8 limitu, najdawniej używane
+     * wpisy do 7/8 limitu. Próg czasu ostatniego użycia jest wyznaczany z migawki, więc tokeny użyte w trakcie
+     * przeglądu zostają w pamięci. Wykonywane przez jeden wątek naraz; pozostałe wątki w tym czasie nie czekają.
+     */
+    private void evict(Instant now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] stamps = new long[cacheMaxSize];
+            int live = 0;
+            for (Map.Entry<String, CachedToken> entry : verified.entrySet()) {
+                CachedToken cached = entry.getValue();
+                if (!cached.expiresAt.isAfter(now)) {
+                    if (remove(entry.getKey(), cached)) {
+                        evicted.increment();
+                    }
+                } else if (live < stamps.length) {
+                    stamps[live++] = cached.lastAccess;
+                }
+            }
+            int excess = live - (cacheMaxSize - cacheMaxSize / 8);
+            if (excess <= 0) {
+                return;
+            }
+            Arrays.sort(stamps, 0, live);
+            long threshold = stamps[excess - 1];
+            for (Map.Entry<String, CachedToken> entry : verified.entrySet()) {
+                CachedToken cached = entry.getValue();
+                if (cached.lastAccess - threshold <= 0 && remove(entry.getKey(), cached)) {
+                    evicted.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Odczytuje tożsamość użytkownika z roszczeń zweryfikowanego tokenu.
+     *
+     * @param jwt Zweryfikowany token (wynik getClaimsFromToken).
+     * @return Tożsamość użytkownika lub null, jeśli token nie zawiera wymaganych roszczeń
+     * (np. token wydany przed wprowadzeniem roszczeń).
+     */
+    public AuthenticatedUser getPrincipal(DecodedJWT jwt) {
+        Long userId = jwt.getClaim(CLAIM_USER_ID).asLong();
+        String role = jwt.getClaim(CLAIM_ROLE).asString();
+        if (userId == null || role == null || jwt.getSubject() == null) {
+            return null;
+        }
+        try {
+            return new AuthenticatedUser(userId, jwt.getSubject(), UserRole.valueOf(role));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Odczytuje wersję tokenów, z którą token został wydany.
+     *
+     * @param jwt Zweryfikowany token (wynik getClaimsFromToken).
+     * @return Wersja tokenów lub null, jeśli token jej nie zawiera.
+     */
+    public Integer getTokenVersion(DecodedJWT jwt) {
+        return jwt.getClaim(CLAIM_TOKEN_VERSION).asInt();
     }
 
     /**
@@ -61,10 +347,31 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            JWT.require(Algorithm.HMAC512(secret)).build().verify(token);
+            getClaimsFromToken(token);
             return true;
-        } catch (Exception e) {
+        } catch (JWTVerificationException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Zwraca statystyki weryfikacji tokenów.
+     *
+     * @return Mapa z aktywnym kluczem, liczbą kluczy, rozmiarem i limitem pamięci podręcznej
+     * oraz licznikami trafień, chybień, odrzuconych tokenów, usuniętych wpisów i tokenów niezapisanych
+     * z braku miejsca.
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "activeKeyId", activeKeyId,
+                "keys", verifiers.size(),
+                "size", verified.size(),
+                "maxSize", cacheMaxSize,
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "failures", failures.sum(),
+                "evicted", evicted.sum(),
+                "notCached", notCached.sum()
+        );
+    }
+}
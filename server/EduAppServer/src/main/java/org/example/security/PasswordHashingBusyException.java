@@ -0,0 +1,28 @@
+package org.example.security;
+
+/**
+ * @brief
+ * Wyjątek zgłaszany, gdy kolejka operacji haszowania haseł jest pełna.
+ * Kontrolery zamieniają go na odpowiedź 503 z nagłówkiem Retry-After.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    /**
+     * Sugerowany czas (w sekundach), po którym klient powinien ponowić żądanie.
+     */
+    private final int retryAfterSeconds;
+
+    /**
+     * Konstruktor wyjątku.
+     *
+     * @param retryAfterSeconds Sugerowany czas ponowienia w sekundach.
+     */
+    public PasswordHashingBusyException(int retryAfterSeconds) {
+        super("Kolejka haszowania haseł jest pełna");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
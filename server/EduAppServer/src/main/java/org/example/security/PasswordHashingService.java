@@ -0,0 +1,212 @@
+package org.example.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Usługa wykonująca haszowanie i weryfikację haseł BCrypt w osobnej, ograniczonej puli wątków,
+ * dzięki czemu masowe logowania (np. całej grupy na początku zajęć) nie zajmują wątków obsługujących
+ * pozostałe żądania HTTP. Gdy kolejka puli jest pełna, operacja jest od razu odrzucana
+ * wyjątkiem PasswordHashingBusyException (odpowiedź 503).
+ * Przy udanej weryfikacji hasła zapisanego z innym kosztem niż auth.bcrypt.strength wyliczany jest
+ * nowy skrót, który kontroler zapisuje w bazie poza pulą haszującą (wątki puli tylko haszują).
+ * Usługa zbiera też czasy trwania logowań (percentyle).
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    /**
+     * Wynik weryfikacji hasła.
+     *
+     * @param matches Czy hasło jest poprawne.
+     * @param rehashed Nowy skrót hasła z aktualnym kosztem lub null, jeśli skrót nie wymaga zmiany.
+     */
+    public record Verification(boolean matches, String rehashed) {}
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final int retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Ostatnie czasy logowań w nanosekundach (bufor cykliczny); chronione monitorem tablicy.
+     */
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyNext;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder encoded = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Konstruktor wstrzykujący zależności i konfigurację.
+     *
+     * @param passwordEncoder Koder haseł BCrypt.
+     * @param strength Koszt BCrypt, z którym haszowane są nowe hasła.
+     * @param threads Liczba wątków haszujących.
+     * @param queueCapacity Maksymalna liczba operacji oczekujących na wykonanie.
+     * @param retryAfterSeconds Wartość nagłówka Retry-After przy pełnej kolejce.
+     * @param latencySamples Liczba ostatnich logowań, z których liczone są percentyle.
+     */
+    @Autowired
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${auth.bcrypt.strength:10}") int strength,
+                                  @Value("${auth.hashing.threads:2}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:50}") int queueCapacity,
+                                  @Value("${auth.hashing.retry-after-seconds:2}") int retryAfterSeconds,
+                                  @Value("${auth.hashing.latency-samples:1024}") int latencySamples) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.latencies = new long[latencySamples];
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Haszowanie haseł: koszt BCrypt {}, {} wątków, kolejka {}", strength, threads, queueCapacity);
+    }
+
+    /**
+     * Weryfikuje hasło w puli wątków haszujących; przy poprawnym haśle zapisanym z innym kosztem
+     * wylicza także nowy skrót.
+     *
+     * @param rawPassword Hasło podane przez użytkownika.
+     * @param encodedPassword Skrót hasła zapisany w bazie.
+     * @return Przyszły wynik weryfikacji.
+     * @throws PasswordHashingBusyException gdy kolejka puli jest pełna.
+     */
+    public CompletableFuture<Verification> verify(String rawPassword, String encodedPassword) {
+        return submit(() -> {
+            verified.increment();
+            if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            if (!needsRehash(encodedPassword)) {
+                return new Verification(true, null);
+            }
+            rehashed.increment();
+            return new Verification(true, passwordEncoder.encode(rawPassword));
+        });
+    }
+
+    /**
+     * Haszuje hasło w puli wątków haszujących.
+     *
+     * @param rawPassword Hasło do zahaszowania.
+     * @return Przyszły skrót hasła.
+     * @throws PasswordHashingBusyException gdy kolejka puli jest pełna.
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> {
+            encoded.increment();
+            return passwordEncoder.encode(rawPassword);
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Odrzucono operację haszowania hasła: kolejka pełna ({} oczekujących)", executor.getQueue().size());
+            throw new PasswordHashingBusyException(retryAfterSeconds);
+        }
+        return result;
+    }
+
+    /**
+     * Sprawdza, czy skrót BCrypt (np. "$2a$10$...") został wyliczony z innym kosztem niż aktualny.
+     */
+    private boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(6) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rejestruje czas trwania logowania (od przyjęcia żądania do wysłania odpowiedzi).
+     *
+     * @param nanos Czas trwania w nanosekundach.
+     */
+    public void recordLogin(long nanos) {
+        synchronized (latencies) {
+            latencies[latencyNext] = nanos;
+            latencyNext = (latencyNext + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+        }
+    }
+
+    /**
+     * Zwraca statystyki puli haszującej i percentyle czasów logowania.
+     *
+     * @return Mapa z kosztem BCrypt, stanem kolejki, licznikami operacji oraz percentylami p50/p90/p99 i maksimum (ms).
+     */
+    public Map<String, Object> stats() {
+        long[] samples;
+        synchronized (latencies) {
+            samples = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(samples);
+        return Map.ofEntries(
+                Map.entry("strength", strength),
+                Map.entry("activeThreads", executor.getActiveCount()),
+                Map.entry("queued", executor.getQueue().size()),
+                Map.entry("verified", verified.sum()),
+                Map.entry("encoded", encoded.sum()),
+                Map.entry("rehashed", rehashed.sum()),
+                Map.entry("rejected", rejected.sum()),
+                Map.entry("loginSamples", samples.length),
+                Map.entry("loginP50Ms", percentileMillis(samples, 0.50)),
+                Map.entry("loginP90Ms", percentileMillis(samples, 0.90)),
+                Map.entry("loginP99Ms", percentileMillis(samples, 0.99)),
+                Map.entry("loginMaxMs", samples.length == 0 ? 0.0 : samples[samples.length - 1] / 1_000_000.0)
+        );
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    /**
+     * Zatrzymuje pulę wątków przy zamykaniu aplikacji.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,346 @@
+package org.example.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief
+ * Filtr ograniczający liczbę żądań do wrażliwych tras (logowanie, rejestracja, weryfikacja klucza dostępu,
+ * zapis do grupy kursów). Trasy i limity są konfigurowane właściwością rate-limit.rules; każda reguła może
+ * mieć limit na adres IP i limit na nazwę użytkownika (z tokenu JWT, a dla żądań bez tokenu, np. logowania,
+ * z pola "username" treści żądania). Limit na adres IP liczy każde żądanie; limit na użytkownika liczy tylko
+ * nieudane próby (odpowiedź 4xx) w parze (nazwa użytkownika, IP), więc nie da się nim zablokować cudzego konta.
+ * Odrzucone żądanie kończy się odpowiedzią 429 z nagłówkiem Retry-After, zanim dotrze do kontrolera,
+ * więc nie wykonuje zapytań do bazy ani haszowania haseł.
+ * Filtr działa po łańcuchu Spring Security, więc uwierzytelniony użytkownik jest już znany.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Maksymalny rozmiar treści żądania, z której odczytywana jest nazwa użytkownika; większe żądania
+     * do tras z limitem na użytkownika są odrzucane (413), aby nie omijały tego limitu.
+     */
+    private static final int MAX_BUFFERED_BODY = 16 * 1024;
+
+    private static final String REJECTED_BODY =
+            "{\"success\":false,\"message\":\"Zbyt wiele żądań, spróbuj ponownie później\"}";
+
+    private static final String TOO_LARGE_BODY =
+            "{\"success\":false,\"message\":\"Treść żądania jest zbyt duża\"}";
+
+    /**
+     * Reguła ograniczania jednej trasy.
+     *
+     * @param name Nazwa reguły (część klucza kubełka).
+     * @param method Metoda HTTP.
+     * @param pattern Wzorzec ścieżki (AntPathMatcher).
+     * @param perIp Limit na adres IP lub null.
+     * @param perUser Limit na nazwę użytkownika lub null.
+     */
+    record Rule(String name, String method, String pattern, RateLimiter.Limit perIp, RateLimiter.Limit perUser) {}
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Rule> rules;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * Konstruktor wczytujący reguły z konfiguracji.
+     *
+     * @param rateLimiter Ogranicznik liczby żądań.
+     * @param objectMapper Parser JSON (odczyt nazwy użytkownika z treści żądania).
+     * @param enabled Czy ograniczanie jest włączone.
+     * @param rules Reguły w postaci "nazwa METODA wzorzec [ip=N/okres] [user=N/okres]" rozdzielone średnikami;
+     *              okres to liczba z jednostką s, m lub h (np. 1m).
+     */
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           ObjectMapper objectMapper,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.rules:}") String rules) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.rules = parseRules(rules);
+        log.info("Ograniczanie liczby żądań: {} ({} reguł)", enabled ? "włączone" : "wyłączone", this.rules.size());
+    }
+
+    static List<Rule> parseRules(String spec) {
+        List<Rule> rules = new ArrayList<>();
+        for (String entry : spec.split(";")) {
+            String[] parts = entry.trim().split("\\s+");
+            if (parts.length == 1 && parts[0].isEmpty()) {
+                continue;
+            }
+            if (parts.length < 4) {
+                throw new IllegalStateException("Nieprawidłowa reguła rate-limit.rules: " + entry.trim());
+            }
+            RateLimiter.Limit perIp = null;
+            RateLimiter.Limit perUser = null;
+            for (int i = 3; i < parts.length; i++) {
+                if (parts[i].startsWith("ip=")) {
+                    perIp = parseLimit(parts[i].substring(3));
+                } else if (parts[i].startsWith("user=")) {
+                    perUser = parseLimit(parts[i].substring(5));
+                } else {
+                    throw new IllegalStateException("Nieprawidłowy limit w regule rate-limit.rules: " + parts[i]);
+                }
+            }
+            rules.add(new Rule(parts[0], parts[1].toUpperCase(Locale.ROOT), parts[2], perIp, perUser));
+        }
+        return List.copyOf(rules);
+    }
+
+    private static RateLimiter.Limit parseLimit(String value) {
+        int slash = value.indexOf('/');
+        if (slash <= 0 || slash >= value.length() - 2) {
+            throw new IllegalStateException("Nieprawidłowy limit (oczekiwano N/okres, np. 10/1m): " + value);
+        }
+        int capacity = Integer.parseInt(value.substring(0, slash));
+        long amount = Long.parseLong(value.substring(slash + 1, value.length() - 1));
+        TimeUnit unit = switch (value.charAt(value.length() - 1)) {
+            case 's' -> TimeUnit.SECONDS;
+            case 'm' -> TimeUnit.MINUTES;
+            case 'h' -> TimeUnit.HOURS;
+            default -> throw new IllegalStateException("Nieprawidłowa jednostka okresu (s, m lub h): " + value);
+        };
+        if (capacity <= 0 || amount <= 0) {
+            throw new IllegalStateException("Limit i okres muszą być dodatnie: " + value);
+        }
+        return new RateLimiter.Limit(capacity, unit.toNanos(amount));
+    }
+
+    private Rule match(HttpServletRequest request) {
+        String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        for (Rule rule : rules) {
+            if (rule.method().equals(request.getMethod()) && pathMatcher.match(rule.pattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rules.isEmpty();
+    }
+
+    /**
+     * Sprawdza limity reguły pasującej do żądania; przy przekroczeniu zwraca 429 bez przekazywania żądania dalej.
+     *
+     * @param request  Obiekt HttpServletRequest.
+     * @param response Obiekt HttpServletResponse.
+     * @param chain    Obiekt FilterChain do przekazania żądania do kolejnego filtra.
+     * @throws ServletException Jeśli wystąpi błąd serwletu.
+     * @throws IOException      Jeśli wystąpi błąd wejścia/wyjścia.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = match(request);
+        if (rule == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (rule.perIp() != null) {
+            long waitNanos = rateLimiter.tryAcquire(rule.name() + "|ip|" + request.getRemoteAddr(), rule.perIp());
+            if (waitNanos > 0) {
+                reject(response, rule, "IP " + request.getRemoteAddr(), waitNanos);
+                return;
+            }
+        }
+
+        if (rule.perUser() == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest forwarded = request;
+        String username = authenticatedUsername();
+        if (username == null) {
+            CachedBodyRequest cached = CachedBodyRequest.wrap(request);
+            if (cached == null) {
+                log.warn("Odrzucono żądanie reguły {} z IP {}: treść przekracza {} bajtów",
+                        rule.name(), request.getRemoteAddr(), MAX_BUFFERED_BODY);
+                writeError(response, 413, TOO_LARGE_BODY);
+                return;
+            }
+            forwarded = cached;
+            username = usernameFromBody(cached.body);
+        }
+        if (username == null) {
+            chain.doFilter(forwarded, response);
+            return;
+        }
+
+        String userKey = rule.name() + "|user|" + username.toLowerCase(Locale.ROOT) + "|" + request.getRemoteAddr();
+        long waitNanos = rateLimiter.check(userKey, rule.perUser());
+        if (waitNanos > 0) {
+            reject(response, rule, "użytkownika " + username + " z IP " + request.getRemoteAddr(), waitNanos);
+            return;
+        }
+        chain.doFilter(forwarded, response);
+        if (forwarded.isAsyncStarted()) {
+            forwarded.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    chargeIfFailed(response, rule, userKey);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {}
+
+                @Override
+                public void onError(AsyncEvent event) {}
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {}
+            });
+        } else {
+            chargeIfFailed(response, rule, userKey);
+        }
+    }
+
+    /**
+     * Pobiera token z kubełka (nazwa użytkownika, IP) tylko po nieudanej próbie (odpowiedź 4xx),
+     * aby udane logowania się nie liczyły, a cudze nieudane próby z innych adresów nie blokowały właściciela konta.
+     */
+    private void chargeIfFailed(HttpServletResponse response, Rule rule, String userKey) {
+        int status = response.getStatus();
+        if (status >= 400 && status < 500) {
+            rateLimiter.tryAcquire(userKey, rule.perUser());
+        }
+    }
+
+    private static String authenticatedUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser user ? user.username() : null;
+    }
+
+    private String usernameFromBody(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).path("username");
+            return username.isTextual() && !username.asText().isBlank() ? username.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, Rule rule, String subject, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        log.warn("Przekroczono limit żądań reguły {} dla {}", rule.name(), subject);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(response, 429, REJECTED_BODY);
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(body);
+    }
+
+    /**
+     * Żądanie z treścią wczytaną do pamięci, aby można ją było odczytać w filtrze i ponownie w kontrolerze.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * Wczytuje treść żądania, niezależnie od nagłówka Content-Length (także treść przesyłaną w częściach),
+         * czytając co najwyżej MAX_BUFFERED_BODY + 1 bajtów.
+         *
+         * @return Żądanie z wczytaną treścią lub null, jeśli treść przekracza MAX_BUFFERED_BODY.
+         */
+        static CachedBodyRequest wrap(HttpServletRequest request) throws IOException {
+            if (request.getContentLengthLong() > MAX_BUFFERED_BODY) {
+                return null;
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_BUFFERED_BODY + 1);
+            return body.length > MAX_BUFFERED_BODY ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Treść jest już w pamięci, więc cała jest od razu dostępna.
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
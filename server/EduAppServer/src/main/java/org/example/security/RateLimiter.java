@@ -0,0 +1,171 @@
+package org.example.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Ogranicznik liczby żądań oparty na kubełkach tokenów (token bucket), indeksowanych kluczem
+ * (np. trasa + adres IP lub trasa + nazwa użytkownika). Kubełki są rozłożone na niezależne segmenty,
+ * każdy z własną blokadą, więc żądania o różnych kluczach rzadko na siebie czekają.
+ * Segment jest mapą w kolejności dostępu: kubełki nieużywane dłużej niż czas pełnego uzupełnienia
+ * (czyli nieodróżnialne od nowych) są usuwane od najstarszego, a liczba kubełków w segmencie jest ograniczona.
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * Limit: pojemność kubełka i czas, w którym kubełek uzupełnia się od zera do pełna.
+     *
+     * @param capacity Liczba żądań dopuszczalnych jednorazowo.
+     * @param periodNanos Czas pełnego uzupełnienia kubełka w nanosekundach.
+     */
+    public record Limit(int capacity, long periodNanos) {}
+
+    private static final class Bucket {
+        double tokens;
+        long updatedNanos;
+        long idleNanos;
+    }
+
+    /**
+     * Segment: kubełki w kolejności dostępu, chronione blokadą segmentu.
+     */
+    private final class Stripe {
+        final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                if (size() > maxBucketsPerStripe) {
+                    evicted.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private final Stripe[] stripes;
+    private final int maxBucketsPerStripe;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Konstruktor ograniczników.
+     *
+     * @param stripes Liczba segmentów (zaokrąglana w górę do potęgi dwójki).
+     * @param maxBuckets Maksymalna łączna liczba kubełków.
+     */
+    @Autowired
+    public RateLimiter(@Value("${rate-limit.stripes:64}") int stripes,
+                       @Value("${rate-limit.max-buckets:100000}") int maxBuckets) {
+        int count = stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1;
+        this.stripes = new Stripe[count];
+        this.maxBucketsPerStripe = Math.max(1, maxBuckets / count);
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Próbuje pobrać jeden token z kubełka o podanym kluczu.
+     *
+     * @param key Klucz kubełka.
+     * @param limit Limit kubełka.
+     * @return 0, jeśli żądanie jest dozwolone; w przeciwnym razie czas (w nanosekundach) do uzupełnienia jednego tokenu.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        return acquire(key, limit, true);
+    }
+
+    /**
+     * Sprawdza, czy kubełek o podanym kluczu ma dostępny token, nie pobierając go
+     * (np. gdy token jest pobierany dopiero po nieudanej próbie, zob. RateLimitFilter).
+     *
+     * @param key Klucz kubełka.
+     * @param limit Limit kubełka.
+     * @return 0, jeśli token jest dostępny; w przeciwnym razie czas (w nanosekundach) do uzupełnienia jednego tokenu.
+     */
+    public long check(String key, Limit limit) {
+        return acquire(key, limit, false);
+    }
+
+    private long acquire(String key, Limit limit, boolean consume) {
+        long now = System.nanoTime();
+        double refillPerNano = (double) limit.capacity() / limit.periodNanos();
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        synchronized (stripe) {
+            evictIdle(stripe.buckets, now);
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (!consume) {
+                    return 0;
+                }
+                bucket = new Bucket();
+                bucket.tokens = limit.capacity();
+                bucket.updatedNanos = now;
+                bucket.idleNanos = limit.periodNanos();
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(limit.capacity(), bucket.tokens + (now - bucket.updatedNanos) * refillPerNano);
+                bucket.updatedNanos = now;
+            }
+            if (bucket.tokens >= 1.0) {
+                if (consume) {
+                    bucket.tokens -= 1.0;
+                    allowed.increment();
+                }
+                return 0;
+            }
+            rejected.increment();
+            return (long) Math.ceil((1.0 - bucket.tokens) / refillPerNano);
+        }
+    }
+
+    /**
+     * Usuwa od najdawniej używanego kubełki, które zdążyły się już w pełni uzupełnić.
+     */
+    private void evictIdle(Map<String, Bucket> stripe, long now) {
+        Iterator<Bucket> iterator = stripe.values().iterator();
+        while (iterator.hasNext()) {
+            Bucket bucket = iterator.next();
+            if (now - bucket.updatedNanos < bucket.idleNanos) {
+                return;
+            }
+            iterator.remove();
+            evicted.increment();
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Zwraca statystyki ograniczników.
+     *
+     * @return Mapa z liczbą segmentów i kubełków oraz licznikami dozwolonych, odrzuconych żądań i usuniętych kubełków.
+     */
+    public Map<String, Object> stats() {
+        int buckets = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                buckets += stripe.buckets.size();
+            }
+        }
+        return Map.of(
+                "stripes", stripes.length,
+                "buckets", buckets,
+                "allowed", allowed.sum(),
+                "rejected", rejected.sum(),
+                "evicted", evicted.sum()
+        );
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.security;
+
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.RefreshTokenRepository;
+import org.example.DataBaseRepositories.UserRepository;
+import org.example.database.RefreshToken;
+import org.example.database.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * @brief
+ * Usługa wydająca pary token dostępu + token odświeżania i obsługująca ich rotację oraz unieważnianie.
+ * Token dostępu jest krótko ważny (jwt.access-token-minutes), a token odświeżania (jwt.refresh-token-days)
+ * jest zapisany w tabeli "refresh_tokens" jako skrót i może zostać użyty tylko raz: każde odświeżenie
+ * wydaje nową parę w tej samej rodzinie. Ponowne użycie zużytego tokenu odświeżania (np. skradzionego)
+ * unieważnia całą rodzinę wraz z wydanymi w niej tokenami dostępu (zob. TokenRevocationList).
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    /**
+     * Para tokenów zwracana klientowi.
+     *
+     * @param accessToken Token dostępu JWT.
+     * @param refreshToken Token odświeżania.
+     * @param expiresIn Czas ważności tokenu dostępu w sekundach.
+     * @param role Rola użytkownika.
+     */
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn, String role) {}
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationList tokenRevocationList;
+    private final Duration refreshTokenTtl;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Wygasłe tokeny odświeżania są usuwane przy logowaniu, nie częściej niż co PURGE_INTERVAL.
+     */
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+    private volatile Instant lastPurge = Instant.EPOCH;
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param refreshTokenRepository Repozytorium tokenów odświeżania.
+     * @param userRepository Repozytorium użytkowników.
+     * @param jwtUtil Narzędzie do obsługi JWT.
+     * @param tokenVersionRegistry Rejestr aktualnych wersji tokenów.
+     * @param tokenRevocationList Lista unieważnionych tokenów dostępu.
+     * @param refreshTokenDays Czas ważności tokenu odświeżania w dniach.
+     */
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               JwtUtil jwtUtil,
+                               TokenVersionRegistry tokenVersionRegistry,
+                               TokenRevocationList tokenRevocationList,
+                               @Value("${jwt.refresh-token-days:14}") long refreshTokenDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenTtl = Duration.ofDays(refreshTokenDays);
+    }
+
+    /**
+     * Wydaje nową parę tokenów po zalogowaniu (nowa rodzina tokenów odświeżania).
+     *
+     * @param user Zalogowany użytkownik.
+     * @return Para tokenów.
+     */
+    @Transactional
+    public TokenPair issue(User user) {
+        Instant now = Instant.now();
+        if (Duration.between(lastPurge, now).compareTo(PURGE_INTERVAL) > 0) {
+            lastPurge = now;
+            int removed = refreshTokenRepository.deleteExpired(toLocal(now));
+            log.debug("Usunięto {} wygasłych tokenów odświeżania", removed);
+        }
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    private TokenPair issue(User user, String familyId) {
+        JwtUtil.AccessToken accessToken = jwtUtil.generateToken(user);
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(user.getId(), hash(refreshToken), familyId,
+                accessToken.id(), toLocal(accessToken.expiresAt()), now, now.plus(refreshTokenTtl)));
+        tokenVersionRegistry.register(user);
+        return new TokenPair(accessToken.token(), refreshToken, jwtUtil.getAccessTokenTtl().toSeconds(), user.getRole().name());
+    }
+
+    /**
+     * Wymienia token odświeżania na nową parę tokenów (rotacja). Zużyty token nie może być użyty ponownie;
+     * próba ponownego użycia unieważnia całą rodzinę.
+     *
+     * @param refreshToken Token odświeżania przesłany przez klienta.
+     * @return Nowa para tokenów lub pusty wynik, jeśli token jest nieznany, wygasły lub unieważniony.
+     */
+    @Transactional
+    public Optional<TokenPair> refresh(String refreshToken) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(hash(refreshToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken current = found.get();
+        if (current.isRevoked() || refreshTokenRepository.markUsed(current.getId()) == 0) {
+            log.warn("Ponowne użycie tokenu odświeżania użytkownika ID: {}, unieważnianie rodziny {}",
+                    current.getUserId(), current.getFamilyId());
+            revokeAccessTokens(refreshTokenRepository.findByFamilyIdAndRevokedFalse(current.getFamilyId()));
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            return Optional.empty();
+        }
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return userRepository.findById(current.getUserId())
+                .map(user -> issue(user, current.getFamilyId()));
+    }
+
+    /**
+     * Wylogowuje: unieważnia rodzinę, do której należy token odświeżania, oraz wydane w niej tokeny dostępu.
+     *
+     * @param refreshToken Token odświeżania przesłany przez klienta.
+     * @return true, jeśli token był znany.
+     */
+    @Transactional
+    public boolean revoke(String refreshToken) {
+        return refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .map(token -> {
+                    revokeAccessTokens(List.of(token));
+                    revokeAccessTokens(refreshTokenRepository.findByFamilyIdAndRevokedFalse(token.getFamilyId()));
+                    refreshTokenRepository.revokeFamily(token.getFamilyId());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Unieważnia od razu wszystkie tokeny użytkownika (np. po zmianie roli). Musi być wywołane w transakcji.
+     *
+     * @param userId ID użytkownika.
+     */
+    public void revokeUser(Long userId) {
+        revokeAccessTokens(refreshTokenRepository.findByUserIdAndRevokedFalse(userId));
+        refreshTokenRepository.revokeByUserId(userId);
+    }
+
+    /**
+     * Unieważnia tokeny dostępu i usuwa tokeny odświeżania usuwanego użytkownika. Musi być wywołane w transakcji.
+     *
+     * @param userId ID użytkownika.
+     */
+    public void deleteUser(Long userId) {
+        revokeAccessTokens(refreshTokenRepository.findByUserIdAndRevokedFalse(userId));
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    private void revokeAccessTokens(List<RefreshToken> tokens) {
+        for (RefreshToken token : tokens) {
+            if (token.getAccessTokenId() != null && token.getAccessExpiresAt() != null) {
+                tokenRevocationList.revoke(token.getAccessTokenId(),
+                        token.getAccessExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+            }
+        }
+    }
+
+    /**
+     * Zwraca skrót SHA-256 (Base64) tokenu, pod którym tokeny odświeżania są zapisywane w bazie.
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -49,8 +50,10 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable()) // Wyłącza ochronę CSRF
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Dokończenie żądań asynchronicznych (logowanie, rejestracja), autoryzowanych już przy pierwszym wywołaniu
                         .requestMatchers("/files/**").permitAll() // Umożliwia dostęp do plików bez uwierzytelniania
                         .requestMatchers("/api/auth/login").permitAll() // Umożliwia dostęp do endpointu logowania bez uwierzytelniania
+                        .requestMatchers("/api/auth/refresh", "/api/auth/logout").permitAll() // Odświeżanie i wylogowanie działają także po wygaśnięciu tokenu dostępu
                         // .requestMatchers("/api/courses/quizzes/*/edit").hasRole("TEACHER") // Przykład reguły dostępu opartej na roli (zakomentowany)
                         .anyRequest().authenticated() // Wymaga uwierzytelnienia dla wszystkich pozostałych żądań
                 )
@@ -64,12 +67,14 @@ public class SecurityConfig {
 
     /**
      * Udostępnia bean PasswordEncoder, używany do kodowania i weryfikacji haseł.
-     * Używa BCryptPasswordEncoder.
+     * Używa BCryptPasswordEncoder z kosztem auth.bcrypt.strength; hasła zapisane z innym kosztem
+     * są haszowane ponownie przy udanym logowaniu (zob. PasswordHashingService).
      *
+     * @param strength Koszt (log2 liczby rund) BCrypt.
      * @return Instancja PasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
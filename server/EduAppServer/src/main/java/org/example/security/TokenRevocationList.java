@@ -0,0 +1,192 @@
+package org.example.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DataBaseRepositories.RevokedTokenRepository;
+import org.example.database.RevokedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Lista unieważnionych tokenów dostępu (wg roszczenia jti), sprawdzana przy każdym żądaniu.
+ * Sprawdzenie przechodzi najpierw przez filtr Blooma: dla zdecydowanej większości tokenów (nieunieważnionych)
+ * kończy się na kilku odczytach bitów, a tylko przy trafieniu w filtrze sprawdzany jest dokładny zbiór,
+ * który eliminuje fałszywe trafienia. Żadna ścieżka nie odpytuje bazy danych; tabela "revoked_tokens"
+ * służy wyłącznie do odtworzenia listy po restarcie. Wpisy są usuwane po wygaśnięciu tokenu,
+ * a filtr jest wtedy przebudowywany.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final int HASH_FUNCTIONS = 4;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int bloomBits;
+    private final Duration purgeInterval;
+
+    /**
+     * Dokładny zbiór unieważnionych tokenów z datą ich wygaśnięcia.
+     */
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Bity filtru Blooma; podmieniane w całości przy przebudowie. Zapisy i przebudowa są chronione monitorem tej klasy.
+     */
+    private volatile AtomicLongArray bloom;
+    private volatile Instant lastPurge = Instant.now();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder bloomHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Konstruktor wczytujący z bazy listę tokenów, które jeszcze nie wygasły.
+     *
+     * @param revokedTokenRepository Repozytorium unieważnionych tokenów.
+     * @param bloomBits Rozmiar filtru Blooma w bitach.
+     * @param purgeMinutes Minimalny odstęp między usuwaniem wygasłych wpisów.
+     */
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${jwt.revocation.bloom-bits:1048576}") int bloomBits,
+                               @Value("${jwt.revocation.purge-minutes:10}") long purgeMinutes) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bloomBits = bloomBits;
+        this.purgeInterval = Duration.ofMinutes(purgeMinutes);
+        this.bloom = new AtomicLongArray((bloomBits + 63) / 64);
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            revoked.put(token.getTokenId(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+            addToBloom(bloom, token.getTokenId());
+        }
+        log.info("Wczytano {} unieważnionych tokenów dostępu", revoked.size());
+    }
+
+    /**
+     * Sprawdza, czy token został unieważniony.
+     *
+     * @param tokenId Identyfikator tokenu (jti); tokeny bez identyfikatora nie mogą być unieważnione.
+     * @return true, jeśli token jest na liście unieważnionych.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        checks.increment();
+        if (!mightContain(bloom, tokenId)) {
+            return false;
+        }
+        bloomHits.increment();
+        if (revoked.containsKey(tokenId)) {
+            rejected.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Unieważnia token dostępu do chwili jego wygaśnięcia. Zmiana działa od razu w pamięci,
+     * a wpis w bazie jest zapisywany w transakcji wywołującego.
+     *
+     * @param tokenId Identyfikator tokenu (jti).
+     * @param expiresAt Data wygaśnięcia tokenu.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        Instant now = Instant.now();
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(now)) {
+            return;
+        }
+        synchronized (this) {
+            if (revoked.put(tokenId, expiresAt) == null) {
+                addToBloom(bloom, tokenId);
+            }
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault())));
+        if (Duration.between(lastPurge, now).compareTo(purgeInterval) > 0) {
+            purgeExpired(now);
+        }
+    }
+
+    /**
+     * Usuwa wpisy wygasłych tokenów i przebudowuje filtr Blooma, aby nie zapełniał się z czasem.
+     */
+    private void purgeExpired(Instant now) {
+        int removed;
+        synchronized (this) {
+            lastPurge = now;
+            int before = revoked.size();
+            revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+            removed = before - revoked.size();
+            AtomicLongArray rebuilt = new AtomicLongArray(bloom.length());
+            revoked.keySet().forEach(tokenId -> addToBloom(rebuilt, tokenId));
+            bloom = rebuilt;
+        }
+        revokedTokenRepository.deleteExpired(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        log.debug("Usunięto {} wygasłych wpisów z listy unieważnionych tokenów", removed);
+    }
+
+    private void addToBloom(AtomicLongArray bits, String tokenId) {
+        long hash = hash64(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            long mask = 1L << (bit & 63);
+            bits.getAndAccumulate(bit >>> 6, mask, (current, m) -> current | m);
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bits, String tokenId) {
+        long hash = hash64(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bitowy skrót FNV-1a; dwie jego połówki wyznaczają kolejne pozycje w filtrze (podwójne haszowanie).
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Zwraca statystyki listy.
+     *
+     * @return Mapa z liczbą unieważnionych tokenów, rozmiarem filtru oraz licznikami sprawdzeń,
+     * trafień filtru, fałszywych trafień i odrzuconych tokenów.
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "size", revoked.size(),
+                "bloomBits", bloomBits,
+                "checks", checks.sum(),
+                "bloomHits", bloomHits.sum(),
+                "falsePositives", falsePositives.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+}
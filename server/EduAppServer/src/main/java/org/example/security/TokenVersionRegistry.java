@@ -0,0 +1,141 @@
+package org.example.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.database.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief
+ * Rejestr aktualnych wersji tokenów użytkowników, używany do odrzucania tokenów JWT wydanych
+ * przed zmianą roli lub usunięciem konta. Wersje są trzymane w pamięci: wpis powstaje przy logowaniu,
+ * zmianie roli lub (po restarcie aplikacji) przy pierwszym żądaniu użytkownika, więc sprawdzenie tokenu
+ * zwykle nie odpytuje bazy danych.
+ */
+@Slf4j
+@Component
+public class TokenVersionRegistry {
+
+    private static final String SELECT_USER =
+            "SELECT \"username\", \"token_version\" FROM \"users\" WHERE \"id\" = ?";
+
+    /**
+     * Nazwa użytkownika i aktualna wersja tokenów; nazwa chroni przed tokenem usuniętego użytkownika,
+     * którego ID zostało ponownie przydzielone.
+     */
+    private record Identity(String username, int version) {}
+
+    /**
+     * Znacznik usuniętego lub nieistniejącego użytkownika.
+     */
+    private static final Identity MISSING = new Identity(null, -1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Identity> identities = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Konstruktor wstrzykujący zależności.
+     *
+     * @param jdbcTemplate Szablon JDBC.
+     */
+    @Autowired
+    public TokenVersionRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Sprawdza, czy token z podanymi roszczeniami jest aktualny.
+     *
+     * @param userId ID użytkownika z tokenu.
+     * @param username Nazwa użytkownika z tokenu.
+     * @param version Wersja tokenów z tokenu.
+     * @return true, jeśli użytkownik istnieje, ma tę samą nazwę i wersja tokenów się nie zmieniła.
+     */
+    public boolean isCurrent(Long userId, String username, int version) {
+        Identity identity = identities.get(userId);
+        if (identity != null) {
+            hits.increment();
+        } else {
+            loads.increment();
+            identity = load(userId);
+            identities.putIfAbsent(userId, identity);
+        }
+        boolean current = identity != MISSING && identity.version() == version && identity.username().equals(username);
+        if (!current) {
+            rejected.increment();
+        }
+        return current;
+    }
+
+    private Identity load(Long userId) {
+        return jdbcTemplate.query(SELECT_USER,
+                rs -> rs.next() ? new Identity(rs.getString("username"), rs.getInt("token_version")) : MISSING,
+                userId);
+    }
+
+    /**
+     * Zapisuje aktualną wersję tokenów użytkownika (po zalogowaniu lub zmianie roli). Wywołane wewnątrz
+     * transakcji zapisuje wpis dopiero po jej zatwierdzeniu, aby rejestr nie wyprzedzał bazy
+     * (a po wycofaniu transakcji nie zawierał wersji, której w bazie nie ma).
+     *
+     * @param user Użytkownik z aktualną wersją tokenów.
+     */
+    public void register(User user) {
+        Long userId = user.getId();
+        Identity identity = new Identity(user.getUsername(), user.getTokenVersion());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    identities.put(userId, identity);
+                }
+            });
+        } else {
+            identities.put(userId, identity);
+        }
+    }
+
+    /**
+     * Unieważnia wszystkie tokeny usuwanego użytkownika. Wywołane wewnątrz transakcji oznacza użytkownika
+     * ponownie po jej zatwierdzeniu, aby równoległe wczytanie nie zapisało nieaktualnego wpisu.
+     *
+     * @param userId ID użytkownika.
+     */
+    public void revokeUser(Long userId) {
+        identities.put(userId, MISSING);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    identities.put(userId, MISSING);
+                }
+            });
+        }
+        log.info("Unieważniono tokeny użytkownika ID: {}", userId);
+    }
+
+    /**
+     * Zwraca statystyki rejestru.
+     *
+     * @return Mapa z liczbą wpisów oraz licznikami trafień, wczytań z bazy i odrzuconych tokenów.
+     */
+    public Map<String, Object> stats() {
+        return Map.of(
+                "size", identities.size(),
+                "hits", hits.sum(),
+                "loads", loads.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+}
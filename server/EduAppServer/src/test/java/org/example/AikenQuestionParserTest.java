@@ -0,0 +1,106 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy parsera formatu Aiken (AikenQuestionParser).
+ */
+class AikenQuestionParserTest {
+
+    private static List<QuestionBankParser.Item> parse(String text) throws IOException {
+        List<QuestionBankParser.Item> items = new ArrayList<>();
+        new AikenQuestionParser().parse(new BufferedReader(new StringReader(text)), items::add);
+        return items;
+    }
+
+    @Test
+    void parsesQuestionsSeparatedOrNotByBlankLines() throws IOException {
+        List<QuestionBankParser.Item> items = parse("""
+                Jaki numer ma straż pożarna?
+                A. 997
+                B) 998
+                c. 999
+                ANSWER: B
+                Który kolor oznacza drogę ewakuacyjną?
+                A. Zielony
+                B. Czerwony
+                answer: a
+
+                """);
+        assertEquals(2, items.size());
+
+        QuizQuestion first = items.get(0).question();
+        assertEquals(1, items.get(0).lineNumber());
+        assertEquals("multiple_choice", first.getQuestionType());
+        assertEquals("Jaki numer ma straż pożarna?", first.getQuestionText());
+        assertEquals(Map.of("A", "997", "B", "998", "C", "999"), first.getOptions());
+        assertEquals("B", first.getCorrectAnswer());
+
+        assertEquals(6, items.get(1).lineNumber());
+        assertEquals("A", items.get(1).question().getCorrectAnswer());
+    }
+
+    @Test
+    void joinsMultiLineQuestionText() throws IOException {
+        List<QuestionBankParser.Item> items = parse("""
+                Pracodawca jest obowiązany
+                zapewnić pracownikom
+                A. szkolenie BHP
+                B. parking
+                ANSWER: A, B
+                """);
+        assertEquals("Pracodawca jest obowiązany zapewnić pracownikom", items.get(0).question().getQuestionText());
+        assertEquals("A,B", items.get(0).question().getCorrectAnswer());
+    }
+
+    @Test
+    void rejectsInvalidItemsAndContinues() throws IOException {
+        List<QuestionBankParser.Item> items = parse("""
+                Bez odpowiedzi
+                A. tak
+                B. nie
+
+                Zduplikowana opcja
+                A. tak
+                A. nie
+                ANSWER: A
+
+                Tekst po opcjach
+                A. tak
+                coś innego
+                ANSWER: A
+
+                Pusta odpowiedź
+                A. tak
+                ANSWER:
+
+                Poprawne
+                A. tak
+                B. nie
+                ANSWER: B
+
+                Urwane na końcu
+                A. tak
+                """);
+        assertEquals(6, items.size());
+        assertEquals("Brak linii ANSWER", items.get(0).error());
+        assertEquals("Zduplikowana opcja A w linii 7", items.get(1).error());
+        assertEquals("Nieprawidłowa linia 12 (oczekiwano opcji lub ANSWER:)", items.get(2).error());
+        assertEquals("Pusta linia ANSWER", items.get(3).error());
+        assertEquals("B", items.get(4).question().getCorrectAnswer());
+        assertEquals(19, items.get(4).lineNumber());
+        assertEquals("Brak linii ANSWER", items.get(5).error());
+        assertEquals(24, items.get(5).lineNumber());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy deterministycznego wyboru pytań i kolejności opcji próby (AttemptSelection).
+ */
+class AttemptSelectionTest {
+
+    private static final long[] SEEDS = {0L, 1L, -1L, 42L, 0x9E3779B97F4A7C15L, Long.MIN_VALUE};
+
+    /**
+     * Pełny częściowy algorytm Fishera-Yatesa na kopii tablicy - wzorzec, z którym porównywana jest wersja rzadka.
+     */
+    private static long[] denseReference(long[] ids, int k, long seed) {
+        long[] copy = ids.clone();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(copy.length - i);
+            long tmp = copy[i];
+            copy[i] = copy[j];
+            copy[j] = tmp;
+        }
+        return Arrays.copyOf(copy, k);
+    }
+
+    private static long[] ids(int n) {
+        return LongStream.rangeClosed(1, n).map(i -> i * 10).toArray();
+    }
+
+    @Test
+    void sparseAndDenseSelectionGiveTheSameQuestions() {
+        long[] ids = ids(1000);
+        // k * 4 < n wybiera wariant z mapą zamian, k * 4 >= n - wariant z kopią tablicy.
+        for (int k : new int[]{1, 2, 10, 100, 249, 250, 500, 1000}) {
+            for (long seed : SEEDS) {
+                assertArrayEquals(denseReference(ids, k, seed), AttemptSelection.selectQuestions(ids, k, seed),
+                        "k=" + k + ", seed=" + seed);
+            }
+        }
+    }
+
+    @Test
+    void selectionIsDeterministicAndWithoutRepeats() {
+        long[] ids = ids(200);
+        for (long seed : SEEDS) {
+            long[] first = AttemptSelection.selectQuestions(ids, 20, seed);
+            assertArrayEquals(first, AttemptSelection.selectQuestions(ids, 20, seed));
+            Set<Long> distinct = new HashSet<>();
+            for (long id : first) {
+                assertTrue(Arrays.binarySearch(ids, id) >= 0, "ID spoza quizu: " + id);
+                assertTrue(distinct.add(id), "Powtórzone ID: " + id);
+            }
+        }
+    }
+
+    @Test
+    void selectionDoesNotModifyInputAndClampsCount() {
+        long[] ids = ids(8);
+        long[] copy = ids.clone();
+        assertEquals(8, AttemptSelection.selectQuestions(ids, 100, 7L).length);
+        assertEquals(0, AttemptSelection.selectQuestions(ids, 0, 7L).length);
+        assertEquals(0, AttemptSelection.selectQuestions(ids, -3, 7L).length);
+        assertEquals(0, AttemptSelection.selectQuestions(new long[0], 5, 7L).length);
+        assertEquals(1, AttemptSelection.selectQuestions(ids, 1, 7L).length);
+        assertArrayEquals(copy, ids);
+    }
+
+    @Test
+    void optionOrderIsDeterministicPermutation() {
+        Map<String, String> options = new HashMap<>(Map.of("A", "a", "B", "b", "C", "c", "D", "d", "E", "e"));
+        Map<String, String> ordered = AttemptSelection.orderOptions(options, 99L, 5L);
+        assertEquals(options, ordered);
+        assertEquals(List.copyOf(ordered.keySet()),
+                List.copyOf(AttemptSelection.orderOptions(new TreeMap<>(options), 99L, 5L).keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> ordered.put("F", "f"));
+        assertNull(AttemptSelection.orderOptions(null, 99L, 5L));
+    }
+}
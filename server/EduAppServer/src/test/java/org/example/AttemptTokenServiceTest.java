@@ -0,0 +1,71 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy podpisu i ważności tokenów prób (AttemptTokenService).
+ */
+class AttemptTokenServiceTest {
+
+    private static final long TTL_HOURS = 24;
+
+    private final AttemptTokenService service = new AttemptTokenService("sekret-testowy", TTL_HOURS);
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    void decodesWhatWasEncoded() {
+        AttemptTokenService.Attempt attempt = new AttemptTokenService.Attempt(12L, 3, 45L, now(), -987654321L);
+        assertEquals(attempt, service.decode(service.encode(attempt)));
+
+        AttemptTokenService.Attempt issued = service.newAttempt(12L, 3, 45L);
+        assertEquals(issued, service.decode(service.encode(issued)));
+    }
+
+    @Test
+    void rejectsEveryModifiedByte() {
+        String token = service.encode(new AttemptTokenService.Attempt(12L, 3, 45L, now(), 7L));
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] tampered = bytes.clone();
+            tampered[i] ^= 0x01;
+            String modified = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+            assertThrows(IllegalArgumentException.class, () -> service.decode(modified), "bajt " + i);
+        }
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherSecret() {
+        AttemptTokenService other = new AttemptTokenService("inny-sekret", TTL_HOURS);
+        String token = other.encode(new AttemptTokenService.Attempt(12L, 3, 45L, now(), 7L));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.decode(token));
+        assertEquals("Nieprawidłowy podpis tokenu próby", e.getMessage());
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String token = service.encode(new AttemptTokenService.Attempt(12L, 3, 45L, now(), 7L));
+        assertThrows(IllegalArgumentException.class, () -> service.decode(token.substring(0, token.length() - 2)));
+        assertThrows(IllegalArgumentException.class, () -> service.decode(token + "AA"));
+        assertThrows(IllegalArgumentException.class, () -> service.decode("nie*jest*base64"));
+        assertThrows(IllegalArgumentException.class, () -> service.decode(""));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        long ttlSeconds = TTL_HOURS * 3600;
+        String valid = service.encode(new AttemptTokenService.Attempt(12L, 3, 45L, now() - ttlSeconds + 60, 7L));
+        assertEquals(45L, service.decode(valid).userId());
+
+        String expired = service.encode(new AttemptTokenService.Attempt(12L, 3, 45L, now() - ttlSeconds - 1, 7L));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.decode(expired));
+        assertEquals("Token próby wygasł", e.getMessage());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy generatora certyfikatów (CertificateService) na bazie SQLite w pamięci:
+ * poprawność archiwum ZIP i scalonego PDF oraz przepustowość (certyfikaty/s) przy 1, 2, 4... wątkach.
+ */
+class CertificateServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateServiceTest.class);
+
+    private static final long QUIZ_ID = 1;
+    private static final int PASSED = 300;
+    private static final int FAILED = 50;
+    private static final int WINDOW_SIZE = 64;
+    /**
+     * Największa liczba wątków w pomiarze przepustowości (ogranicza czas testu na maszynach z wieloma rdzeniami).
+     */
+    private static final int MAX_MEASURED_PARALLELISM = 4;
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createResults() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE \"users\" (\"id\" INTEGER PRIMARY KEY, \"username\" VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE \"quiz_results\" (\"id\" INTEGER PRIMARY KEY, \"user_id\" INTEGER, " +
+                "\"quiz_id\" INTEGER, \"correct_answers\" INTEGER, \"total_questions\" INTEGER, \"completion_date\" TIMESTAMP)");
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> results = new ArrayList<>();
+        Timestamp date = Timestamp.valueOf(LocalDateTime.of(2025, 3, 14, 10, 0));
+        for (int i = 1; i <= PASSED + FAILED; i++) {
+            users.add(new Object[]{i, String.format("student_%04d", i)});
+            // Zdający mają też próbę niezaliczoną, a niezdający tylko niezaliczone.
+            results.add(new Object[]{i, QUIZ_ID, 2, 10, date});
+            results.add(new Object[]{i, QUIZ_ID, i <= PASSED ? 8 : 4, 10, date});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO \"users\" (\"id\", \"username\") VALUES (?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO \"quiz_results\" (\"user_id\", \"quiz_id\", \"correct_answers\", " +
+                "\"total_questions\", \"completion_date\") VALUES (?, ?, ?, ?, ?)", results);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        dataSource.destroy();
+    }
+
+    private static CertificateService service(int parallelism) throws IOException {
+        return new CertificateService(jdbcTemplate, 50, parallelism, WINDOW_SIZE, "", "",
+                "Certyfikat ukończenia", "Dział BHP");
+    }
+
+    @Test
+    void zipContainsOneCertificatePerPassingStudent() throws IOException {
+        CertificateService service = service(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            assertEquals(PASSED, service.write(QUIZ_ID, "Szkolenie BHP", CertificateService.Format.ZIP, out));
+        } finally {
+            service.shutdown();
+        }
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                byte[] pdf = zip.readAllBytes();
+                try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+                    assertEquals(1, document.getNumberOfPages());
+                }
+            }
+        }
+        assertEquals(PASSED, names.size());
+        assertEquals("certyfikat_student_0001.pdf", names.get(0));
+        assertEquals(String.format("certyfikat_student_%04d.pdf", PASSED), names.get(PASSED - 1));
+    }
+
+    @Test
+    void mergedPdfHasOnePagePerPassingStudent() throws IOException {
+        CertificateService service = service(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            service.write(QUIZ_ID, "Szkolenie BHP", CertificateService.Format.PDF, out);
+        } finally {
+            service.shutdown();
+        }
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            assertEquals(PASSED, document.getNumberOfPages());
+        }
+    }
+
+    /**
+     * Mierzy przepustowość przy 1, 2 i 4 wątkach (nie więcej niż liczba rdzeni, co najmniej 2) i zapisuje ją w logu.
+     * Czasy zależą od obciążenia maszyny, więc przyspieszenie nie jest sprawdzane.
+     */
+    @Test
+    void reportsThroughputByParallelism() throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Map<Integer, Double> perSecond = new LinkedHashMap<>();
+        int maxParallelism = Math.max(2, Math.min(cores, MAX_MEASURED_PARALLELISM));
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+            CertificateService service = service(parallelism);
+            try {
+                if (parallelism == 1) {
+                    service.write(QUIZ_ID, "Rozgrzewka", CertificateService.Format.ZIP, OutputStream.nullOutputStream());
+                }
+                long start = System.nanoTime();
+                int certificates = service.write(QUIZ_ID, "Szkolenie BHP", CertificateService.Format.ZIP,
+                        OutputStream.nullOutputStream());
+                double seconds = (System.nanoTime() - start) / 1e9;
+                assertEquals(PASSED, certificates);
+                perSecond.put(parallelism, certificates / seconds);
+                log.info("Certyfikaty: {} wątków -> {} cert/s ({} rdzeni)", parallelism,
+                        String.format(Locale.ROOT, "%.1f", certificates / seconds), cores);
+            } finally {
+                service.shutdown();
+            }
+        }
+        perSecond.values().forEach(rate -> assertTrue(rate > 0));
+    }
+}
@@ -0,0 +1,110 @@
+package org.example;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @brief
+ * Wspólna baza testów z pełnym kontekstem aplikacji na tymczasowej bazie SQLite.
+ * Wszystkie podklasy mają tę samą konfigurację, więc Spring tworzy dla nich jeden kontekst
+ * (i jedną bazę) zapamiętany między klasami testów. Testy nie powinny więc zakładać pustej bazy
+ * poza danymi z DataInitializer.
+ */
+@SpringBootTest
+@Import(DatabaseTest.StatementCounting.class)
+public abstract class DatabaseTest {
+
+    private static final Path DATABASE = createDatabase();
+    private static final AtomicLong STATEMENTS = new AtomicLong();
+
+    private static Path createDatabase() {
+        try {
+            Path db = Files.createTempFile("edu-test", ".db");
+            db.toFile().deleteOnExit();
+            return db;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + DATABASE);
+    }
+
+    /**
+     * Zwraca liczbę poleceń SQL przygotowanych dotąd na połączeniach źródła danych
+     * (każde prepareStatement/createStatement/prepareCall).
+     */
+    protected static long statementCount() {
+        return STATEMENTS.get();
+    }
+
+    /**
+     * Opakowuje źródło danych tak, aby liczyło polecenia przygotowywane na jego połączeniach.
+     */
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        return result instanceof Connection connection
+                                ? proxy(Connection.class, connection, StatementCounting::countStatements)
+                                : result;
+                    });
+                }
+            };
+        }
+
+        private static Object countStatements(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement", "createStatement", "prepareCall" -> STATEMENTS.incrementAndGet();
+                default -> { }
+            }
+            return invoke(target, method, args);
+        }
+
+        private interface Handler {
+            Object handle(Object target, Method method, Object[] args) throws Throwable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler handler) {
+            InvocationHandler invocation = (p, method, args) -> handler.handle(target, method, args);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
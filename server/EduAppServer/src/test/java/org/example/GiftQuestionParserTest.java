@@ -0,0 +1,128 @@
+package org.example;
+
+import org.example.database.QuizQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy parsera formatu GIFT (GiftQuestionParser).
+ */
+class GiftQuestionParserTest {
+
+    private static List<QuestionBankParser.Item> parse(String text) throws IOException {
+        List<QuestionBankParser.Item> items = new ArrayList<>();
+        new GiftQuestionParser().parse(new BufferedReader(new StringReader(text)), items::add);
+        return items;
+    }
+
+    private static QuizQuestion single(String text) throws IOException {
+        List<QuestionBankParser.Item> items = parse(text);
+        assertEquals(1, items.size());
+        assertNull(items.get(0).error(), items.get(0).error());
+        return items.get(0).question();
+    }
+
+    @Test
+    void parsesTrueFalse() throws IOException {
+        QuizQuestion question = single("::Tytuł:: Ziemia jest płaska. {F}");
+        assertEquals("true_false", question.getQuestionType());
+        assertEquals("Ziemia jest płaska.", question.getQuestionText());
+        assertEquals("False", question.getCorrectAnswer());
+        assertEquals(Map.of("True", "Prawda", "False", "Fałsz"), question.getOptions());
+
+        assertEquals("True", single("Woda jest mokra {TRUE#dobrze}").getCorrectAnswer());
+    }
+
+    @Test
+    void parsesMultipleChoiceWithWeightsAndFeedback() throws IOException {
+        QuizQuestion question = single("""
+                // komentarz
+                $CATEGORY: bhp
+                [plain]Które z wymienionych są gaśnicami? {
+                  =Proszkowa#tak
+                  ~%-50%Wodna na prąd
+                  ~%50%Śniegowa
+                  ~Wiadro z piaskiem
+                }
+                """);
+        assertEquals("multiple_choice", question.getQuestionType());
+        assertEquals("Które z wymienionych są gaśnicami?", question.getQuestionText());
+        assertEquals(Map.of("A", "Proszkowa", "B", "Wodna na prąd", "C", "Śniegowa", "D", "Wiadro z piaskiem"),
+                question.getOptions());
+        assertEquals("A,C", question.getCorrectAnswer());
+    }
+
+    @Test
+    void parsesShortAnswerAndTextAroundAnswerBlock() throws IOException {
+        QuizQuestion question = single("Numer alarmowy to {=112 =999} w całej UE.");
+        assertEquals("open_ended", question.getQuestionType());
+        assertEquals("Numer alarmowy to _____ w całej UE.", question.getQuestionText());
+        assertEquals("112", question.getCorrectAnswer());
+        assertNull(question.getOptions());
+    }
+
+    @Test
+    void unescapesSpecialCharacters() throws IOException {
+        QuizQuestion question = single("Wynik 2\\=2 to\\: {=prawda\\{1\\} ~fałsz}");
+        assertEquals("Wynik 2=2 to:", question.getQuestionText());
+        assertEquals("prawda{1}", question.getOptions().get("A"));
+    }
+
+    @Test
+    void rejectsUnsupportedTypesWithLineNumbers() throws IOException {
+        List<QuestionBankParser.Item> items = parse("""
+                Opisz wypadek. {}
+
+                Ile to 2+2? {#4}
+
+                Dopasuj {=a -> 1 =b -> 2}
+
+                To tylko opis.
+
+                Niezamknięty {=tak ~nie
+                """);
+        assertEquals(5, items.size());
+        assertEquals(List.of(1, 3, 5, 7, 9), items.stream().map(QuestionBankParser.Item::lineNumber).toList());
+        assertEquals("Pytania typu esej nie są obsługiwane", items.get(0).error());
+        assertEquals("Pytania numeryczne nie są obsługiwane", items.get(1).error());
+        assertEquals("Pytania dopasowania nie są obsługiwane", items.get(2).error());
+        assertEquals("Brak bloku odpowiedzi (opisy nie są obsługiwane)", items.get(3).error());
+        assertEquals("Niezamknięty blok odpowiedzi", items.get(4).error());
+        assertTrue(items.stream().allMatch(item -> item.question() == null));
+    }
+
+    @Test
+    void blankLinesInsideAnswerBlockDoNotSplitQuestion() throws IOException {
+        List<QuestionBankParser.Item> items = parse("""
+                Pierwsze {
+                =tak
+
+                ~nie
+                }
+
+                Drugie {T}
+                """);
+        assertEquals(2, items.size());
+        assertEquals(1, items.get(0).lineNumber());
+        assertEquals("multiple_choice", items.get(0).question().getQuestionType());
+        assertEquals(7, items.get(1).lineNumber());
+    }
+
+    @Test
+    void rejectsOversizedQuestionWithoutBufferingIt() throws IOException {
+        String longLine = "x".repeat(QuestionBankParser.MAX_ITEM_LENGTH);
+        List<QuestionBankParser.Item> items = parse(longLine + "\n{T}\n\nKrótkie {F}\n");
+        assertEquals(2, items.size());
+        assertEquals("Pytanie jest zbyt długie", items.get(0).error());
+        assertEquals("False", items.get(1).question().getCorrectAnswer());
+    }
+}
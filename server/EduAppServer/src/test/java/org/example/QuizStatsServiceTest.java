@@ -0,0 +1,149 @@
+package org.example;
+
+import org.example.DataBaseRepositories.CourseRepository;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.DataBaseRepositories.UserRepository;
+import org.example.database.Course;
+import org.example.database.Quiz;
+import org.example.database.QuizStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy przyrostowych statystyk quizów (QuizStatsService), w szczególności przeliczania minimum
+ * i maksimum po usunięciu wyniku będącego wartością skrajną.
+ */
+class QuizStatsServiceTest extends DatabaseTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Autowired private QuizStatsService quizStatsService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private QuizRepository quizRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private Long userId;
+    private Long quizId;
+
+    @BeforeEach
+    void createQuiz() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        userId = userRepository.findByUsername("user").orElseThrow().getId();
+        Course course = new Course();
+        course.setCourseName("Kurs statystyk " + System.nanoTime());
+        course.setTeacher(userRepository.findByUsername("teacher1").orElseThrow());
+        course = courseRepository.save(course);
+        quizId = quizRepository.save(new Quiz("Quiz statystyk", null, course, 10)).getId();
+    }
+
+    @Test
+    void minAndMaxAreRecomputedWhenExtremeResultIsDeleted() {
+        long low = submit(2, 10);
+        long middle = submit(5, 10);
+        long sameMiddle = submit(5, 10);
+        long high = submit(9, 10);
+        assertStats(4, 20, 90, 3);
+
+        delete(high, 9, 10);
+        assertStats(3, 20, 50, 2);
+
+        delete(middle, 5, 10);
+        assertStats(2, 20, 50, 1);
+
+        delete(low, 2, 10);
+        assertStats(1, 50, 50, 1);
+
+        delete(sameMiddle, 5, 10);
+        QuizStats stats = stats();
+        assertEquals(0, stats.getAttempts());
+        assertNull(stats.getMinScore());
+        assertNull(stats.getMaxScore());
+        assertEquals(0, stats.getPassCount());
+        assertEquals(0.0, stats.getScoreSum(), DELTA);
+    }
+
+    @Test
+    void deletingNonExtremeResultKeepsMinAndMax() {
+        submit(1, 4);
+        long middle = submit(2, 4);
+        submit(4, 4);
+
+        delete(middle, 2, 4);
+        assertStats(2, 25, 100, 1);
+    }
+
+    @Test
+    void incrementalStatsMatchRebuildAndEveryChangeBumpsResultsVersion() {
+        submit(3, 10);
+        long removed = submit(10, 10);
+        submit(7, 10);
+        submit(0, 0);
+        delete(removed, 10, 10);
+        QuizStats incremental = stats();
+        assertEquals(5, incremental.getResultsVersion());
+
+        quizStatsService.rebuild();
+        QuizStats rebuilt = stats();
+        assertEquals(incremental.getAttempts(), rebuilt.getAttempts());
+        assertEquals(incremental.getScoreSum(), rebuilt.getScoreSum(), DELTA);
+        assertEquals(incremental.getScoreSumSquares(), rebuilt.getScoreSumSquares(), DELTA);
+        assertEquals(incremental.getMinScore(), rebuilt.getMinScore(), DELTA);
+        assertEquals(incremental.getMaxScore(), rebuilt.getMaxScore(), DELTA);
+        assertEquals(incremental.getPassCount(), rebuilt.getPassCount());
+        assertTrue(rebuilt.getResultsVersion() > incremental.getResultsVersion());
+    }
+
+    /**
+     * Zapisuje wynik i dolicza go do statystyk w jednej transakcji, tak jak SubmissionWriter.
+     *
+     * @return ID wstawionego wyniku.
+     */
+    private long submit(int correctAnswers, int totalQuestions) {
+        QueuedSubmission submission = new QueuedSubmission(userId, quizId, correctAnswers, totalQuestions,
+                LocalDateTime.now(), null, List.of());
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO \"quiz_results\" (\"user_id\", \"quiz_id\", \"correct_answers\", " +
+                            "\"total_questions\", \"completion_date\") VALUES (?, ?, ?, ?, ?)",
+                    userId, quizId, correctAnswers, totalQuestions, Timestamp.valueOf(submission.completionDate()));
+            quizStatsService.recordSubmissions(List.of(submission));
+            return jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Long.class);
+        });
+    }
+
+    /**
+     * Usuwa wynik i odejmuje go od statystyk w jednej transakcji, tak jak kontrolery usuwające wyniki.
+     */
+    private void delete(long resultId, int correctAnswers, int totalQuestions) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM \"quiz_results\" WHERE \"id\" = ?", resultId);
+            quizStatsService.recordDeletion(quizId, correctAnswers, totalQuestions);
+        });
+    }
+
+    private QuizStats stats() {
+        return quizStatsService.findByQuizIds(Set.of(quizId)).get(quizId);
+    }
+
+    private void assertStats(long attempts, double min, double max, long passed) {
+        QuizStats stats = stats();
+        assertEquals(attempts, stats.getAttempts());
+        assertEquals(min, stats.getMinScore(), DELTA);
+        assertEquals(max, stats.getMaxScore(), DELTA);
+        assertEquals(passed, stats.getPassCount());
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import org.example.DataBaseRepositories.CourseRepository;
+import org.example.DataBaseRepositories.QuizQuestionRepository;
+import org.example.DataBaseRepositories.QuizRepository;
+import org.example.DataBaseRepositories.UserRepository;
+import org.example.database.Course;
+import org.example.database.Quiz;
+import org.example.database.QuizQuestion;
+import org.example.dto.QuizAnswerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Sprawdza, że liczba poleceń SQL potrzebnych do oceny i zapisu przesłanego quizu nie zależy od liczby odpowiedzi.
+ * Polecenia są liczone przez opakowanie źródła danych z DatabaseTest, więc obejmują zarówno zapytania Hibernate,
+ * jak i zapisy JdbcTemplate wątku SubmissionWriter.
+ */
+class QuizSubmissionQueryCountTest extends DatabaseTest {
+
+    private static final int QUESTIONS = 40;
+    /**
+     * Polecenia jednego zgłoszenia: wczytanie quizu i jego pytań, wstawienie wyniku i odczyt jego ID,
+     * wsad odpowiedzi, wsad statystyk oraz odczyt nazw użytkowników do rankingu.
+     */
+    private static final long MAX_STATEMENTS = 7;
+
+    @Autowired private QuizSubmissionService quizSubmissionService;
+    @Autowired private SubmissionWriter submissionWriter;
+    @Autowired private GradingKeyCache gradingKeyCache;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private QuizRepository quizRepository;
+    @Autowired private QuizQuestionRepository quizQuestionRepository;
+
+    @Test
+    void statementCountDoesNotDependOnNumberOfAnswers() throws InterruptedException {
+        Long userId = userRepository.findByUsername("user").orElseThrow().getId();
+        List<QuizQuestion> questions = createQuiz();
+        Long quizId = questions.get(0).getQuiz().getId();
+
+        // Pierwsze zgłoszenie tworzy wiersz statystyk i ranking quizu; kolejne idą już stałą ścieżką.
+        submitAndCount(userId, quizId, questions.subList(0, 1));
+
+        long one = submitAndCount(userId, quizId, questions.subList(0, 1));
+        long some = submitAndCount(userId, quizId, questions.subList(0, 5));
+        long all = submitAndCount(userId, quizId, questions);
+
+        assertEquals(one, some, "Liczba poleceń SQL zależy od liczby odpowiedzi");
+        assertEquals(one, all, "Liczba poleceń SQL zależy od liczby odpowiedzi");
+        assertTrue(all <= MAX_STATEMENTS, "Zbyt wiele poleceń SQL na jedno zgłoszenie: " + all);
+    }
+
+    /**
+     * Przesyła odpowiedzi przy pustej pamięci kluczy odpowiedzi (więc z wczytaniem pytań)
+     * i czeka na zapis wyniku przez SubmissionWriter.
+     *
+     * @return Liczba poleceń SQL od przesłania do zatwierdzenia zapisu.
+     */
+    private long submitAndCount(Long userId, Long quizId, List<QuizQuestion> answered) throws InterruptedException {
+        List<QuizAnswerDTO> answers = new ArrayList<>();
+        for (QuizQuestion question : answered) {
+            answers.add(new QuizAnswerDTO(question.getId(), question.getCorrectAnswer()));
+        }
+        gradingKeyCache.evict(quizId);
+        long committed = committedSubmissions();
+        long before = statementCount();
+
+        quizSubmissionService.submit(userId, quizId, null, null, answers);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (committedSubmissions() == committed) {
+            assertTrue(System.currentTimeMillis() < deadline, "Wynik quizu nie został zapisany");
+            Thread.sleep(5);
+        }
+        return statementCount() - before;
+    }
+
+    private long committedSubmissions() {
+        Map<String, Object> stats = submissionWriter.stats();
+        return ((Number) stats.get("committedSubmissions")).longValue();
+    }
+
+    private List<QuizQuestion> createQuiz() {
+        Course course = new Course();
+        course.setCourseName("Kurs testowy liczby zapytań");
+        course.setAccessKey("QUERY-COUNT");
+        course.setTeacher(userRepository.findByUsername("teacher1").orElseThrow());
+        course = courseRepository.save(course);
+
+        Quiz quiz = quizRepository.save(new Quiz("Quiz testowy", "Liczba zapytań", course, QUESTIONS));
+        List<QuizQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            questions.add(new QuizQuestion("Pytanie " + i, "multiple_choice",
+                    Map.of("A", "Tak", "B", "Nie"), i % 2 == 0 ? "A" : "B", quiz));
+        }
+        return quizQuestionRepository.saveAll(questions);
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.security;
+
+import org.example.database.User;
+import org.example.database.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy pamięci podręcznej zweryfikowanych tokenów w JwtUtil.
+ */
+class JwtUtilTest {
+
+    private static final int MAX_SIZE = 8;
+
+    private final JwtUtil jwtUtil = new JwtUtil("k1=pierwszy_sekret", "k1", MAX_SIZE, 15);
+
+    @Test
+    void evictsLeastRecentlyUsedTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            tokens.add(token("uczen" + i));
+            jwtUtil.getClaimsFromToken(tokens.get(i));
+        }
+        // Token 0 jest użyty ponownie, więc najdawniej używanym zostaje token 1.
+        jwtUtil.getClaimsFromToken(tokens.get(0));
+        jwtUtil.getClaimsFromToken(token("nowy"));
+
+        long hits = stat("hits");
+        jwtUtil.getClaimsFromToken(tokens.get(0));
+        assertEquals(hits + 1, stat("hits"));
+
+        long misses = stat("misses");
+        jwtUtil.getClaimsFromToken(tokens.get(1));
+        assertEquals(misses + 1, stat("misses"));
+        assertTrue(stat("evicted") >= 1);
+    }
+
+    @Test
+    void sizeNeverExceedsLimit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        jwtUtil.getClaimsFromToken(token("uczen" + offset + "_" + i));
+                        assertTrue(stat("size") <= MAX_SIZE, "size=" + stat("size"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(stat("size") <= MAX_SIZE);
+        assertEquals(1600L, stat("misses"));
+    }
+
+    private String token(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setRole(UserRole.STUDENT);
+        return jwtUtil.generateToken(user).token();
+    }
+
+    private long stat(String name) {
+        return ((Number) jwtUtil.stats().get(name)).longValue();
+    }
+}
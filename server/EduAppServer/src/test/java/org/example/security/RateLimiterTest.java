@@ -0,0 +1,81 @@
+package org.example.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy ogranicznika opartego na kubełkach tokenów (RateLimiter).
+ */
+class RateLimiterTest {
+
+    private static final RateLimiter.Limit THREE_PER_HOUR = new RateLimiter.Limit(3, TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void allowsCapacityThenRejectsWithRetryTime() {
+        RateLimiter limiter = new RateLimiter(4, 1000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("login|1.2.3.4", THREE_PER_HOUR));
+        }
+        long wait = limiter.tryAcquire("login|1.2.3.4", THREE_PER_HOUR);
+        // Jeden token uzupełnia się w 1/3 okresu.
+        assertTrue(wait > TimeUnit.MINUTES.toNanos(19) && wait <= TimeUnit.MINUTES.toNanos(20), "wait=" + wait);
+
+        assertEquals(0, limiter.tryAcquire("login|5.6.7.8", THREE_PER_HOUR));
+        assertEquals(4L, limiter.stats().get("allowed"));
+        assertEquals(1L, limiter.stats().get("rejected"));
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(4, 1000);
+        RateLimiter.Limit twoPerTwoSeconds = new RateLimiter.Limit(2, TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, limiter.tryAcquire("key", twoPerTwoSeconds));
+        assertEquals(0, limiter.tryAcquire("key", twoPerTwoSeconds));
+        assertTrue(limiter.tryAcquire("key", twoPerTwoSeconds) > 0);
+
+        Thread.sleep(1100);
+        assertEquals(0, limiter.tryAcquire("key", twoPerTwoSeconds));
+        assertTrue(limiter.tryAcquire("key", twoPerTwoSeconds) > 0);
+    }
+
+    @Test
+    void checkDoesNotConsumeTokens() {
+        RateLimiter limiter = new RateLimiter(4, 1000);
+        assertEquals(0, limiter.check("user|anna", THREE_PER_HOUR));
+        assertEquals(0, limiter.stats().get("buckets"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.check("user|anna", THREE_PER_HOUR));
+            assertEquals(0, limiter.tryAcquire("user|anna", THREE_PER_HOUR));
+        }
+        assertTrue(limiter.check("user|anna", THREE_PER_HOUR) > 0);
+        assertEquals(3L, limiter.stats().get("allowed"));
+    }
+
+    @Test
+    void numberOfBucketsIsBounded() {
+        RateLimiter limiter = new RateLimiter(1, 2);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("ip-" + i, THREE_PER_HOUR);
+        }
+        assertEquals(2, limiter.stats().get("buckets"));
+        assertEquals(8L, limiter.stats().get("evicted"));
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 100);
+        RateLimiter.Limit onePer10ms = new RateLimiter.Limit(1, TimeUnit.MILLISECONDS.toNanos(10));
+        limiter.tryAcquire("a", onePer10ms);
+        limiter.tryAcquire("b", onePer10ms);
+        Thread.sleep(30);
+        limiter.tryAcquire("c", onePer10ms);
+
+        assertEquals(1, limiter.stats().get("buckets"));
+        assertEquals(2L, limiter.stats().get("evicted"));
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.security;
+
+import org.example.DataBaseRepositories.UserRepository;
+import org.example.DatabaseTest;
+import org.example.database.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @brief
+ * Testy rotacji tokenów odświeżania i wykrywania ich ponownego użycia (RefreshTokenService).
+ */
+class RefreshTokenServiceTest extends DatabaseTest {
+
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private TokenRevocationList tokenRevocationList;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void findUser() {
+        user = userRepository.findByUsername("user").orElseThrow();
+    }
+
+    private String tokenId(RefreshTokenService.TokenPair pair) {
+        return jwtUtil.getClaimsFromToken(pair.accessToken()).getId();
+    }
+
+    @Test
+    void refreshRotatesBothTokens() {
+        RefreshTokenService.TokenPair first = refreshTokenService.issue(user);
+        RefreshTokenService.TokenPair second = refreshTokenService.refresh(first.refreshToken()).orElseThrow();
+
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        assertNotEquals(tokenId(first), tokenId(second));
+        assertEquals(user.getRole().name(), second.role());
+
+        RefreshTokenService.TokenPair third = refreshTokenService.refresh(second.refreshToken()).orElseThrow();
+        assertFalse(tokenRevocationList.isRevoked(tokenId(third)));
+    }
+
+    @Test
+    void reusingRefreshTokenRevokesWholeFamily() {
+        RefreshTokenService.TokenPair first = refreshTokenService.issue(user);
+        RefreshTokenService.TokenPair second = refreshTokenService.refresh(first.refreshToken()).orElseThrow();
+        RefreshTokenService.TokenPair otherFamily = refreshTokenService.issue(user);
+
+        assertEquals(Optional.empty(), refreshTokenService.refresh(first.refreshToken()));
+
+        assertTrue(tokenRevocationList.isRevoked(tokenId(second)));
+        assertEquals(Optional.empty(), refreshTokenService.refresh(second.refreshToken()));
+
+        assertFalse(tokenRevocationList.isRevoked(tokenId(otherFamily)));
+        assertTrue(refreshTokenService.refresh(otherFamily.refreshToken()).isPresent());
+    }
+
+    @Test
+    void logoutRevokesFamilyAndAccessToken() {
+        RefreshTokenService.TokenPair pair = refreshTokenService.issue(user);
+
+        assertTrue(refreshTokenService.revoke(pair.refreshToken()));
+        assertTrue(tokenRevocationList.isRevoked(tokenId(pair)));
+        assertEquals(Optional.empty(), refreshTokenService.refresh(pair.refreshToken()));
+    }
+
+    @Test
+    void unknownRefreshTokenIsRejected() {
+        assertEquals(Optional.empty(), refreshTokenService.refresh("nieznany-token"));
+        assertFalse(refreshTokenService.revoke("nieznany-token"));
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.security;
+
+import org.example.DataBaseRepositories.RevokedTokenRepository;
+import org.example.database.RevokedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @brief
+ * Testy listy unieważnionych tokenów dostępu (TokenRevocationList) i jej filtru Blooma.
+ */
+class TokenRevocationListTest {
+
+    private RevokedTokenRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+    }
+
+    private static Instant inMinutes(long minutes) {
+        return Instant.now().plus(Duration.ofMinutes(minutes));
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndOthersAreNot() {
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16, 10);
+        list.revoke("jti-1", inMinutes(15));
+
+        assertTrue(list.isRevoked("jti-1"));
+        assertFalse(list.isRevoked("jti-2"));
+        assertFalse(list.isRevoked(null));
+        verify(repository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void alreadyExpiredTokenIsNotStored() {
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16, 10);
+        list.revoke("jti-old", Instant.now().minusSeconds(1));
+        list.revoke(null, inMinutes(15));
+        list.revoke("jti-no-expiry", null);
+
+        assertFalse(list.isRevoked("jti-old"));
+        assertEquals(0, list.stats().get("size"));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void loadsNotExpiredTokensFromDatabase() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(
+                new RevokedToken("jti-db", LocalDateTime.now().plusMinutes(5))));
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16, 10);
+
+        assertTrue(list.isRevoked("jti-db"));
+        assertEquals(1, list.stats().get("size"));
+    }
+
+    @Test
+    void falsePositivesOfBloomFilterAreResolvedByExactSet() {
+        // Filtr 64-bitowy z 200 wpisami jest prawie pełny, więc niemal każde sprawdzenie trafia w filtr.
+        TokenRevocationList list = new TokenRevocationList(repository, 64, 10);
+        for (int i = 0; i < 200; i++) {
+            list.revoke("revoked-" + i, inMinutes(15));
+        }
+        for (int i = 0; i < 200; i++) {
+            assertTrue(list.isRevoked("revoked-" + i));
+            assertFalse(list.isRevoked("valid-" + i));
+        }
+        assertTrue((long) list.stats().get("falsePositives") > 0);
+        assertEquals(200L, list.stats().get("rejected"));
+    }
+
+    @Test
+    void expiredEntriesArePurgedAndBloomFilterRebuilt() throws InterruptedException {
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16, 0);
+        list.revoke("short", Instant.now().plusMillis(50));
+        Thread.sleep(100);
+        list.revoke("long", inMinutes(15));
+
+        assertFalse(list.isRevoked("short"));
+        assertTrue(list.isRevoked("long"));
+        assertEquals(1, list.stats().get("size"));
+        // Po przebudowie filtr nie zawiera już wygasłego wpisu, więc sprawdzenie kończy się na filtrze.
+        assertEquals(1L, list.stats().get("bloomHits"));
+        verify(repository, atLeastOnce()).deleteExpired(any());
+    }
+}